@@ -0,0 +1,110 @@
+package com.putable.frobworld;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A thread-safe {@link ResultSink} that hands each result to a background
+ * thread, which writes it to another ResultSink. Runs only wait to write
+ * their results when the background thread has fallen a whole queue's worth
+ * behind, and never contend for a lock on the destination itself.
+ * 
+ * <p>
+ * If the background thread fails to write, the failure is thrown from the
+ * next call to {@link #write(RunResult)} or from {@link #close()}, and
+ * nothing more is written.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public class AsyncResultSink implements ResultSink {
+	// tells the background thread there is nothing more to write
+	private static final RunResult END = new RunResult(0, 0, false, 0, 0, 0,
+			0, 0, 0, 0, 0, 0);
+	// the results waiting to be written
+	private final BlockingQueue<RunResult> queue;
+	// where they are written, by the background thread only
+	private final ResultSink target;
+	// the background thread
+	private final Thread writer;
+	// the first failure of the background thread, if any
+	private volatile IOException failure;
+	// whether we have been closed
+	private boolean closed = false;
+
+	/**
+	 * Constructor for an AsyncResultSink, which starts its background thread.
+	 * 
+	 * @param target
+	 *            where to write the results
+	 * @param capacity
+	 *            how many results can be waiting at once
+	 */
+	public AsyncResultSink(final ResultSink target, int capacity) {
+		this.target = target;
+		this.queue = new ArrayBlockingQueue<RunResult>(capacity);
+		this.writer = new Thread("result writer") {
+			@Override
+			public void run() {
+				drain();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * What the background thread does: write results until told to stop.
+	 */
+	private void drain() {
+		try {
+			for (RunResult r = queue.take(); r != END; r = queue.take())
+				if (failure == null)
+					target.write(r);
+		} catch (IOException e) {
+			failure = e;
+			// keep taking results so that nobody waits on us forever
+			drain();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void write(RunResult result) throws IOException {
+		if (result == null)
+			throw new NullPointerException();
+		IOException e = failure;
+		if (e != null)
+			throw e;
+		try {
+			queue.put(result);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while writing", ie);
+		}
+	}
+
+	/**
+	 * Waits for every result to be written, then closes the ResultSink they
+	 * are written to.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			queue.put(END);
+			writer.join();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while closing", ie);
+		} finally {
+			target.close();
+		}
+		if (failure != null)
+			throw failure;
+	}
+}
@@ -3,11 +3,31 @@ package com.putable.frobworld;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import javax.management.JMException;
 import javax.swing.JFrame;
 
+import com.putable.pqueue.PQueueStats;
+
 /**
  * A driver class for the Frob World simulation. Based on command line
  * arguments, it will either produce a GUI version of Frob World or it will
@@ -19,6 +39,241 @@ import javax.swing.JFrame;
 public final class BasicDriver {
 	// field to determine which run the drive is currently on
 	private int runPoint = 0;
+	// the kind of PQueue every World is run with
+	private SchedulerType scheduler = SchedulerType.BINARY_HEAP;
+	// whether every World runs each day in batches
+	private boolean batchDays = false;
+	// whether every World counts the work its PQueues do
+	private boolean queueStats = false;
+	// what may stop every World early, as given to StopCondition.parse, or
+	// null to run every World to the end
+	private String stopSpec;
+	// whether every World publishes its figures over JMX while it runs
+	private boolean monitor = false;
+	// the summary of every run so far, or null if we aren't summarising, and
+	// how many runs apart to print it along the way (0 for only at the end)
+	private RunAggregator summary;
+	private int summaryEvery = 0;
+	// whether the machine readable results are going to standard output
+	private boolean toStandardOutput = false;
+	// what decides when enough runs have been made, or null to make as many
+	// as asked
+	private SequentialSampler sampler;
+	// where results are looked up before running and kept after, or null
+	private ResultCache cache;
+	// the worker processes the runs are made in, or null to make them in
+	// this JVM
+	private WorkerFarm farm;
+	// where the result of every run is written in a machine readable form,
+	// or null for none, and whether the printed report is written as well
+	private ResultSink sink;
+	private boolean report = true;
+	// where the printed report and summary go; standard output, but
+	// buffered and written a whole run at a time
+	private final PrintStream out = new PrintStream(new BufferedOutputStream(
+			new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+	// the threads the runs are spread over, or null to run them one at a
+	// time on this thread, and the runs on them that are yet to be written
+	// out, oldest first
+	private ExecutorService pool;
+	private int threads = 1;
+	private final Deque<Future<Run>> pending = new ArrayDeque<Future<Run>>();
+
+	/**
+	 * What one run leaves to be written out once every run before it has
+	 * been: its printed report and its result.
+	 */
+	private static final class Run {
+		private final byte[] report;
+		private final RunResult result;
+
+		private Run(byte[] report, RunResult result) {
+			this.report = report;
+			this.result = result;
+		}
+	}
+
+	/**
+	 * Setter method for whether every World runs each day in batches.
+	 * 
+	 * @param batch
+	 *            true to run each day in batches
+	 */
+	public void setBatchDays(boolean batch) {
+		this.batchDays = batch;
+	}
+
+	/**
+	 * Setter method for whether every World counts the work its PQueues do.
+	 * The counters are published over JMX while the World runs and printed
+	 * after its results.
+	 * 
+	 * @param stats
+	 *            true to count
+	 */
+	public void setQueueStats(boolean stats) {
+		this.queueStats = stats;
+	}
+
+	/**
+	 * Setter method for what may stop every World before its frobs die out or
+	 * its last day is reached. Each World gets its own stop conditions.
+	 * 
+	 * @param spec
+	 *            the stop conditions as described in
+	 *            {@link StopCondition#parse(String)}, or null to run every
+	 *            World to the end
+	 * @throws IllegalArgumentException
+	 *             If the stop conditions can't be understood
+	 */
+	public void setStopConditions(String spec) {
+		if (spec != null)
+			StopCondition.parse(spec);
+		this.stopSpec = spec;
+	}
+
+	/**
+	 * Setter method for whether every World publishes its figures over JMX
+	 * while it runs. Each World's {@link WorldMonitor} is registered as
+	 * <code>com.putable.frobworld:type=World,name="batch"</code>, replacing
+	 * the one of the World before it.
+	 * 
+	 * @param monitor
+	 *            true to publish
+	 */
+	public void setMonitor(boolean monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Setter method for whether to summarise every run together. The summary
+	 * is printed after the last run, and also every so many runs if asked.
+	 * 
+	 * @param summarise
+	 *            true to summarise
+	 * @param every
+	 *            how many runs apart to print the summary along the way, or 0
+	 *            for only at the end
+	 */
+	public void setSummary(boolean summarise, int every) {
+		if (every < 0)
+			throw new IllegalArgumentException("every " + every);
+		this.summary = summarise ? new RunAggregator() : null;
+		this.summaryEvery = every;
+	}
+
+	/**
+	 * Method to print the summary of every run so far, if we are summarising.
+	 */
+	public void printSummary() {
+		if (summary != null)
+			summary.print("Summary", summaryOut());
+		if (sampler != null)
+			summaryOut().println("Sampled " + sampler + "\n");
+		summaryOut().flush();
+	}
+
+	/**
+	 * Method to find where the summary is printed: with the report, unless
+	 * the report is replaced by results written to standard output, in which
+	 * case it goes to standard error instead.
+	 * 
+	 * @return where to print the summary
+	 */
+	private PrintStream summaryOut() {
+		return report || !toStandardOutput ? out : System.err;
+	}
+
+	/**
+	 * Setter method for where the result of every run is written in a
+	 * machine readable form. The printed report of each run is then left
+	 * out, and the summary, if any, is printed to standard error if the
+	 * results are going to standard output.
+	 * 
+	 * @param format
+	 *            the form to write the results in, or null to only print the
+	 *            report
+	 * @param file
+	 *            the file to write them to, or null for standard output
+	 * @param async
+	 *            true to write them on a thread of their own, so the runs
+	 *            never wait on the writing
+	 * @throws IOException
+	 *             If the file can't be created
+	 */
+	public void setResultOutput(ResultFormat format, String file,
+			boolean async) throws IOException {
+		if (format == null) {
+			sink = null;
+			report = true;
+			return;
+		}
+		toStandardOutput = file == null;
+		OutputStream to = toStandardOutput ? new FileOutputStream(
+				FileDescriptor.out) : new FileOutputStream(file);
+		sink = format.open(to);
+		if (async)
+			sink = new AsyncResultSink(sink, 1024);
+		report = false;
+	}
+
+	/**
+	 * Setter method for where results are kept after each run, and looked up
+	 * instead of running again when only the results are wanted (that is,
+	 * when they are written in a machine readable form instead of the
+	 * printed report).
+	 * 
+	 * @param cache
+	 *            the cache, or null to make every run
+	 */
+	public void setCache(ResultCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Setter method for making the runs in separate worker JVMs instead of
+	 * this one (see {@link WorkerFarm}). Runs are still written out in the
+	 * order they were started, and the output is the same as when they are
+	 * made here, except that PQueue counters and JMX figures belong to the
+	 * workers and can't be had.
+	 * 
+	 * @param workers
+	 *            how many workers, or 0 to make the runs in this JVM
+	 */
+	public void setWorkers(int workers) {
+		if (workers < 0)
+			throw new IllegalArgumentException("workers " + workers);
+		if (farm != null)
+			farm.close();
+		farm = workers == 0 ? null : new WorkerFarm(workers);
+	}
+
+	/**
+	 * Setter method for how many threads the runs are spread over. Each run
+	 * is still written out in the order it was started in, so apart from
+	 * timings the output is the same however many threads there are.
+	 * 
+	 * @param threads
+	 *            how many threads, 1 to run everything on the calling thread
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads " + threads);
+		if (pool != null)
+			pool.shutdown();
+		this.threads = threads;
+		this.pool = threads == 1 ? null : Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Setter method for the kind of PQueue every World is run with.
+	 * 
+	 * @param scheduler
+	 *            the kind of PQueue
+	 */
+	public void setScheduler(SchedulerType scheduler) {
+		this.scheduler = scheduler;
+	}
 
 	/**
 	 * Method to perform a "run count" simulation. This takes an integer greater
@@ -32,16 +287,34 @@ public final class BasicDriver {
 		Random rand = new Random();
 		for (int i = 1; i < count + 1; i++) {
 			int seedVal = rand.nextInt(Integer.MAX_VALUE - 1);
-			System.out
-					.println("__________________________________________________________________________\n");
-			System.out
-					.println("Run #" + i + ", Seed Value = " + seedVal + "\n");
-			World world = new World(seedVal);
-			world.gatherResults();
-			world = null;
+			start(i, seedVal);
 		}
 	}
 
+	/**
+	 * Method to perform a "run until" simulation. This runs the Frob World
+	 * simulation with randomly generated seeds until the sampler has seen
+	 * enough, or the most runs allowed have been made. Runs that are no longer
+	 * needed are cancelled, and the World being run by each, on one of our
+	 * threads or in a worker process, is stopped where it is.
+	 * 
+	 * @param sampler
+	 *            what decides when enough runs have been made
+	 * @param most
+	 *            the most runs to make
+	 */
+	public void runUntil(SequentialSampler sampler, int most) {
+		this.sampler = sampler;
+		Random rand = new Random();
+		for (int i = 1; i < most + 1 && !sampler.isDone(); i++)
+			start(i, rand.nextInt(Integer.MAX_VALUE - 1));
+		while (!pending.isEmpty() && !sampler.isDone())
+			writeOut(pending.remove());
+		for (Future<Run> run : pending)
+			run.cancel(true);
+		pending.clear();
+	}
+
 	/**
 	 * Method to perform a "run these" simulation. This takes a seed value to
 	 * plug into the Frob World Simulation and runs it on that seed.
@@ -50,14 +323,247 @@ public final class BasicDriver {
 	 *            the seed value to run the simulation on
 	 */
 	public void runThese(int input) {
-		++runPoint;
-		System.out
-				.println("__________________________________________________________________________\n");
-		System.out.println("Run #" + runPoint + ", Seed Value = " + input
-				+ "\n");
-		World world = new World(input);
-		world.gatherResults();
-		world = null;
+		start(++runPoint, input);
+	}
+
+	/**
+	 * Method to start one run, either right here or on one of our threads.
+	 * Runs are written out in the order they were started, and once twice as
+	 * many runs are unwritten as there are threads, this waits for the oldest
+	 * of them so that the rest don't pile up in memory.
+	 * 
+	 * @param number
+	 *            which run this is
+	 * @param seed
+	 *            the seed value to run the simulation on
+	 */
+	private void start(final int number, final int seed) {
+		if (farm != null) {
+			pending.add(startOnFarm(number, seed));
+			while (pending.size() >= 2 * farm.getWorkers())
+				writeOut(pending.remove());
+			return;
+		}
+		if (pool == null) {
+			writeOut(runWorld(number, seed));
+			return;
+		}
+		pending.add(pool.submit(() -> runWorld(number, seed)));
+		while (pending.size() >= 2 * threads)
+			writeOut(pending.remove());
+	}
+
+	/**
+	 * Method to start one run on the farm, unless only its result is wanted
+	 * and that is in the cache.
+	 * 
+	 * @param number
+	 *            which run this is
+	 * @param seed
+	 *            the seed value to run the simulation on
+	 * @return the run to come
+	 */
+	private Future<Run> startOnFarm(final int number, final int seed) {
+		if (queueStats || monitor)
+			throw new IllegalStateException("PQueue counters and JMX figures "
+					+ "can't be had from worker processes");
+		final String how = ResultCache.describe(scheduler, batchDays,
+				stopSpec);
+		if (cache != null && !report) {
+			RunResult cached = cache.get(WorldConfig.DEFAULT, seed, how);
+			if (cached != null)
+				return CompletableFuture.completedFuture(new Run(new byte[0],
+						cached));
+		}
+		final byte[] header = header(number, seed);
+		final CompletableFuture<WorkerFarm.Outcome> submitted = farm.submit(
+				seed, WorldConfig.DEFAULT, scheduler, batchDays, stopSpec,
+				report);
+		final CompletableFuture<Run> run = submitted.thenApply(outcome -> {
+			RunResult result = outcome.getResult();
+			if (cache != null) {
+				try {
+					cache.put(WorldConfig.DEFAULT, seed, how, result);
+				} catch (IOException e) {
+					throw new IllegalStateException("couldn't keep the result "
+							+ "of seed " + seed, e);
+				}
+			}
+			byte[] text = Arrays.copyOf(header, header.length
+					+ outcome.getReport().length);
+			System.arraycopy(outcome.getReport(), 0, text, header.length,
+					outcome.getReport().length);
+			return new Run(text, result);
+		});
+		// cancelling what thenApply gave us doesn't reach the farm by itself
+		run.whenComplete((r, t) -> {
+			if (run.isCancelled())
+				submitted.cancel(true);
+		});
+		return run;
+	}
+
+	/**
+	 * Method to make the lines the printed report of each run starts with.
+	 * 
+	 * @param number
+	 *            which run this is
+	 * @param seed
+	 *            the seed value the simulation is run on
+	 * @return the lines
+	 */
+	private static byte[] header(int number, int seed) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		PrintStream text = new PrintStream(bytes, false);
+		text.println("__________________________________________________________________________\n");
+		text.println("Run #" + number + ", Seed Value = " + seed + "\n");
+		text.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Method to write out every run that hasn't been yet, and stop our
+	 * threads and the writing of results. Must be called once there are no
+	 * more runs to start.
+	 * 
+	 * @throws IOException
+	 *             If the results can't all be written
+	 */
+	public void finish() throws IOException {
+		while (!pending.isEmpty())
+			writeOut(pending.remove());
+		if (pool != null)
+			pool.shutdown();
+		if (farm != null)
+			farm.close();
+		out.flush();
+		if (sink != null)
+			sink.close();
+		if (cache != null)
+			cache.close();
+	}
+
+	/**
+	 * Method to write out a run once it is over.
+	 * 
+	 * @param run
+	 *            the run
+	 */
+	private void writeOut(Future<Run> run) {
+		try {
+			writeOut(run.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted waiting for a run", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Method to write out a run: its report, its result and, every so often,
+	 * the summary so far. The run is also added to the sampler, if any.
+	 * 
+	 * @param run
+	 *            the run
+	 */
+	private void writeOut(Run run) {
+		if (report)
+			out.write(run.report, 0, run.report.length);
+		if (sink != null) {
+			try {
+				sink.write(run.result);
+			} catch (IOException e) {
+				throw new IllegalStateException("couldn't write the result of "
+						+ "seed " + run.result.getSeed(), e);
+			}
+		}
+		if (sampler != null)
+			sampler.add(run.result);
+		if (summary != null) {
+			summary.add(run.result);
+			if (summaryEvery > 0 && summary.getRuns() % summaryEvery == 0)
+				summary.print("Summary so far", summaryOut());
+		}
+		out.flush();
+	}
+
+	/**
+	 * Method to run one World on a seed and collect its printed report,
+	 * along with how much work its PQueues did if we are counting. If only
+	 * the result is wanted and it is in the cache, the World isn't run at
+	 * all. Anything
+	 * that goes wrong along the way is noted in the report, or on standard
+	 * error if there is no report.
+	 * 
+	 * @param number
+	 *            which run this is
+	 * @param seed
+	 *            the seed value to run the simulation on
+	 * @return the run
+	 */
+	private Run runWorld(int number, int seed) {
+		String how = ResultCache.describe(scheduler, batchDays,
+				stopSpec);
+		if (cache != null && !report) {
+			RunResult cached = cache.get(WorldConfig.DEFAULT, seed, how);
+			if (cached != null)
+				return new Run(new byte[0], cached);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+		PrintStream text = new PrintStream(bytes, false);
+		PrintStream notes = report ? text : System.err;
+		byte[] header = header(number, seed);
+		text.write(header, 0, header.length);
+		World world = new World(seed, scheduler);
+		world.setBatchDays(batchDays);
+		world.setProfileOut(text);
+		if (stopSpec != null)
+			world.setStopConditions(StopCondition.parse(stopSpec));
+		if (queueStats) {
+			PQueueStats grass = new PQueueStats(), frob = new PQueueStats();
+			try {
+				world.setQueueStats(grass, frob);
+				grass.register("grass");
+				frob.register("frob");
+			} catch (JMException e) {
+				// still counted, just not watchable
+				notes.println("Couldn't publish the PQueue counters: "
+						+ e.getMessage() + "\n");
+			}
+		}
+		if (monitor) {
+			WorldMonitor wm = new WorldMonitor(seed);
+			world.setMonitor(wm);
+			try {
+				wm.register("batch");
+			} catch (JMException e) {
+				notes.println("Couldn't publish the World's figures: "
+						+ e.getMessage() + "\n");
+			}
+		}
+		world.run();
+		world.printResults(text);
+		world.printProfile(text);
+		if (world.getGrassStats() != null) {
+			text.println("Grass PQueue:\n--- " + world.getGrassStats()
+					+ " ---\n");
+			text.println("Frob PQueue:\n--- " + world.getFrobStats()
+					+ " ---\n");
+		}
+		text.flush();
+		RunResult result = world.getResult();
+		if (cache != null) {
+			try {
+				cache.put(world.getConfig(), seed, how, result);
+			} catch (IOException e) {
+				throw new IllegalStateException("couldn't keep the result of "
+						+ "seed " + seed, e);
+			}
+		}
+		return new Run(bytes.toByteArray(), result);
 	}
 
 	public static void main(String[] args) throws Throwable {
@@ -87,9 +593,62 @@ public final class BasicDriver {
 			mainFrame.setResizable(false);
 			mainFrame.setVisible(true);
 		}
-		// running Frob World in batch mode
+		// running Frob World in batch mode, optionally naming the scheduler,
+		// whether to run each day in batches, whether to count the work of
+		// the PQueues, whether to publish each World's figures over JMX and
+		// whether to summarise the runs together, what form to write each
+		// run's result in and where, whether to write them on a thread of
+		// their own, how many threads to spread the runs over, what may stop
+		// each run early, what to sample until it is known well enough and
+		// where to keep results so runs needn't be made again, and how many
+		// worker processes to make the runs in
 		else if (args[0].equals("batch")) {
 			BasicDriver bd = new BasicDriver();
+			ResultFormat format = null;
+			String file = null;
+			boolean async = false;
+			SequentialSampler sampler = null;
+			try {
+				for (int i = 1; i < args.length; i++) {
+					if (args[i].equals("--batch-days"))
+						bd.setBatchDays(true);
+					else if (args[i].equals("--queue-stats"))
+						bd.setQueueStats(true);
+					else if (args[i].equals("--monitor"))
+						bd.setMonitor(true);
+					else if (args[i].equals("--summary"))
+						bd.setSummary(true, 0);
+					else if (args[i].equals("--summary-every"))
+						bd.setSummary(true, Integer.parseInt(args[++i]));
+					else if (args[i].equals("--format"))
+						format = ResultFormat.valueOf(args[++i]
+								.toUpperCase());
+					else if (args[i].equals("--out"))
+						file = args[++i];
+					else if (args[i].equals("--async"))
+						async = true;
+					else if (args[i].equals("--until"))
+						sampler = SequentialSampler.parse(args[++i]);
+					else if (args[i].equals("--stop"))
+						bd.setStopConditions(args[++i]);
+					else if (args[i].equals("--cache"))
+						bd.setCache(new ResultCache(new File(args[++i])));
+					else if (args[i].equals("--threads"))
+						bd.setThreads(Integer.parseInt(args[++i]));
+					else if (args[i].equals("--workers"))
+						bd.setWorkers(Integer.parseInt(args[++i]));
+					else
+						bd.setScheduler(SchedulerType.parse(args[i]));
+				}
+				if (format == null && (file != null || async))
+					throw new IllegalArgumentException(
+							"--out and --async need a --format");
+			} catch (IllegalArgumentException e) {
+				// a mistake on the command line, not in the simulation
+				System.err.println("batch: " + e.getMessage());
+				System.exit(2);
+			}
+			bd.setResultOutput(format, file, async);
 			Scanner in = new Scanner(System.in);
 			int v = 0;
 			// perform a run these simulation
@@ -100,11 +659,31 @@ public final class BasicDriver {
 					v = in.nextInt();
 				}
 			}
+			// perform a run until simulation, making at most that many runs
+			else if (sampler != null)
+				bd.runUntil(sampler, v);
 			// perform a run count simulation
 			else
 				bd.runCount(v);
 			in.close();
-		} else
+			bd.finish();
+			bd.printSummary();
+		}
+		// running a parameter sweep
+		else if (args[0].equals("sweep"))
+			Sweep.main(Arrays.copyOfRange(args, 1, args.length));
+		// running a daemon that runs jobs sent to its socket, or sending it
+		// the jobs on standard input
+		else if (args[0].equals("daemon"))
+			SimulationDaemon.main(Arrays.copyOfRange(args, 1, args.length));
+		// being one of the worker processes of a batch run with --workers
+		else if (args[0].equals("worker"))
+			FarmWorker.main(Arrays.copyOfRange(args, 1, args.length));
+		else if (args[0].equals("submit")) {
+			if (DaemonClient.submit(Path.of(args[1]), System.in, System.out) > 0)
+				System.exit(1);
+		}
+		else
 			throw new IllegalArgumentException();
 	}
 }
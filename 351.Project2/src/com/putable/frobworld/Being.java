@@ -1,39 +1,92 @@
 package com.putable.frobworld;
 
-import java.awt.Point;
-
 import com.putable.pqueue.ConcretePQAble;
 
 /**
  * The abstract class Being stands as a model for what beings should have and
- * what they can do. Since every Being is also a {@link #Thing}, it contains a
- * Point for its current location. It also has an inner class for deciding what
- * else lies in its neighborhood, along with abstract methods that every Being
- * must do. Also contains fields for the Being's mass, birth mass, the
- * percentage of the Being's mass that it gives to its child, its mass tax
+ * what they can do. Since every Being is also a {@link #Thing}, it contains the
+ * coordinates of its current location. It also has primitive fields for
+ * deciding what else lies in its neighborhood, along with abstract methods that
+ * every Being must do. Also contains fields for the Being's mass, birth mass,
+ * the percentage of the Being's mass that it gives to its child, its mass tax
  * mills, and fixed overhead.
  * 
+ * <p>
+ * There can be a great many Beings alive at once, so all of this state is kept
+ * in primitive fields directly on the Being rather than in helper objects.
+ * 
  * @author Brennan Collins
  * 
  */
 public abstract class Being extends ConcretePQAble implements Thing {
+	// bits of the neighborhood mask for each of the cardinal directions
+	public static final int NORTH = 1, EAST = 2, SOUTH = 4, WEST = 8;
 	// the location of our being
-	private Point location;
+	private int x, y;
 	// our being's mass
 	public int mass;
 	public boolean isAlive = true;
 	public int birthMass, birthPercent, massTaxMills, fixedOverHead;
-	// a defining neighborhood of what surrounds our being
-	public Neighborhood neighborhood = new Neighborhood();
+	// a defining neighborhood of what surrounds our being: one bit per
+	// direction that is set when the location in that direction is not empty,
+	// and a character for what was last seen in each direction
+	private byte occupied;
+	char north, east, south, west;
 
 	@Override
-	public void setLocation(Point p) {
-		this.location = p;
+	public void setLocation(int x, int y) {
+		this.x = x;
+		this.y = y;
 	}
 
 	@Override
-	public Point getLocation() {
-		return location;
+	public int getX() {
+		return x;
+	}
+
+	@Override
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * Method to determine if the location in a given direction was found to
+	 * contain some other "Thing".
+	 * 
+	 * @param direction
+	 *            one of {@link #NORTH}, {@link #EAST}, {@link #SOUTH} or
+	 *            {@link #WEST}
+	 * @return true if the location is not empty, false otherwise
+	 */
+	public boolean isOccupied(int direction) {
+		return (occupied & direction) != 0;
+	}
+
+	/**
+	 * Getter method for the whole neighborhood at once.
+	 * 
+	 * @return a mask with the direction bit set for every location that is not
+	 *         empty
+	 */
+	public int getOccupiedMask() {
+		return occupied;
+	}
+
+	/**
+	 * Setter method for whether the location in a given direction contains
+	 * some other "Thing".
+	 * 
+	 * @param direction
+	 *            one of {@link #NORTH}, {@link #EAST}, {@link #SOUTH} or
+	 *            {@link #WEST}
+	 * @param full
+	 *            true if the location is not empty
+	 */
+	public void setOccupied(int direction, boolean full) {
+		if (full)
+			occupied |= direction;
+		else
+			occupied &= ~direction;
 	}
 
 	/**
@@ -82,18 +135,4 @@ public abstract class Being extends ConcretePQAble implements Thing {
 	public int getMass() {
 		return mass;
 	}
-
-	/**
-	 * A that consists of 4 booleans that represent each of the cardinal
-	 * directions. If a direction is false that means the location in this
-	 * direction is empty. Otherwise the location contains some other "Thing".
-	 * 
-	 * @author Brennan Collins
-	 * 
-	 */
-	public class Neighborhood {
-		char n, e, s, w;
-		public boolean north = false, south = false, east = false,
-				west = false;
-	}
 }
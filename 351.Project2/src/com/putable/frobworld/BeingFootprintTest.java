@@ -0,0 +1,80 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Footprint tests for the {@link Being} classes. Uses JOL to measure how much
+ * memory each Grass and Frob actually holds on to, so that the layout of a
+ * Being doesn't quietly grow back into a handful of helper objects.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class BeingFootprintTest {
+	// how many beings to measure at once
+	private static final int COUNT = 1000;
+
+	/**
+	 * Method to make a grass the same way our World does.
+	 *
+	 * @param rand
+	 *            the random number generator of the world
+	 * @return a new grass
+	 */
+	public Grass makeGrass(Random rand) {
+		Grass grass = new Grass(10, 30, 40, -200, 0, 10);
+		grass.rand = rand;
+		grass.setLocation(1, 1);
+		grass.setInitialNextUpdate(0);
+		return grass;
+	}
+
+	@Test
+	public void testSharedRandom() {
+		Grass g1 = new Grass(10, 30, 40, -200, 0, 10);
+		Grass g2 = new Grass(10, 30, 40, -200, 0, 10);
+		assertTrue(g1.rand == g2.rand);
+	}
+
+	@Test
+	public void testGrassInstanceSize() {
+		// header, queue bookkeeping, location, neighborhood and mass fields
+		assertTrue(ClassLayout.parseClass(Grass.class).instanceSize() <= 80);
+	}
+
+	@Test
+	public void testGrassRetainsNothingElse() {
+		Random rand = new Random(42);
+		Grass[] grasses = new Grass[COUNT];
+		for (int i = 0; i < COUNT; i++)
+			grasses[i] = makeGrass(rand);
+		long total = GraphLayout.parseInstance((Object) grasses).totalSize();
+		long shared = GraphLayout.parseInstance(rand).totalSize()
+				+ ClassLayout.parseInstance(grasses).instanceSize();
+		long perGrass = (total - shared) / COUNT;
+		assertTrue(perGrass == ClassLayout.parseClass(Grass.class)
+				.instanceSize());
+	}
+
+	@Test
+	public void testFrobRetainsOnlyGenes() {
+		Random rand = new Random(42);
+		Frob[] frobs = new Frob[COUNT];
+		for (int i = 0; i < COUNT; i++)
+			frobs[i] = new Frob(rand, 100, 100, 2, 20);
+		long total = GraphLayout.parseInstance((Object) frobs).totalSize();
+		long shared = GraphLayout.parseInstance(rand).totalSize()
+				+ ClassLayout.parseInstance(frobs).instanceSize();
+		long perFrob = (total - shared) / COUNT;
+		long genes = GraphLayout.parseInstance(frobs[0].frobGenotype)
+				.totalSize();
+		assertTrue(perFrob == ClassLayout.parseClass(Frob.class)
+				.instanceSize() + genes);
+	}
+}
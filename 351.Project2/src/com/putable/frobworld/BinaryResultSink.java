@@ -0,0 +1,121 @@
+package com.putable.frobworld;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link ResultSink} that writes each result as a fixed-size big-endian
+ * record of 57 bytes, after a header of the magic number "FROB" and a format
+ * version. Results can be read back with {@link #readHeader(DataInput)} and
+ * {@link #read(DataInput)}.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public class BinaryResultSink implements ResultSink {
+	/**
+	 * The first four bytes of the output.
+	 */
+	public static final int MAGIC = 0x46524f42;
+	/**
+	 * The version of the record layout, written after the magic number.
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * The size of each record, in bytes.
+	 */
+	public static final int RECORD_SIZE = 57;
+	// where the records go
+	private final DataOutputStream out;
+
+	/**
+	 * Constructor for a BinaryResultSink, which writes the header right away.
+	 * 
+	 * @param out
+	 *            where to write to
+	 * @throws IOException
+	 *             If the header can't be written
+	 */
+	public BinaryResultSink(OutputStream out) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(VERSION);
+	}
+
+	@Override
+	public void write(RunResult r) throws IOException {
+		write(out, r);
+	}
+
+	/**
+	 * Method to write one record in the layout {@link #read(DataInput)}
+	 * reads.
+	 * 
+	 * @param out
+	 *            where to write to
+	 * @param r
+	 *            the result
+	 * @throws IOException
+	 *             If the record can't be written
+	 */
+	static void write(DataOutput out, RunResult r) throws IOException {
+		out.writeInt(r.getSeed());
+		out.writeInt(r.getDays());
+		out.writeBoolean(r.isExtinct());
+		out.writeInt(r.getFrobsBorn());
+		out.writeInt(r.getSurvivors());
+		out.writeInt(r.getDeepestGeneration());
+		out.writeInt(r.getTaxDeaths());
+		out.writeInt(r.getRockDeaths());
+		out.writeInt(r.getFrobDeaths());
+		out.writeDouble(r.getAverageDistance());
+		out.writeDouble(r.getAverageGrassConsumption());
+		out.writeDouble(r.getAverageMetabolicRate());
+	}
+
+	/**
+	 * Method to check the header written by a BinaryResultSink.
+	 * 
+	 * @param in
+	 *            where to read from
+	 * @throws IOException
+	 *             If the header can't be read, or isn't one we understand
+	 */
+	public static void readHeader(DataInput in) throws IOException {
+		if (in.readInt() != MAGIC)
+			throw new IOException("not a binary result file");
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new IOException("unknown result format version " + version);
+	}
+
+	/**
+	 * Method to read back one record written by a BinaryResultSink.
+	 * 
+	 * @param in
+	 *            where to read from, just past the header or another record
+	 * @return the result
+	 * @throws IOException
+	 *             If there is no whole record left to read
+	 */
+	public static RunResult read(DataInput in) throws IOException {
+		int seed = in.readInt(), days = in.readInt();
+		boolean extinct = in.readBoolean();
+		int born = in.readInt(), survivors = in.readInt(), generation = in
+				.readInt(), tax = in.readInt(), rock = in.readInt(), frob = in
+				.readInt();
+		double distance = in.readDouble(), grass = in.readDouble(), rate = in
+				.readDouble();
+		return new RunResult(seed, days, extinct, born, survivors, generation,
+				tax, rock, frob, distance, grass, rate);
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,37 @@
+package com.putable.frobworld;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a being being born. Only one in every
+ * {@link World#EVENT_SAMPLE} births is recorded.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+@Name("com.putable.frobworld.Birth")
+@Label("Birth")
+@Category("Frob World")
+@StackTrace(false)
+@Description("A sampled birth of a grass or frob")
+class BirthEvent extends Event {
+	@Label("Day")
+	int day;
+
+	@Label("Kind")
+	@Description("grass or frob")
+	String kind;
+
+	@Label("Generation")
+	@Description("The frob's generation, or 0 for grass")
+	int generation;
+
+	@Label("Sample Weight")
+	@Description("How many births this event stands for")
+	int sampleWeight;
+}
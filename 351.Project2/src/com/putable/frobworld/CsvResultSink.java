@@ -0,0 +1,79 @@
+package com.putable.frobworld;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link ResultSink} that writes one line of comma separated values per
+ * result, after a header line naming the columns.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public class CsvResultSink implements ResultSink {
+	/**
+	 * The columns, in order.
+	 */
+	public static final String HEADER = "seed,days,extinct,frobsBorn,survivors,"
+			+ "deepestGeneration,taxDeaths,rockDeaths,frobDeaths,"
+			+ "averageDistance,averageGrassConsumption,averageMetabolicRate";
+	// where the lines go
+	private final Writer out;
+	// one line at a time, reused
+	private final StringBuilder line = new StringBuilder(128);
+
+	/**
+	 * Constructor for a CsvResultSink, which writes the header line right
+	 * away.
+	 * 
+	 * @param out
+	 *            where to write to, in UTF-8
+	 * @throws IOException
+	 *             If the header can't be written
+	 */
+	public CsvResultSink(OutputStream out) throws IOException {
+		this.out = new BufferedWriter(new OutputStreamWriter(out,
+				StandardCharsets.UTF_8), 1 << 16);
+		this.out.write(HEADER);
+		this.out.write('\n');
+	}
+
+	@Override
+	public void write(RunResult r) throws IOException {
+		line.setLength(0);
+		append(line, r).append('\n');
+		out.append(line);
+	}
+
+	/**
+	 * Method to append the columns of one result, without a line end.
+	 * 
+	 * @param line
+	 *            what to append to
+	 * @param r
+	 *            the result
+	 * @return the line
+	 */
+	static StringBuilder append(StringBuilder line, RunResult r) {
+		return line.append(r.getSeed()).append(',').append(r.getDays())
+				.append(',').append(r.isExtinct()).append(',')
+				.append(r.getFrobsBorn()).append(',')
+				.append(r.getSurvivors()).append(',')
+				.append(r.getDeepestGeneration()).append(',')
+				.append(r.getTaxDeaths()).append(',')
+				.append(r.getRockDeaths()).append(',')
+				.append(r.getFrobDeaths()).append(',')
+				.append(r.getAverageDistance()).append(',')
+				.append(r.getAverageGrassConsumption()).append(',')
+				.append(r.getAverageMetabolicRate());
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,95 @@
+package com.putable.frobworld;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * The client of a {@link SimulationDaemon}: sends it jobs and passes back
+ * its results. Jobs are sent from one thread while results are read on
+ * another, so any number of jobs can be streamed through without either side
+ * waiting on the other.
+ *
+ * @author Brennan Collins
+ *
+ */
+public final class DaemonClient {
+	private DaemonClient() {
+	}
+
+	/**
+	 * Method to send jobs to a daemon and copy back its results.
+	 *
+	 * @param socket
+	 *            the daemon's socket file
+	 * @param jobs
+	 *            the jobs, one per line as {@link SimulationDaemon} describes
+	 * @param results
+	 *            where to copy the results, which is flushed but not closed
+	 * @return how many of the results were errors
+	 * @throws IOException
+	 *             If the daemon can't be reached, or the jobs or results
+	 *             can't be copied
+	 */
+	public static int submit(Path socket, final InputStream jobs,
+			OutputStream results) throws IOException {
+		final SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress
+				.of(socket));
+		final IOException[] failure = new IOException[1];
+		Thread sender = new Thread(() -> {
+			try (BufferedReader in = new BufferedReader(new InputStreamReader(
+					jobs, StandardCharsets.UTF_8))) {
+				Writer out = new BufferedWriter(Channels.newWriter(channel,
+						StandardCharsets.UTF_8), 1 << 16);
+				for (String line = in.readLine(); line != null; line = in
+						.readLine()) {
+					out.write(line);
+					out.write('\n');
+					// don't hold jobs back while waiting for more
+					if (!in.ready())
+						out.flush();
+				}
+				out.flush();
+				channel.shutdownOutput();
+			} catch (IOException e) {
+				failure[0] = e;
+			}
+		}, "job sender");
+		sender.setDaemon(true);
+		sender.start();
+		int errors = 0;
+		Writer out = new BufferedWriter(new OutputStreamWriter(results,
+				StandardCharsets.UTF_8), 1 << 16);
+		try (BufferedReader in = new BufferedReader(Channels.newReader(channel,
+				StandardCharsets.UTF_8))) {
+			for (String line = in.readLine(); line != null; line = in
+					.readLine()) {
+				if (line.startsWith("error"))
+					errors++;
+				out.write(line);
+				out.write('\n');
+				if (!in.ready())
+					out.flush();
+			}
+		}
+		out.flush();
+		try {
+			sender.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure[0] != null)
+			throw failure[0];
+		return errors;
+	}
+}
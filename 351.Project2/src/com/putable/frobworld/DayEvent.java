@@ -0,0 +1,40 @@
+package com.putable.frobworld;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one day of a {@link World}, lasting as long as
+ * the day took to run. Raise its threshold in the recording settings to only
+ * keep the slow days.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+@Name("com.putable.frobworld.Day")
+@Label("Day")
+@Category("Frob World")
+@StackTrace(false)
+@Description("One day of a World")
+@Threshold("0 ms")
+class DayEvent extends Event {
+	@Label("Day")
+	int day;
+
+	@Label("Grass")
+	@Description("How many grasses are in the World at the end of the day")
+	int grass;
+
+	@Label("Frobs")
+	@Description("How many frobs are in the World at the end of the day")
+	int frobs;
+
+	@Label("Turns")
+	@Description("How many times a being took its turn during the day")
+	long turns;
+}
@@ -0,0 +1,47 @@
+package com.putable.frobworld;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a being dying. Only one in every
+ * {@link World#EVENT_SAMPLE} deaths is recorded.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+@Name("com.putable.frobworld.Death")
+@Label("Death")
+@Category("Frob World")
+@StackTrace(false)
+@Description("A sampled death of a grass or frob")
+class DeathEvent extends Event {
+	/**
+	 * The causes of death.
+	 */
+	static final String TAX = "tax", ROCK = "rock", FROB = "frob",
+			EATEN = "eaten";
+
+	@Label("Day")
+	int day;
+
+	@Label("Kind")
+	@Description("grass or frob")
+	String kind;
+
+	@Label("Cause")
+	@Description("tax, rock, frob or eaten")
+	String cause;
+
+	@Label("Generation")
+	@Description("The frob's generation, or 0 for grass")
+	int generation;
+
+	@Label("Sample Weight")
+	@Description("How many deaths this event stands for")
+	int sampleWeight;
+}
@@ -0,0 +1,202 @@
+package com.putable.frobworld;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import com.putable.frobworld.WorkerProtocol.Incoming;
+import com.putable.frobworld.WorkerProtocol.Outgoing;
+
+/**
+ * One worker of a {@link WorkerFarm}: runs the jobs it is sent, one at a
+ * time, and sends back their results, speaking {@link WorkerProtocol}. Each
+ * job is run on a thread of its own, so that the farm can still be listened
+ * to, and the job cancelled, while it runs.
+ *
+ * @author Brennan Collins
+ *
+ */
+public final class FarmWorker {
+	private FarmWorker() {
+	}
+
+	/**
+	 * A job being run, and the thread running it.
+	 */
+	private static final class Job extends Thread {
+		private final long id;
+		private final DataInputStream job;
+		private final OutputStream out;
+
+		/**
+		 * Constructor for a job.
+		 *
+		 * @param job
+		 *            the rest of the {@link WorkerProtocol#JOB} frame
+		 * @param out
+		 *            where to send the answer
+		 * @throws IOException
+		 *             If the job can't be read
+		 */
+		private Job(DataInputStream job, OutputStream out) throws IOException {
+			super("farm job");
+			this.id = job.readLong();
+			this.job = job;
+			this.out = out;
+		}
+
+		@Override
+		public void run() {
+			Outgoing reply;
+			try {
+				reply = FarmWorker.run(id, job);
+				if (isInterrupted())
+					reply = failed(id, "cancelled");
+			} catch (IOException | RuntimeException e) {
+				reply = failed(id, String.valueOf(e));
+			}
+			try {
+				reply.sendTo(out);
+			} catch (IOException e) {
+				// the farm has gone away, and will find out soon enough
+			}
+		}
+	}
+
+	/**
+	 * Method to serve a farm until it says to quit or goes away.
+	 *
+	 * @param in
+	 *            where the farm's frames come from
+	 * @param out
+	 *            where to send ours
+	 * @throws IOException
+	 *             If the farm can't be spoken to
+	 */
+	public static void serve(InputStream in, OutputStream out)
+			throws IOException {
+		Outgoing hello = new Outgoing(WorkerProtocol.HELLO);
+		hello.writeInt(WorkerProtocol.VERSION);
+		hello.sendTo(out);
+		Job running = null;
+		try {
+			while (true) {
+				Incoming frame = WorkerProtocol.receive(in);
+				if (frame == null || frame.type == WorkerProtocol.QUIT)
+					return;
+				if (frame.type == WorkerProtocol.CANCEL) {
+					if (running != null && running.id == frame.body.readLong())
+						running.interrupt();
+				} else if (frame.type == WorkerProtocol.JOB) {
+					// the farm waits for each answer, but just in case
+					if (running != null)
+						running.join();
+					running = new Job(frame.body, out);
+					running.start();
+				} else
+					throw new IOException("unexpected frame " + frame.type);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (running != null) {
+				running.interrupt();
+				try {
+					running.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method to make the answer to a job that couldn't be run.
+	 *
+	 * @param id
+	 *            the job's id
+	 * @param why
+	 *            what went wrong
+	 * @return the frame to send back
+	 */
+	private static Outgoing failed(long id, String why) {
+		Outgoing reply = new Outgoing(WorkerProtocol.FAILED);
+		try {
+			reply.writeLong(id);
+			reply.writeUTF(why);
+		} catch (IOException e) {
+			// can't happen when writing to memory
+			throw new IllegalStateException(e);
+		}
+		return reply;
+	}
+
+	/**
+	 * Method to run one job. The printed report is only made if it was
+	 * asked for; otherwise it is sent back empty.
+	 *
+	 * @param id
+	 *            the job's id
+	 * @param job
+	 *            the rest of the job
+	 * @return the frame to send back
+	 * @throws IOException
+	 *             If the job can't be read
+	 */
+	private static Outgoing run(long id, DataInputStream job)
+			throws IOException {
+		int seed = job.readInt();
+		WorldConfig config = WorldConfig.DEFAULT.with(job.readUTF());
+		SchedulerType scheduler = SchedulerType.valueOf(job.readUTF());
+		String stop = job.readUTF();
+		boolean batchDays = job.readBoolean(), report = job.readBoolean();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+		PrintStream text = new PrintStream(report ? bytes : OutputStream
+				.nullOutputStream(), false);
+		World world = new World(seed, scheduler, config);
+		world.setBatchDays(batchDays);
+		world.setProfileOut(text);
+		if (!stop.isEmpty())
+			world.setStopConditions(StopCondition.parse(stop));
+		world.run();
+		if (report) {
+			world.printResults(text);
+			world.printProfile(text);
+		}
+		text.flush();
+
+		Outgoing reply = new Outgoing(WorkerProtocol.RESULT);
+		reply.writeLong(id);
+		BinaryResultSink.write(reply, world.getResult());
+		reply.writeInt(bytes.size());
+		bytes.writeTo(reply);
+		return reply;
+	}
+
+	/**
+	 * Method to run a worker on standard input and output. Anything else
+	 * that would be printed to standard output goes to standard error
+	 * instead, so that it can't get mixed into the frames.
+	 *
+	 * @param args
+	 *            unused
+	 * @throws IOException
+	 *             If the farm can't be spoken to
+	 */
+	public static void main(String[] args) throws IOException {
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(
+				FileDescriptor.out), 1 << 16);
+		System.setOut(System.err);
+		serve(new BufferedInputStream(new FileInputStream(FileDescriptor.in),
+				1 << 16), out);
+	}
+}
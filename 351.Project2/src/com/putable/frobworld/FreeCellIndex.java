@@ -0,0 +1,111 @@
+package com.putable.frobworld;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An index of every empty cell in a grid, kept as a dense array of cell numbers
+ * along with a map from each cell to its position in that array. Marking a
+ * cell as full or empty swaps it in or out of the dense part of the array, so
+ * both updates and picking a random empty cell take constant time no matter
+ * how full the grid is.
+ *
+ * <p>
+ * Cells are numbered by the owner of the index; {@link World} uses
+ * <code>x * (WORLD_HEIGHT + 1) + y</code>.
+ *
+ * @author Brennan Collins
+ *
+ */
+final class FreeCellIndex {
+	// the empty cells live in free[0..count-1]
+	private final int[] free;
+	// where each cell is in free[], or -1 if the cell is full
+	private final int[] position;
+	// how many empty cells there are
+	private int count;
+
+	/**
+	 * Constructor for a FreeCellIndex. Every cell starts out empty.
+	 *
+	 * @param cells
+	 *            the number of cells in the grid
+	 */
+	FreeCellIndex(int cells) {
+		free = new int[cells];
+		position = new int[cells];
+		for (int i = 0; i < cells; i++) {
+			free[i] = i;
+			position[i] = i;
+		}
+		count = cells;
+	}
+
+	/**
+	 * Method to mark a cell as full. Does nothing if it already is.
+	 *
+	 * @param cell
+	 *            the cell that something was put in
+	 */
+	void occupy(int cell) {
+		int pos = position[cell];
+		if (pos < 0)
+			return;
+		int last = free[--count];
+		free[pos] = last;
+		position[last] = pos;
+		free[count] = cell;
+		position[cell] = -1;
+	}
+
+	/**
+	 * Method to mark a cell as empty. Does nothing if it already is.
+	 *
+	 * @param cell
+	 *            the cell that was emptied
+	 */
+	void release(int cell) {
+		if (position[cell] >= 0)
+			return;
+		free[count] = cell;
+		position[cell] = count++;
+	}
+
+	/**
+	 * Method to determine if a cell is empty.
+	 *
+	 * @param cell
+	 *            the cell to check
+	 * @return true if nothing is in the cell
+	 */
+	boolean isFree(int cell) {
+		return position[cell] >= 0;
+	}
+
+	/**
+	 * Method to pick an empty cell uniformly at random.
+	 *
+	 * @param rand
+	 *            the random number generator to draw from
+	 * @return a random empty cell, or -1 if there are none
+	 */
+	int random(Random rand) {
+		if (count == 0)
+			return -1;
+		return free[rand.nextInt(count)];
+	}
+
+	/**
+	 * Getter method for the number of empty cells.
+	 *
+	 * @return how many cells are empty
+	 */
+	int size() {
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(Arrays.copyOf(free, count));
+	}
+}
@@ -1,6 +1,5 @@
 package com.putable.frobworld;
 
-import java.awt.Point;
 import java.util.Random;
 
 /**
@@ -14,12 +13,12 @@ import java.util.Random;
 public final class Frob extends Being {
 	// the frobGenotype of our Frob
 	public Genotype frobGenotype;
-	// the location and old location of our Frob
-	public Point location;
 	// odds of mutating
 	public int mutationOdds;
 	// which generation this frob is a part of
 	public int generation = 0;
+	// the mass this frob started out with
+	public int startingMass;
 
 	/**
 	 * Constructor for our Frob object. This constructor is used in the creation
@@ -53,6 +52,7 @@ public final class Frob extends Being {
 		this.isAlive = true;
 		this.frobGenotype = genes;
 		setMass(mass);
+		this.startingMass = mass;
 		this.birthMass = birthMass;
 		this.birthPercent = birthPercent;
 		this.massTaxMills = massTaxMills;
@@ -84,6 +84,7 @@ public final class Frob extends Being {
 		frobGenotype = new Genotype();
 		this.isAlive = true;
 		setMass(mass);
+		this.startingMass = mass;
 		makeGenes();
 		this.birthMass = frobGenotype.genes[0] / 2 + 20;
 		this.birthPercent = frobGenotype.genes[1] * 100 / 255;
@@ -172,13 +173,13 @@ public final class Frob extends Being {
 	 */
 	public int getNorthPrefs() {
 		int n = 0;
-		if (this.neighborhood.n == 0) {
+		if (this.north == 0) {
 			n = frobGenotype.DNA_NORTH_PREFS + frobGenotype.DNA_EMPTY_OFFSET;
 			return frobGenotype.genes[n];
-		} else if (this.neighborhood.n == 'R') {
+		} else if (this.north == 'R') {
 			n = frobGenotype.DNA_NORTH_PREFS + frobGenotype.DNA_ROCK_OFFSET;
 			return frobGenotype.genes[n];
-		} else if (this.neighborhood.n == 'G') {
+		} else if (this.north == 'G') {
 			n = frobGenotype.DNA_NORTH_PREFS + frobGenotype.DNA_GRASS_OFFSET;
 			return frobGenotype.genes[n];
 		} else {
@@ -194,13 +195,13 @@ public final class Frob extends Being {
 	 */
 	public int getEastPrefs() {
 		int n = 0;
-		if (this.neighborhood.east == false) {
+		if (!isOccupied(EAST)) {
 			n = frobGenotype.DNA_EAST_PREFS + frobGenotype.DNA_EMPTY_OFFSET;
 			return frobGenotype.genes[n];
-		} else if (this.neighborhood.e == 'R') {
+		} else if (this.east == 'R') {
 			n = frobGenotype.DNA_EAST_PREFS + frobGenotype.DNA_ROCK_OFFSET;
 			return frobGenotype.genes[n];
-		} else if (this.neighborhood.e == 'G') {
+		} else if (this.east == 'G') {
 			n = frobGenotype.DNA_EAST_PREFS + frobGenotype.DNA_GRASS_OFFSET;
 			return frobGenotype.genes[n];
 		} else {
@@ -216,13 +217,13 @@ public final class Frob extends Being {
 	 */
 	public int getSouthPrefs() {
 		int n = 0;
-		if (this.neighborhood.south == false) {
+		if (!isOccupied(SOUTH)) {
 			n = frobGenotype.DNA_SOUTH_PREFS + frobGenotype.DNA_EMPTY_OFFSET;
 			return frobGenotype.genes[n];
-		} else if (this.neighborhood.s == 'R') {
+		} else if (this.south == 'R') {
 			n = frobGenotype.DNA_SOUTH_PREFS + frobGenotype.DNA_ROCK_OFFSET;
 			return frobGenotype.genes[n];
-		} else if (this.neighborhood.s == 'G') {
+		} else if (this.south == 'G') {
 			n = frobGenotype.DNA_SOUTH_PREFS + frobGenotype.DNA_GRASS_OFFSET;
 			return frobGenotype.genes[n];
 		} else {
@@ -238,13 +239,13 @@ public final class Frob extends Being {
 	 */
 	public int getWestPrefs() {
 		int n = 0;
-		if (this.neighborhood.west == false) {
+		if (!isOccupied(WEST)) {
 			n = frobGenotype.DNA_WEST_PREFS + frobGenotype.DNA_EMPTY_OFFSET;
 			return frobGenotype.genes[n];
-		} else if (this.neighborhood.w == 'R') {
+		} else if (this.west == 'R') {
 			n = frobGenotype.DNA_WEST_PREFS + frobGenotype.DNA_ROCK_OFFSET;
 			return frobGenotype.genes[n];
-		} else if (this.neighborhood.w == 'G') {
+		} else if (this.west == 'G') {
 			n = frobGenotype.DNA_WEST_PREFS + frobGenotype.DNA_GRASS_OFFSET;
 			return frobGenotype.genes[n];
 		} else {
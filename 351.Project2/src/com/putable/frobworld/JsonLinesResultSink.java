@@ -0,0 +1,76 @@
+package com.putable.frobworld;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link ResultSink} that writes each result as one JSON object on a line
+ * of its own (JSON Lines), with the same field names as the columns of
+ * {@link CsvResultSink}.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public class JsonLinesResultSink implements ResultSink {
+	// where the lines go
+	private final Writer out;
+	// one line at a time, reused
+	private final StringBuilder line = new StringBuilder(256);
+
+	/**
+	 * Constructor for a JsonLinesResultSink.
+	 * 
+	 * @param out
+	 *            where to write to, in UTF-8
+	 */
+	public JsonLinesResultSink(OutputStream out) {
+		this.out = new BufferedWriter(new OutputStreamWriter(out,
+				StandardCharsets.UTF_8), 1 << 16);
+	}
+
+	@Override
+	public void write(RunResult r) throws IOException {
+		line.setLength(0);
+		line.append("{\"seed\":").append(r.getSeed())
+				.append(",\"days\":").append(r.getDays())
+				.append(",\"extinct\":").append(r.isExtinct())
+				.append(",\"frobsBorn\":").append(r.getFrobsBorn())
+				.append(",\"survivors\":").append(r.getSurvivors())
+				.append(",\"deepestGeneration\":")
+				.append(r.getDeepestGeneration())
+				.append(",\"taxDeaths\":").append(r.getTaxDeaths())
+				.append(",\"rockDeaths\":").append(r.getRockDeaths())
+				.append(",\"frobDeaths\":").append(r.getFrobDeaths());
+		number("averageDistance", r.getAverageDistance());
+		number("averageGrassConsumption", r.getAverageGrassConsumption());
+		number("averageMetabolicRate", r.getAverageMetabolicRate());
+		line.append("}\n");
+		out.append(line);
+	}
+
+	/**
+	 * Method to add a field holding a double to the line. JSON has no NaN or
+	 * infinity (which a run without frobs can produce), so those become null.
+	 * 
+	 * @param name
+	 *            the name of the field
+	 * @param value
+	 *            its value
+	 */
+	private void number(String name, double value) {
+		line.append(",\"").append(name).append("\":");
+		if (Double.isNaN(value) || Double.isInfinite(value))
+			line.append("null");
+		else
+			line.append(value);
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
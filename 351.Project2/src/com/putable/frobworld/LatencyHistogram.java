@@ -0,0 +1,187 @@
+package com.putable.frobworld;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies in nanoseconds that never grows. Values are
+ * counted in log-linear buckets: below 16 every value has its own bucket, and
+ * above that each power of two is split into 16 equal buckets. Any value is
+ * therefore reported to within 1/16 (6.25%) of what was recorded, and the
+ * whole range of a long fits in 960 counters. A finer histogram can be asked
+ * for, at the cost of twice the counters for each halving of the error.
+ *
+ * <p>
+ * Recording is a few shifts and an array increment, with no allocation. A
+ * LatencyHistogram is not thread safe.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class LatencyHistogram {
+	// bits of each value kept below its leading bit
+	private final int subBits, subBuckets;
+	// how many values fell into each bucket: one row of sub-buckets for each
+	// possible leading bit from subBits up
+	private final long[] counts;
+	// how many values there are, their total, and the smallest and largest
+	private long count = 0, total = 0, min = Long.MAX_VALUE, max = 0;
+
+	/**
+	 * Constructor for a histogram accurate to within 1/16 of each value.
+	 */
+	public LatencyHistogram() {
+		this(4);
+	}
+
+	/**
+	 * Constructor for a histogram with a chosen accuracy.
+	 *
+	 * @param subBits
+	 *            from 1 to 16; each value is reported to within 1 part in
+	 *            2<sup>subBits</sup>
+	 */
+	public LatencyHistogram(int subBits) {
+		if (subBits < 1 || subBits > 16)
+			throw new IllegalArgumentException("subBits " + subBits);
+		this.subBits = subBits;
+		this.subBuckets = 1 << subBits;
+		this.counts = new long[(64 - subBits) * subBuckets];
+	}
+
+	/**
+	 * Method to find which bucket a value belongs in.
+	 *
+	 * @param value
+	 *            a value no smaller than 0
+	 * @return its bucket
+	 */
+	private int bucketOf(long value) {
+		if (value < subBuckets)
+			return (int) value;
+		int top = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (top - subBits)) & (subBuckets - 1);
+		return (top - subBits + 1) * subBuckets + sub;
+	}
+
+	/**
+	 * Method to find the largest value that belongs in a bucket.
+	 *
+	 * @param bucket
+	 *            the bucket
+	 * @return its largest value
+	 */
+	private long highestIn(int bucket) {
+		if (bucket < subBuckets)
+			return bucket;
+		int shift = bucket / subBuckets - 1;
+		long low = (long) (subBuckets + bucket % subBuckets) << shift;
+		return low + (1L << shift) - 1;
+	}
+
+	/**
+	 * Method to record one latency. Negative latencies (from a clock going
+	 * backwards) are recorded as 0.
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		counts[bucketOf(nanos)]++;
+		count++;
+		total += nanos;
+		if (nanos < min)
+			min = nanos;
+		if (nanos > max)
+			max = nanos;
+	}
+
+	/**
+	 * Method to add everything recorded in another histogram to this one.
+	 *
+	 * @param other
+	 *            the histogram to add, which is left alone and must have the
+	 *            same accuracy
+	 */
+	public void add(LatencyHistogram other) {
+		if (other.subBits != subBits)
+			throw new IllegalArgumentException("histograms differ in accuracy");
+		if (other.count == 0)
+			return;
+		for (int b = 0; b < counts.length; b++)
+			counts[b] += other.counts[b];
+		count += other.count;
+		total += other.total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Method to forget everything recorded so far.
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = total = max = 0;
+		min = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Getter method for how many latencies have been recorded.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Getter method for the smallest latency recorded.
+	 *
+	 * @return the smallest latency, or 0 if there are none
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Getter method for the largest latency recorded.
+	 *
+	 * @return the largest latency, or 0 if there are none
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Getter method for the average latency recorded.
+	 *
+	 * @return the exact average, or 0 if there are none
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	/**
+	 * Method to find the latency that a given fraction of the recorded
+	 * latencies are no larger than.
+	 *
+	 * @param fraction
+	 *            between 0 and 1, so 0.99 for the 99th percentile
+	 * @return the latency, to within the histogram's accuracy, or 0 if there
+	 *         are none
+	 */
+	public long getPercentile(double fraction) {
+		if (fraction < 0 || fraction > 1)
+			throw new IllegalArgumentException("fraction " + fraction);
+		if (count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(fraction * count)), seen = 0;
+		for (int b = 0; b < counts.length; b++) {
+			seen += counts[b];
+			if (seen >= rank)
+				return Math.min(highestIn(b), max);
+		}
+		return max;
+	}
+}
@@ -0,0 +1,93 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for LatencyHistogram. Its percentiles are checked against the
+ * exact percentiles of the same values, which they must match to within
+ * 1/16.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void testEmpty() {
+		LatencyHistogram h = new LatencyHistogram();
+		assertTrue(h.getCount() == 0);
+		assertTrue(h.getMin() == 0 && h.getMax() == 0);
+		assertTrue(h.getMean() == 0);
+		assertTrue(h.getPercentile(0.99) == 0);
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		LatencyHistogram h = new LatencyHistogram();
+		for (int v = 0; v < 16; v++)
+			h.record(v);
+		assertTrue(h.getPercentile(0) == 0);
+		assertTrue(h.getPercentile(0.5) == 7);
+		assertTrue(h.getPercentile(1) == 15);
+		assertTrue(h.getMean() == 7.5);
+	}
+
+	@Test
+	public void testPercentiles() {
+		Random rand = new Random(1);
+		LatencyHistogram h = new LatencyHistogram();
+		long[] values = new long[100000];
+		for (int i = 0; i < values.length; i++) {
+			// spread over many powers of two
+			values[i] = (long) Math.exp(rand.nextDouble() * 30);
+			h.record(values[i]);
+		}
+		Arrays.sort(values);
+		assertTrue(h.getMin() == values[0]);
+		assertTrue(h.getMax() == values[values.length - 1]);
+		for (double q : new double[] { 0.01, 0.5, 0.9, 0.99, 0.999, 1 }) {
+			long exact = values[(int) Math.ceil(q * values.length) - 1];
+			long got = h.getPercentile(q);
+			assertTrue(got >= exact);
+			assertTrue(got - exact <= exact / 16);
+		}
+	}
+
+	@Test
+	public void testHugeAndNegativeValues() {
+		LatencyHistogram h = new LatencyHistogram();
+		h.record(Long.MAX_VALUE);
+		h.record(-5);
+		assertTrue(h.getMin() == 0);
+		assertTrue(h.getPercentile(1) == Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testAddAndReset() {
+		LatencyHistogram a = new LatencyHistogram(), b = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			a.record(i);
+			b.record(i * 1000);
+		}
+		a.add(b);
+		assertTrue(a.getCount() == 200);
+		assertTrue(a.getMin() == 1 && a.getMax() == 100000);
+		long median = a.getPercentile(0.5);
+		assertTrue(median >= 100 && median <= 100 + 100 / 16);
+		assertTrue(b.getCount() == 100);
+		a.reset();
+		assertTrue(a.getCount() == 0 && a.getMax() == 0);
+		a.record(42);
+		assertTrue(a.getMin() == 42);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void percentileRangeTest() {
+		new LatencyHistogram().getPercentile(1.5);
+	}
+}
@@ -0,0 +1,157 @@
+package com.putable.frobworld;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Latency histograms for each phase of a {@link World}'s beings taking their
+ * turns. Profiling is switched on for the whole JVM by starting it with
+ * <code>-Dfrobworld.profile=true</code>, and
+ * <code>-Dfrobworld.profile.interval=</code><i>days</i> also dumps the
+ * histograms every so many days.
+ *
+ * <p>
+ * {@link #ENABLED} is a static final, so when profiling is off every
+ * <code>if (PhaseProfiler.ENABLED)</code> around a timing is folded away by
+ * the JIT, and not even {@link System#nanoTime()} is called. Phases may nest:
+ * deleting eaten grass is timed as a {@link Phase#QUEUE_DELETE} and is also
+ * part of the {@link Phase#FROB_MOVE} around it.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class PhaseProfiler {
+	/**
+	 * Whether profiling is on, from the <code>frobworld.profile</code> system
+	 * property.
+	 */
+	public static final boolean ENABLED = Boolean.getBoolean("frobworld.profile");
+	/**
+	 * How many days apart the histograms are dumped while a World runs, or 0
+	 * to only dump them at the end, from the
+	 * <code>frobworld.profile.interval</code> system property.
+	 */
+	public static final int INTERVAL = Integer.getInteger(
+			"frobworld.profile.interval", 0);
+
+	/**
+	 * The phases of a turn that are timed.
+	 */
+	public enum Phase {
+		/** A being paying its tax. */
+		PAY_TAX,
+		/** A grass counting the grass around it. */
+		GRASS_NEIGHBORHOOD,
+		/** A frob looking at what is around it. */
+		FROB_NEIGHBORHOOD,
+		/** A frob deciding where to go and hopping there. */
+		FROB_MOVE,
+		/** A being making a child. */
+		REPRODUCE,
+		/** Taking beings off a PQueue, one at a time or a day at a time. */
+		QUEUE_REMOVE,
+		/** Putting a being onto a PQueue. */
+		QUEUE_INSERT,
+		/** Deleting eaten grass from its PQueue. */
+		QUEUE_DELETE
+	}
+
+	// what has been recorded since the last dump, and over the whole run
+	private final Map<Phase, LatencyHistogram> interval, total;
+	// the day the current interval started on
+	private int intervalStart = 0;
+
+	/**
+	 * Constructor for a PhaseProfiler with empty histograms.
+	 */
+	public PhaseProfiler() {
+		interval = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+		total = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+		for (Phase phase : Phase.values()) {
+			interval.put(phase, new LatencyHistogram());
+			total.put(phase, new LatencyHistogram());
+		}
+	}
+
+	/**
+	 * Method to record how long a phase took.
+	 *
+	 * @param phase
+	 *            the phase
+	 * @param start
+	 *            the {@link System#nanoTime()} when the phase started
+	 */
+	public void record(Phase phase, long start) {
+		interval.get(phase).record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Method to call at the end of each day. Every {@link #INTERVAL} days it
+	 * dumps what was recorded over those days and starts a new interval.
+	 *
+	 * @param day
+	 *            the day that is starting
+	 * @param out
+	 *            where to dump to
+	 */
+	public void endOfDay(int day, PrintStream out) {
+		if (INTERVAL > 0 && day - intervalStart >= INTERVAL) {
+			dump("Phase timings for days " + intervalStart + " to "
+					+ (day - 1), interval, out);
+			endInterval(day);
+		}
+	}
+
+	/**
+	 * Method to dump what was recorded over the whole run.
+	 *
+	 * @param day
+	 *            the day the run ended on
+	 * @param out
+	 *            where to dump to
+	 */
+	public void dumpTotal(int day, PrintStream out) {
+		endInterval(day);
+		dump("Phase timings for the whole run", total, out);
+	}
+
+	/**
+	 * Method to fold the current interval into the whole run and start a new
+	 * one.
+	 *
+	 * @param day
+	 *            the day the new interval starts on
+	 */
+	private void endInterval(int day) {
+		for (Phase phase : Phase.values()) {
+			total.get(phase).add(interval.get(phase));
+			interval.get(phase).reset();
+		}
+		intervalStart = day;
+	}
+
+	/**
+	 * Method to print one table of histograms, in nanoseconds.
+	 *
+	 * @param title
+	 *            what the table covers
+	 * @param histograms
+	 *            the histogram of each phase
+	 * @param out
+	 *            where to print to
+	 */
+	private static void dump(String title,
+			Map<Phase, LatencyHistogram> histograms, PrintStream out) {
+		out.println(title + " (ns):");
+		out.println(String.format("%-20s%12s%10s%10s%10s%10s%12s", "phase",
+				"count", "mean", "p50", "p99", "p99.9", "max"));
+		for (Phase phase : Phase.values()) {
+			LatencyHistogram h = histograms.get(phase);
+			out.println(String.format("%-20s%12d%10.0f%10d%10d%10d%12d",
+					phase, h.getCount(), h.getMean(), h.getPercentile(0.5),
+					h.getPercentile(0.99), h.getPercentile(0.999), h.getMax()));
+		}
+		out.println();
+	}
+}
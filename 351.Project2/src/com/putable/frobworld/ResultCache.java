@@ -0,0 +1,403 @@
+package com.putable.frobworld;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.putable.frobworld.WorldConfig.Parameter;
+
+/**
+ * A cache of {@link RunResult}s on disk, so that runs that have been made
+ * before are never made again. A run is entirely decided by its
+ * {@link WorldConfig}, its seed, how it is run (the scheduler, stop
+ * conditions and so on) and the code that runs it, so a hash of all of these
+ * is the key each result is kept under. The code is identified by a hash of
+ * every class file under com/putable where the simulation was loaded from
+ * ({@link #CODE_VERSION}), nested and anonymous classes included, so results
+ * from older code are simply never found.
+ *
+ * <p>
+ * The file is append-only: a header, then records of a 16-byte key followed
+ * by the result as {@link BinaryResultSink} writes it. The index from keys to
+ * results is built in memory by reading the file when it is opened, and a
+ * record cut short by a crash is dropped then. Each result is written with a
+ * single write as soon as it is put, so it survives the JVM dying. A
+ * ResultCache is thread safe, but only one ResultCache should have a file
+ * open at a time.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class ResultCache implements Closeable {
+	/**
+	 * The first four bytes of a cache file.
+	 */
+	public static final int MAGIC = 0x46524243;
+	/**
+	 * The version of the file layout, written after the magic number.
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * A hash of the class files the simulation is made of, or null if they
+	 * can't be read, in which case nothing can be cached.
+	 */
+	public static final String CODE_VERSION = codeVersion(codeSource());
+	// where the class files are kept under their code source
+	private static final String PACKAGE_PATH = "com/putable/";
+	// the size of the header and of each record, in bytes
+	private static final int HEADER_SIZE = 8, KEY_SIZE = 16,
+			RECORD_SIZE = KEY_SIZE + BinaryResultSink.RECORD_SIZE;
+
+	/**
+	 * The key a result is kept under: the first 128 bits of its hash.
+	 */
+	private static final class Key {
+		private final long high, low;
+
+		private Key(long high, long low) {
+			this.high = high;
+			this.low = low;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key) o).high == high
+					&& ((Key) o).low == low;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(high ^ low);
+		}
+	}
+
+	// the file, open for appending
+	private final RandomAccessFile file;
+	// every result in the file
+	private final Map<Key, RunResult> index = new HashMap<Key, RunResult>();
+	// how many lookups found a result, and how many didn't
+	private long hits = 0, misses = 0;
+
+	/**
+	 * Constructor for a ResultCache, which makes the file if there isn't one
+	 * and reads in every result if there is.
+	 *
+	 * @param f
+	 *            the file
+	 * @throws IOException
+	 *             If the file can't be read or written, isn't a cache file,
+	 *             or the code the simulation is made of can't be identified
+	 */
+	public ResultCache(File f) throws IOException {
+		if (CODE_VERSION == null)
+			throw new IOException("can't tell which version of the code this is");
+		file = new RandomAccessFile(f, "rw");
+		try {
+			long length = file.length();
+			if (length < HEADER_SIZE) {
+				file.setLength(0);
+				file.writeInt(MAGIC);
+				file.writeInt(VERSION);
+				return;
+			}
+			long records = (length - HEADER_SIZE) / RECORD_SIZE;
+			try (DataInputStream in = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(f), 1 << 16))) {
+				if (in.readInt() != MAGIC)
+					throw new IOException(f + " is not a result cache");
+				int version = in.readInt();
+				if (version != VERSION)
+					throw new IOException("unknown result cache version "
+							+ version);
+				for (long r = 0; r < records; r++) {
+					Key key = new Key(in.readLong(), in.readLong());
+					index.put(key, BinaryResultSink.read(in));
+				}
+			}
+			// drop a record cut short, and carry on after the last whole one
+			long end = HEADER_SIZE + records * RECORD_SIZE;
+			file.setLength(end);
+			file.seek(end);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Method to find where the simulation's classes were loaded from.
+	 *
+	 * @return the directory or jar file, or null if it can't be told
+	 */
+	private static File codeSource() {
+		try {
+			CodeSource source = World.class.getProtectionDomain()
+					.getCodeSource();
+			if (source == null || source.getLocation() == null)
+				return null;
+			return new File(source.getLocation().toURI());
+		} catch (SecurityException e) {
+			return null;
+		} catch (URISyntaxException e) {
+			return null;
+		} catch (IllegalArgumentException e) {
+			// not a file: URL
+			return null;
+		}
+	}
+
+	/**
+	 * Method to tell whether a class file is one of the unit tests, which
+	 * are kept beside the code but have no say in how a run comes out.
+	 *
+	 * @param path
+	 *            the class file's path under the code source
+	 * @return true if it is a test class or nested in one
+	 */
+	private static boolean isTest(String path) {
+		String name = path.substring(path.lastIndexOf('/') + 1,
+				path.length() - ".class".length());
+		int nested = name.indexOf('$');
+		return (nested < 0 ? name : name.substring(0, nested)).endsWith("Test");
+	}
+
+	/**
+	 * Method to list the class files under a directory, by their path from
+	 * the code source.
+	 *
+	 * @param dir
+	 *            the directory
+	 * @param path
+	 *            its path from the code source, ending in a slash
+	 * @param paths
+	 *            where to add the paths of the class files
+	 */
+	private static void listClasses(File dir, String path, List<String> paths) {
+		File[] files = dir.listFiles();
+		if (files == null)
+			return;
+		for (File f : files) {
+			if (f.isDirectory())
+				listClasses(f, path + f.getName() + "/", paths);
+			else if (f.getName().endsWith(".class"))
+				paths.add(path + f.getName());
+		}
+	}
+
+	/**
+	 * Method to hash every class file under com/putable in a directory or jar
+	 * file, leaving out the unit tests. Both the path and the contents of
+	 * each class file go into the hash, in order of path, so nested and
+	 * anonymous classes (<code>World$1.class</code>) count like any other,
+	 * and the hash doesn't depend on the order the file system lists them in.
+	 *
+	 * @param root
+	 *            the directory or jar file the classes were loaded from
+	 * @return the first 64 bits of the hash in hex, or null if there is no
+	 *         root, no class file in it, or a class file can't be read
+	 */
+	static String codeVersion(File root) {
+		if (root == null)
+			return null;
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			List<String> paths = new ArrayList<String>();
+			JarFile jar = null;
+			try {
+				if (root.isDirectory())
+					listClasses(new File(root, PACKAGE_PATH), PACKAGE_PATH,
+							paths);
+				else {
+					jar = new JarFile(root);
+					Enumeration<JarEntry> entries = jar.entries();
+					while (entries.hasMoreElements()) {
+						String name = entries.nextElement().getName();
+						if (name.startsWith(PACKAGE_PATH)
+								&& name.endsWith(".class"))
+							paths.add(name);
+					}
+				}
+				Collections.sort(paths);
+				int hashed = 0;
+				for (String path : paths) {
+					if (isTest(path))
+						continue;
+					md.update(path.getBytes(StandardCharsets.UTF_8));
+					md.update((byte) 0);
+					try (InputStream in = jar == null ? new FileInputStream(
+							new File(root, path)) : jar.getInputStream(jar
+							.getEntry(path))) {
+						for (int n = in.read(buffer); n > 0; n = in
+								.read(buffer))
+							md.update(buffer, 0, n);
+					}
+					hashed++;
+				}
+				if (hashed == 0)
+					return null;
+			} finally {
+				if (jar != null)
+					jar.close();
+			}
+			StringBuilder hex = new StringBuilder();
+			byte[] hash = md.digest();
+			for (int i = 0; i < 8; i++)
+				hex.append(String.format("%02x", hash[i]));
+			return hex.toString();
+		} catch (IOException e) {
+			return null;
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Method to describe how a run is made, beyond its constants and seed,
+	 * as the <code>how</code> of {@link #get(WorldConfig, int, String)} and
+	 * {@link #put(WorldConfig, int, String, RunResult)}. Everything that
+	 * makes and caches runs describes them here, so that the same run is
+	 * always kept under the same key.
+	 *
+	 * @param scheduler
+	 *            the scheduler the World uses
+	 * @param batchDays
+	 *            whether each day is drained in one batch
+	 * @param stopSpec
+	 *            the stop conditions as given to
+	 *            {@link StopCondition#parse(String)}, or null for none
+	 * @return the description
+	 */
+	public static String describe(SchedulerType scheduler, boolean batchDays,
+			String stopSpec) {
+		return scheduler + (batchDays ? " batch-days" : "")
+				+ (stopSpec == null ? "" : " stop " + stopSpec);
+	}
+
+	/**
+	 * Method to find the key a run is kept under.
+	 *
+	 * @param config
+	 *            the run's constants
+	 * @param seed
+	 *            its seed
+	 * @param how
+	 *            anything else that decides how it runs, such as the scheduler
+	 *            and stop conditions
+	 * @return the key
+	 */
+	private static Key keyOf(WorldConfig config, int seed, String how) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeUTF(CODE_VERSION);
+			for (Parameter p : Parameter.values())
+				out.writeInt(config.get(p));
+			out.writeInt(seed);
+			out.writeUTF(how);
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(
+					bytes.toByteArray());
+			long high = 0, low = 0;
+			for (int i = 0; i < 8; i++) {
+				high = high << 8 | (hash[i] & 0xff);
+				low = low << 8 | (hash[i + 8] & 0xff);
+			}
+			return new Key(high, low);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Method to look up the result of a run.
+	 *
+	 * @param config
+	 *            the run's constants
+	 * @param seed
+	 *            its seed
+	 * @param how
+	 *            anything else that decides how it runs
+	 * @return the result, or null if the run hasn't been made
+	 */
+	public RunResult get(WorldConfig config, int seed, String how) {
+		Key key = keyOf(config, seed, how);
+		synchronized (this) {
+			RunResult r = index.get(key);
+			if (r == null)
+				misses++;
+			else
+				hits++;
+			return r;
+		}
+	}
+
+	/**
+	 * Method to keep the result of a run.
+	 *
+	 * @param config
+	 *            the run's constants
+	 * @param seed
+	 *            its seed
+	 * @param how
+	 *            anything else that decides how it runs
+	 * @param result
+	 *            the result
+	 * @throws IOException
+	 *             If the result can't be written
+	 */
+	public void put(WorldConfig config, int seed, String how, RunResult result)
+			throws IOException {
+		Key key = keyOf(config, seed, how);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_SIZE);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeLong(key.high);
+		out.writeLong(key.low);
+		BinaryResultSink.write(out, result);
+		synchronized (this) {
+			if (index.put(key, result) == null)
+				file.write(bytes.toByteArray());
+		}
+	}
+
+	/**
+	 * Getter method for how many results are kept.
+	 *
+	 * @return the count
+	 */
+	public synchronized int size() {
+		return index.size();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return index.size() + " results, " + hits + " hits, " + misses
+				+ " misses";
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		file.close();
+	}
+}
@@ -0,0 +1,154 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.putable.frobworld.WorldConfig.Parameter;
+
+/**
+ * Unit tests for ResultCache.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class ResultCacheTest {
+	private static final RunResult RESULT = new RunResult(42, 25000, false,
+			45355, 283, 149, 20371, 10546, 15512, 18.5, 4.25, 9.125);
+	private static final WorldConfig OTHER = WorldConfig.DEFAULT.with(
+			Parameter.ROCK_BUMP_PENALTY, 31);
+
+	private static File tempFile() throws IOException {
+		File f = File.createTempFile("results", ".cache");
+		f.delete();
+		f.deleteOnExit();
+		return f;
+	}
+
+	@Test
+	public void testPutAndGet() throws IOException {
+		File f = tempFile();
+		try (ResultCache cache = new ResultCache(f)) {
+			assertTrue(cache.get(WorldConfig.DEFAULT, 42, "A") == null);
+			cache.put(WorldConfig.DEFAULT, 42, "A", RESULT);
+			assertTrue(cache.get(WorldConfig.DEFAULT, 42, "A") == RESULT);
+			assertTrue(cache.get(WorldConfig.DEFAULT, 43, "A") == null);
+			assertTrue(cache.get(WorldConfig.DEFAULT, 42, "B") == null);
+			assertTrue(cache.get(OTHER, 42, "A") == null);
+		}
+		try (ResultCache cache = new ResultCache(f)) {
+			assertTrue(cache.size() == 1);
+			RunResult r = cache.get(WorldConfig.DEFAULT, 42, "A");
+			assertTrue(r.getFrobsBorn() == RESULT.getFrobsBorn());
+			assertTrue(r.getAverageMetabolicRate() == 9.125);
+		}
+	}
+
+	@Test
+	public void testTornRecordIsDropped() throws IOException {
+		File f = tempFile();
+		try (ResultCache cache = new ResultCache(f)) {
+			cache.put(WorldConfig.DEFAULT, 1, "A", RESULT);
+			cache.put(OTHER, 2, "A", RESULT);
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			raf.setLength(raf.length() - 10);
+		}
+		try (ResultCache cache = new ResultCache(f)) {
+			assertTrue(cache.size() == 1);
+			assertTrue(cache.get(OTHER, 2, "A") == null);
+			cache.put(OTHER, 2, "A", RESULT);
+		}
+		try (ResultCache cache = new ResultCache(f)) {
+			assertTrue(cache.size() == 2);
+			assertTrue(cache.get(OTHER, 2, "A") != null);
+		}
+	}
+
+	/**
+	 * Copies every class file under com/putable where the simulation was
+	 * loaded from into a new directory, which must hash the same as the code
+	 * itself. Then a nested class file is taken away, and after that changed,
+	 * and each time the hash must change too.
+	 */
+	@Test
+	public void testCodeVersionCoversNestedClasses() throws IOException,
+			URISyntaxException {
+		Path from = new File(World.class.getProtectionDomain().getCodeSource()
+				.getLocation().toURI()).toPath();
+		Path to = Files.createTempDirectory("classes");
+		List<Path> classes;
+		try (Stream<Path> walk = Files.walk(from.resolve("com/putable"))) {
+			classes = walk.filter(c -> c.toString().endsWith(".class"))
+					.collect(Collectors.toList());
+		}
+		Path nested = null;
+		try {
+			for (Path c : classes) {
+				Path copy = to.resolve(from.relativize(c).toString());
+				Files.createDirectories(copy.getParent());
+				Files.copy(c, copy);
+				String name = c.getFileName().toString();
+				if (nested == null && name.startsWith("World$"))
+					nested = copy;
+			}
+			assertTrue(ResultCache.CODE_VERSION != null);
+			assertTrue(ResultCache.CODE_VERSION.equals(ResultCache
+					.codeVersion(to.toFile())));
+			assertTrue(nested != null);
+			byte[] bytes = Files.readAllBytes(nested);
+			Files.delete(nested);
+			String missing = ResultCache.codeVersion(to.toFile());
+			assertTrue(missing != null);
+			assertTrue(!missing.equals(ResultCache.CODE_VERSION));
+			bytes[bytes.length - 1] ^= 1;
+			Files.write(nested, bytes);
+			String changed = ResultCache.codeVersion(to.toFile());
+			assertTrue(!changed.equals(ResultCache.CODE_VERSION));
+			assertTrue(!changed.equals(missing));
+			// the unit tests have no say
+			Files.write(to.resolve("com/putable/frobworld/NewTest.class"),
+					bytes);
+			assertTrue(changed.equals(ResultCache.codeVersion(to.toFile())));
+		} finally {
+			try (Stream<Path> walk = Files.walk(to)) {
+				for (Path p : walk.sorted((a, b) -> b.compareTo(a)).collect(
+						Collectors.toList()))
+					Files.delete(p);
+			}
+		}
+	}
+
+	@Test
+	public void testDescribe() {
+		String plain = ResultCache.describe(SchedulerType.BINARY_HEAP, false,
+				null);
+		assertTrue(!plain.equals(ResultCache.describe(
+				SchedulerType.RADIX_HEAP, false, null)));
+		assertTrue(!plain.equals(ResultCache.describe(
+				SchedulerType.BINARY_HEAP, true, null)));
+		assertTrue(!plain.equals(ResultCache.describe(
+				SchedulerType.BINARY_HEAP, false, "days=100")));
+		assertTrue(plain.equals(ResultCache.describe(
+				SchedulerType.BINARY_HEAP, false, null)));
+	}
+
+	@Test(expected = IOException.class)
+	public void notACacheTest() throws IOException {
+		File f = tempFile();
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			raf.writeLong(12345);
+		}
+		new ResultCache(f).close();
+	}
+}
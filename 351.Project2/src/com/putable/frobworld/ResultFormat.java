@@ -0,0 +1,52 @@
+package com.putable.frobworld;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The machine readable forms that {@link BasicDriver} can write the result of
+ * each run in.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public enum ResultFormat {
+	/**
+	 * Comma separated values ({@link CsvResultSink}).
+	 */
+	CSV {
+		@Override
+		public ResultSink open(OutputStream out) throws IOException {
+			return new CsvResultSink(out);
+		}
+	},
+	/**
+	 * One JSON object per line ({@link JsonLinesResultSink}).
+	 */
+	JSONL {
+		@Override
+		public ResultSink open(OutputStream out) {
+			return new JsonLinesResultSink(out);
+		}
+	},
+	/**
+	 * Fixed-size binary records ({@link BinaryResultSink}).
+	 */
+	BINARY {
+		@Override
+		public ResultSink open(OutputStream out) throws IOException {
+			return new BinaryResultSink(out);
+		}
+	};
+
+	/**
+	 * Makes a new ResultSink that writes this format.
+	 * 
+	 * @param out
+	 *            where to write to, which is closed along with the ResultSink
+	 * @return the ResultSink
+	 * @throws IOException
+	 *             If anything that starts the output can't be written
+	 */
+	public abstract ResultSink open(OutputStream out) throws IOException;
+}
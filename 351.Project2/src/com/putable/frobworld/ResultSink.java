@@ -0,0 +1,25 @@
+package com.putable.frobworld;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Somewhere to write the {@link RunResult} of each run in a machine readable
+ * form. A ResultSink buffers what it writes, so nothing is guaranteed to have
+ * reached its destination until it is closed. ResultSinks are not thread safe
+ * unless they say otherwise.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public interface ResultSink extends Closeable {
+	/**
+	 * Writes one result.
+	 * 
+	 * @param result
+	 *            the result
+	 * @throws IOException
+	 *             If the result can't be written
+	 */
+	void write(RunResult result) throws IOException;
+}
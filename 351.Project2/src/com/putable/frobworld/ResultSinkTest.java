@@ -0,0 +1,91 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the ResultSinks: each format is written and checked, and
+ * the binary format is read back.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class ResultSinkTest {
+	private static final RunResult FIRST = new RunResult(42, 25000, false,
+			45355, 283, 149, 20371, 10546, 15512, 18.5, 4.25, 9.125);
+	private static final RunResult SECOND = new RunResult(7, 1203, true, 900,
+			0, 12, 400, 300, 200, 3.0, 1.5, 0);
+
+	private static byte[] write(ResultFormat format, boolean async)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ResultSink sink = format.open(bytes);
+		if (async)
+			sink = new AsyncResultSink(sink, 1);
+		sink.write(FIRST);
+		sink.write(SECOND);
+		sink.close();
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void testCsv() throws IOException {
+		String[] lines = new String(write(ResultFormat.CSV, false),
+				StandardCharsets.UTF_8).split("\n");
+		assertTrue(lines.length == 3);
+		assertTrue(lines[0].equals(CsvResultSink.HEADER));
+		assertTrue(lines[1].equals("42,25000,false,45355,283,149,20371,10546,"
+				+ "15512,18.5,4.25,9.125"));
+		assertTrue(lines[2].startsWith("7,1203,true,"));
+	}
+
+	@Test
+	public void testJsonLines() throws IOException {
+		String[] lines = new String(write(ResultFormat.JSONL, false),
+				StandardCharsets.UTF_8).split("\n");
+		assertTrue(lines.length == 2);
+		assertTrue(lines[0].startsWith("{\"seed\":42,\"days\":25000,"
+				+ "\"extinct\":false,"));
+		assertTrue(lines[0].endsWith("\"averageMetabolicRate\":9.125}"));
+	}
+
+	@Test
+	public void testBinaryRoundTrip() throws IOException {
+		byte[] bytes = write(ResultFormat.BINARY, false);
+		assertTrue(bytes.length == 8 + 2 * 57);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				bytes));
+		BinaryResultSink.readHeader(in);
+		for (RunResult expected : new RunResult[] { FIRST, SECOND }) {
+			RunResult r = BinaryResultSink.read(in);
+			assertTrue(r.getSeed() == expected.getSeed());
+			assertTrue(r.getDays() == expected.getDays());
+			assertTrue(r.isExtinct() == expected.isExtinct());
+			assertTrue(r.getFrobDeaths() == expected.getFrobDeaths());
+			assertTrue(r.getAverageMetabolicRate() == expected
+					.getAverageMetabolicRate());
+		}
+		assertTrue(in.read() == -1);
+	}
+
+	@Test
+	public void testAsyncWritesEverythingInOrder() throws IOException {
+		for (ResultFormat format : ResultFormat.values())
+			assertTrue(Arrays.equals(write(format, false),
+					write(format, true)));
+	}
+
+	@Test(expected = IOException.class)
+	public void badHeaderTest() throws IOException {
+		BinaryResultSink.readHeader(new DataInputStream(
+				new ByteArrayInputStream(new byte[8])));
+	}
+}
@@ -0,0 +1,143 @@
+package com.putable.frobworld;
+
+import java.io.PrintStream;
+import java.text.NumberFormat;
+
+/**
+ * A summary of any number of {@link RunResult}s in constant memory, so that
+ * thousands of seeds can be run without keeping every result around or
+ * scraping standard output. Aggregators kept by separate threads can be
+ * merged into one.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class RunAggregator {
+	// how many runs there have been, and how many ended with the frobs
+	// extinct
+	private long runs = 0, extinctions = 0;
+	// how many runs had each main cause of death
+	private long taxRuns = 0, rockRuns = 0, frobRuns = 0;
+	// the figures of every run
+	private final StreamingStats days = new StreamingStats(),
+			frobsBorn = new StreamingStats(),
+			survivors = new StreamingStats(),
+			generations = new StreamingStats(),
+			distance = new StreamingStats(),
+			grassConsumption = new StreamingStats();
+	// the metabolic rate of the survivors of every run that had any
+	private final StreamingStats metabolicRate = new StreamingStats();
+
+	/**
+	 * Method to add one run to the summary.
+	 *
+	 * @param result
+	 *            the run's result
+	 */
+	public void add(RunResult result) {
+		runs++;
+		if (result.isExtinct())
+			extinctions++;
+		String cause = result.getMainCauseOfDeath();
+		if (cause.equals("tax"))
+			taxRuns++;
+		else if (cause.equals("rock"))
+			rockRuns++;
+		else
+			frobRuns++;
+		days.add(result.getDays());
+		frobsBorn.add(result.getFrobsBorn());
+		survivors.add(result.getSurvivors());
+		generations.add(result.getDeepestGeneration());
+		distance.add(result.getAverageDistance());
+		grassConsumption.add(result.getAverageGrassConsumption());
+		if (result.getSurvivors() > 0)
+			metabolicRate.add(result.getAverageMetabolicRate());
+	}
+
+	/**
+	 * Method to add everything in another summary to this one.
+	 *
+	 * @param other
+	 *            the other summary, which is left alone
+	 */
+	public void merge(RunAggregator other) {
+		runs += other.runs;
+		extinctions += other.extinctions;
+		taxRuns += other.taxRuns;
+		rockRuns += other.rockRuns;
+		frobRuns += other.frobRuns;
+		days.merge(other.days);
+		frobsBorn.merge(other.frobsBorn);
+		survivors.merge(other.survivors);
+		generations.merge(other.generations);
+		distance.merge(other.distance);
+		grassConsumption.merge(other.grassConsumption);
+		metabolicRate.merge(other.metabolicRate);
+	}
+
+	/**
+	 * Getter method for how many runs are in the summary.
+	 *
+	 * @return the count
+	 */
+	public long getRuns() {
+		return runs;
+	}
+
+	/**
+	 * Getter method for the fraction of runs in which the frobs died out.
+	 *
+	 * @return the extinction rate, or 0 if there are no runs
+	 */
+	public double getExtinctionRate() {
+		return runs == 0 ? 0 : (double) extinctions / runs;
+	}
+
+	/**
+	 * Getter method for the number of days each run lasted.
+	 *
+	 * @return the statistics
+	 */
+	public StreamingStats getDays() {
+		return days;
+	}
+
+	/**
+	 * Getter method for the number of survivors of each run.
+	 *
+	 * @return the statistics
+	 */
+	public StreamingStats getSurvivors() {
+		return survivors;
+	}
+
+	/**
+	 * Prints the summary in the same style as {@link World#printResults()}.
+	 *
+	 * @param title
+	 *            what the summary covers
+	 * @param out
+	 *            where to print to
+	 */
+	public void print(String title, PrintStream out) {
+		NumberFormat nf = NumberFormat.getInstance();
+		nf.setMaximumFractionDigits(2);
+		out.println("__________________________________________________________________________\n");
+		out.println(title + ": " + runs + " runs\n");
+		out.println("Extinction rate:\n--- " + nf.format(getExtinctionRate()
+				* 100) + "% ---\n");
+		out.println("Main cause of death:\n--- Paying the tax: " + taxRuns
+				+ " runs, Hitting the rock: " + rockRuns
+				+ " runs, Death by Frob: " + frobRuns + " runs ---\n");
+		out.println("Days lasted:\n--- " + days + " ---\n");
+		out.println("Frobs born:\n--- " + frobsBorn + " ---\n");
+		out.println("Frobs still alive:\n--- " + survivors + " ---\n");
+		out.println("Generations past:\n--- " + generations + " ---\n");
+		out.println("Average distance travelled:\n--- " + distance + " ---\n");
+		out.println("Average amount of grass consumption:\n--- "
+				+ grassConsumption + " ---\n");
+		out.println("Average metabolic rate of survivors:\n--- "
+				+ metabolicRate + " ---\n");
+	}
+}
@@ -0,0 +1,37 @@
+package com.putable.frobworld;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a {@link World} finishing a run. Its duration is
+ * the whole run.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+@Name("com.putable.frobworld.RunEnd")
+@Label("Run End")
+@Category("Frob World")
+@Description("A World finishing a run, lasting the whole run")
+class RunEndEvent extends Event {
+	@Label("Seed")
+	int seed;
+
+	@Label("Days")
+	int days;
+
+	@Label("Extinct")
+	@Description("Whether the frobs died out before the last day")
+	boolean extinct;
+
+	@Label("Frobs Born")
+	int frobsBorn;
+
+	@Label("Turns")
+	@Description("How many times a being took its turn")
+	long turns;
+}
@@ -0,0 +1,194 @@
+package com.putable.frobworld;
+
+/**
+ * The outcome of one run of a {@link World}: the same figures that
+ * {@link World#printResults()} prints, kept as numbers so that many runs can
+ * be summarised together (see {@link RunAggregator}). Never changes once
+ * made.
+ *
+ * @author Brennan Collins
+ *
+ */
+public final class RunResult {
+	// the seed the World ran on, and how many days it lasted
+	private final int seed, days;
+	// whether the frobs died out
+	private final boolean extinct;
+	// how many frobs were ever born, how many are left, and the deepest
+	// generation to die
+	private final int frobsBorn, survivors, deepestGeneration;
+	// how many frobs died of each cause
+	private final int taxDeaths, rockDeaths, frobDeaths;
+	// hops and grass eaten per frob born, and the mean update period of the
+	// survivors
+	private final double averageDistance, averageGrassConsumption,
+			averageMetabolicRate;
+
+	/**
+	 * Constructor for a RunResult.
+	 *
+	 * @param seed
+	 *            the seed the World ran on
+	 * @param days
+	 *            how many days it lasted
+	 * @param extinct
+	 *            whether the frobs died out
+	 * @param frobsBorn
+	 *            how many frobs were ever born
+	 * @param survivors
+	 *            how many frobs are left
+	 * @param deepestGeneration
+	 *            the deepest generation to die
+	 * @param taxDeaths
+	 *            how many frobs died paying the tax
+	 * @param rockDeaths
+	 *            how many frobs died hitting rocks
+	 * @param frobDeaths
+	 *            how many frobs died being hit by frobs
+	 * @param averageDistance
+	 *            hops per frob born
+	 * @param averageGrassConsumption
+	 *            grass eaten per frob born
+	 * @param averageMetabolicRate
+	 *            the mean update period of the survivors, or 0 if there are
+	 *            none
+	 */
+	public RunResult(int seed, int days, boolean extinct, int frobsBorn,
+			int survivors, int deepestGeneration, int taxDeaths,
+			int rockDeaths, int frobDeaths, double averageDistance,
+			double averageGrassConsumption, double averageMetabolicRate) {
+		this.seed = seed;
+		this.days = days;
+		this.extinct = extinct;
+		this.frobsBorn = frobsBorn;
+		this.survivors = survivors;
+		this.deepestGeneration = deepestGeneration;
+		this.taxDeaths = taxDeaths;
+		this.rockDeaths = rockDeaths;
+		this.frobDeaths = frobDeaths;
+		this.averageDistance = averageDistance;
+		this.averageGrassConsumption = averageGrassConsumption;
+		this.averageMetabolicRate = averageMetabolicRate;
+	}
+
+	/**
+	 * Getter method for the seed the World ran on.
+	 * 
+	 * @return the seed the World ran on
+	 */
+	public int getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Getter method for how many days the World lasted.
+	 * 
+	 * @return how many days the World lasted
+	 */
+	public int getDays() {
+		return days;
+	}
+
+	/**
+	 * Getter method for whether the frobs died out.
+	 * 
+	 * @return whether the frobs died out
+	 */
+	public boolean isExtinct() {
+		return extinct;
+	}
+
+	/**
+	 * Getter method for how many frobs were ever born.
+	 * 
+	 * @return how many frobs were ever born
+	 */
+	public int getFrobsBorn() {
+		return frobsBorn;
+	}
+
+	/**
+	 * Getter method for how many frobs are left.
+	 * 
+	 * @return how many frobs are left
+	 */
+	public int getSurvivors() {
+		return survivors;
+	}
+
+	/**
+	 * Getter method for the deepest generation of frob to die.
+	 * 
+	 * @return the deepest generation of frob to die
+	 */
+	public int getDeepestGeneration() {
+		return deepestGeneration;
+	}
+
+	/**
+	 * Getter method for how many frobs died paying the tax.
+	 * 
+	 * @return how many frobs died paying the tax
+	 */
+	public int getTaxDeaths() {
+		return taxDeaths;
+	}
+
+	/**
+	 * Getter method for how many frobs died hitting rocks.
+	 * 
+	 * @return how many frobs died hitting rocks
+	 */
+	public int getRockDeaths() {
+		return rockDeaths;
+	}
+
+	/**
+	 * Getter method for how many frobs died being hit by frobs.
+	 * 
+	 * @return how many frobs died being hit by frobs
+	 */
+	public int getFrobDeaths() {
+		return frobDeaths;
+	}
+
+	/**
+	 * Getter method for how many hops each frob born made.
+	 * 
+	 * @return how many hops each frob born made, on average
+	 */
+	public double getAverageDistance() {
+		return averageDistance;
+	}
+
+	/**
+	 * Getter method for how much grass each frob born ate.
+	 * 
+	 * @return how much grass each frob born ate, on average
+	 */
+	public double getAverageGrassConsumption() {
+		return averageGrassConsumption;
+	}
+
+	/**
+	 * Getter method for the mean update period of the survivors.
+	 * 
+	 * @return the mean update period of the survivors, or 0 if there are
+	 *         none
+	 */
+	public double getAverageMetabolicRate() {
+		return averageMetabolicRate;
+	}
+
+	/**
+	 * Method to name the main cause of death the way
+	 * {@link World#printResults()} does.
+	 *
+	 * @return "tax", "rock" or "frob"
+	 */
+	public String getMainCauseOfDeath() {
+		if (taxDeaths > rockDeaths)
+			return taxDeaths > frobDeaths ? "tax" : "frob";
+		return rockDeaths > frobDeaths ? "rock" : "frob";
+	}
+}
@@ -0,0 +1,28 @@
+package com.putable.frobworld;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a {@link World} starting a run.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+@Name("com.putable.frobworld.RunStart")
+@Label("Run Start")
+@Category("Frob World")
+@Description("A World starting to run on a seed")
+class RunStartEvent extends Event {
+	@Label("Seed")
+	int seed;
+
+	@Label("Scheduler")
+	String scheduler;
+
+	@Label("Batch Days")
+	boolean batchDays;
+}
@@ -0,0 +1,184 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.putable.frobworld.WorldConfig.Parameter;
+import com.putable.pqueue.ConcretePQAble;
+import com.putable.pqueue.PQueue;
+import com.putable.pqueue.PQueueAdvanced;
+import com.putable.pqueue.PQueueRadix;
+
+/**
+ * Replays what a real World run does with its PQueues against the PQueues
+ * that can schedule one, to check that they hand the Beings back in the same
+ * order the World saw.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class SchedulerTraceTest {
+	// the kinds of operation in a trace
+	private static final int INSERT = 0, REMOVE = 1, DELETE = 2;
+
+	/**
+	 * A PQueueAdvanced that records every insert, remove and delete done to
+	 * it, as {operation, being, next update} with each Being numbered in the
+	 * order it was first seen.
+	 */
+	private static final class RecordingQueue extends PQueueAdvanced<Being> {
+		private final Map<Being, Integer> ids;
+		private final List<int[]> trace = new ArrayList<int[]>();
+
+		private RecordingQueue() {
+			super(Being::getNextUpdate);
+			ids = new IdentityHashMap<Being, Integer>();
+		}
+
+		private void record(int op, Being b) {
+			Integer id = ids.get(b);
+			if (id == null) {
+				id = ids.size();
+				ids.put(b, id);
+			}
+			trace.add(new int[] { op, id, b.getNextUpdate() });
+		}
+
+		@Override
+		public void insert(Being b) {
+			super.insert(b);
+			record(INSERT, b);
+		}
+
+		@Override
+		public Being remove() {
+			Being b = super.remove();
+			if (b != null)
+				record(REMOVE, b);
+			return b;
+		}
+
+		@Override
+		public void delete(Being b) {
+			super.delete(b);
+			record(DELETE, b);
+		}
+	}
+
+	/**
+	 * Method to turn the next update of each insert in a trace into a key no
+	 * other insert has, keeping the order the World saw: Beings due on the
+	 * same day are ordered by when the World took them off, and those it
+	 * never took off come last. Keys taken off stay in increasing order, so
+	 * they suit the monotone PQueues too.
+	 *
+	 * @param trace
+	 *            the trace
+	 * @return the key of each insert, by its place in the trace
+	 */
+	private static int[] uniqueKeys(List<int[]> trace) {
+		int[] current = new int[trace.size()];
+		int[] taken = new int[trace.size()];
+		Arrays.fill(taken, -1);
+		int removes = 0;
+		for (int i = 0; i < trace.size(); i++) {
+			int[] op = trace.get(i);
+			if (op[0] == INSERT)
+				current[op[1]] = i;
+			else if (op[0] == REMOVE)
+				taken[current[op[1]]] = removes++;
+		}
+		long spread = removes + 1;
+		int[] keys = new int[trace.size()];
+		for (int i = 0; i < trace.size(); i++) {
+			int[] op = trace.get(i);
+			if (op[0] != INSERT)
+				continue;
+			long key = op[2] * spread + (taken[i] < 0 ? removes : taken[i]);
+			assertTrue(key <= Integer.MAX_VALUE);
+			keys[i] = (int) key;
+		}
+		return keys;
+	}
+
+	/**
+	 * Method to replay a trace against a PQueue.
+	 *
+	 * @param trace
+	 *            the trace
+	 * @param keys
+	 *            the key of each insert, from {@link #uniqueKeys(List)}
+	 * @param queue
+	 *            the empty PQueue to replay it against
+	 * @return the keys the PQueue handed back, in order
+	 */
+	private static List<Integer> replay(List<int[]> trace, int[] keys,
+			PQueue<ConcretePQAble> queue) {
+		ConcretePQAble[] current = new ConcretePQAble[trace.size()];
+		List<Integer> removed = new ArrayList<Integer>();
+		for (int i = 0; i < trace.size(); i++) {
+			int[] op = trace.get(i);
+			if (op[0] == INSERT) {
+				ConcretePQAble c = new ConcretePQAble();
+				c.setNextUpdate(keys[i]);
+				current[op[1]] = c;
+				queue.insert(c);
+			} else if (op[0] == REMOVE)
+				removed.add(queue.remove().getNextUpdate());
+			else
+				queue.delete(current[op[1]]);
+		}
+		return removed;
+	}
+
+	@Test
+	public void testReplayWorldTrace() {
+		final List<RecordingQueue> queues = new ArrayList<RecordingQueue>();
+		World world = new World(5, SchedulerType.BINARY_HEAP,
+				WorldConfig.DEFAULT.with(Parameter.MAX_SIMULATION_LENGTH, 300));
+		world.setQueueFactory(() -> {
+			RecordingQueue q = new RecordingQueue();
+			queues.add(q);
+			return q;
+		});
+		world.run();
+		assertTrue(queues.size() == 2);
+		for (RecordingQueue q : queues) {
+			int[] keys = uniqueKeys(q.trace);
+			List<Integer> expected = new ArrayList<Integer>();
+			int deletes = 0;
+			int[] current = new int[q.trace.size()];
+			for (int i = 0; i < q.trace.size(); i++) {
+				int[] op = q.trace.get(i);
+				if (op[0] == INSERT)
+					current[op[1]] = i;
+				else if (op[0] == REMOVE)
+					expected.add(keys[current[op[1]]]);
+				else
+					deletes++;
+			}
+			assertTrue(expected.size() > 1000);
+			List<Integer> heap = replay(q.trace, keys,
+					new PQueueAdvanced<ConcretePQAble>());
+			List<Integer> keyed = replay(q.trace, keys,
+					new PQueueAdvanced<ConcretePQAble>(
+							ConcretePQAble::getNextUpdate));
+			List<Integer> radix = replay(q.trace, keys,
+					new PQueueRadix<ConcretePQAble>(
+							ConcretePQAble::getNextUpdate));
+			assertTrue(heap.equals(expected));
+			assertTrue(keyed.equals(expected));
+			assertTrue(radix.equals(expected));
+			if (q == queues.get(0))
+				// eaten grass is deleted
+				assertTrue(deletes > 0);
+		}
+	}
+}
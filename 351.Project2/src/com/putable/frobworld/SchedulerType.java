@@ -0,0 +1,111 @@
+package com.putable.frobworld;
+
+import com.putable.pqueue.ConcurrentPQueue;
+import com.putable.pqueue.PQueue;
+import com.putable.pqueue.PQueueAdvanced;
+import com.putable.pqueue.PQueueDAry;
+import com.putable.pqueue.PQueueRadix;
+import com.putable.pqueue.PQueueTimingWheel;
+
+/**
+ * The kinds of {@link PQueue} that a {@link World} can schedule its Beings
+ * with. They all hand Beings back in order of their next update, but may break
+ * ties between Beings due on the same day differently, so a given seed can
+ * play out differently under different schedulers.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public enum SchedulerType {
+	/**
+	 * A binary heap with cached keys ({@link PQueueAdvanced}).
+	 */
+	BINARY_HEAP {
+		@Override
+		public PQueue<Being> newQueue() {
+			return new PQueueAdvanced<Being>(Being::getNextUpdate);
+		}
+	},
+	/**
+	 * A binary heap ({@link PQueueAdvanced}) in lazy deletion mode, so eaten
+	 * grass is only marked dead instead of being taken out of the heap.
+	 */
+	LAZY_BINARY_HEAP {
+		@Override
+		public PQueue<Being> newQueue() {
+			PQueueAdvanced<Being> pq = new PQueueAdvanced<Being>(
+					Being::getNextUpdate);
+			pq.setLazyDelete(true);
+			return pq;
+		}
+	},
+	/**
+	 * A 4-ary heap with cached keys ({@link PQueueDAry}).
+	 */
+	DARY_HEAP {
+		@Override
+		public PQueue<Being> newQueue() {
+			return new PQueueDAry<Being>(4, Being::getNextUpdate);
+		}
+	},
+	/**
+	 * A radix heap ({@link PQueueRadix}).
+	 */
+	RADIX_HEAP {
+		@Override
+		public PQueue<Being> newQueue() {
+			return new PQueueRadix<Being>(Being::getNextUpdate);
+		}
+	},
+	/**
+	 * A hierarchical timing wheel ({@link PQueueTimingWheel}), for very long
+	 * update periods.
+	 */
+	TIMING_WHEEL {
+		@Override
+		public PQueue<Being> newQueue() {
+			return new PQueueTimingWheel<Being>(Being::getNextUpdate);
+		}
+	},
+	/**
+	 * A thread-safe skip list ({@link ConcurrentPQueue}). A World only uses
+	 * one thread, so this mostly measures what the thread safety costs.
+	 */
+	CONCURRENT_SKIP_LIST {
+		@Override
+		public PQueue<Being> newQueue() {
+			return new ConcurrentPQueue<Being>(Being::getNextUpdate);
+		}
+	};
+
+	/**
+	 * Method to make a new, empty PQueue of Beings of this kind.
+	 * 
+	 * @return the new PQueue
+	 */
+	public abstract PQueue<Being> newQueue();
+
+	/**
+	 * Method to find the kind of PQueue named on a command line, in any case.
+	 * 
+	 * @param name
+	 *            the name
+	 * @return the kind of PQueue
+	 * @throws IllegalArgumentException
+	 *             If the name is an option we don't know, or no kind of
+	 *             PQueue, saying which kinds there are
+	 */
+	public static SchedulerType parse(String name) {
+		if (!name.startsWith("--"))
+			for (SchedulerType t : values())
+				if (t.name().equalsIgnoreCase(name))
+					return t;
+		StringBuilder names = new StringBuilder();
+		for (SchedulerType t : values())
+			names.append(names.length() == 0 ? "" : ", ").append(
+					t.name().toLowerCase());
+		throw new IllegalArgumentException((name.startsWith("--")
+				? "unknown option " : "unknown scheduler ") + name
+				+ "; the schedulers are " + names);
+	}
+}
@@ -0,0 +1,236 @@
+package com.putable.frobworld;
+
+import java.text.DecimalFormat;
+
+/**
+ * Decides when enough runs have been made to know one figure of the World
+ * well enough. Results are added one run at a time, and sampling is done
+ * once the confidence interval of the figure's mean is no wider than asked
+ * for, so parameter studies run only as many seeds as they need instead of
+ * a guessed count.
+ * 
+ * <p>
+ * The interval for the extinction rate is the Wilson score interval, which
+ * is sensible even when every run so far went the same way. Every other
+ * figure uses the normal approximation for the mean. Either way, at least
+ * {@link #MIN_RUNS} runs are made, since the spread of a handful of runs
+ * can't be trusted.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public class SequentialSampler {
+	/**
+	 * The fewest runs made before sampling can be done.
+	 */
+	public static final int MIN_RUNS = 10;
+
+	/**
+	 * The figures that can be sampled.
+	 */
+	public enum Metric {
+		/** Whether the frobs died out, as 1 or 0. */
+		EXTINCTION,
+		/** How many days the World lasted. */
+		DAYS,
+		/** How many frobs were ever born. */
+		BORN,
+		/** How many frobs are left. */
+		SURVIVORS,
+		/** The deepest generation of frob to die. */
+		GENERATIONS,
+		/** How many hops each frob born made. */
+		DISTANCE,
+		/** How much grass each frob born ate. */
+		GRASS;
+
+		/**
+		 * Reads this figure from the result of a run.
+		 * 
+		 * @param r
+		 *            the result
+		 * @return the figure
+		 */
+		public double of(RunResult r) {
+			switch (this) {
+			case EXTINCTION:
+				return r.isExtinct() ? 1 : 0;
+			case DAYS:
+				return r.getDays();
+			case BORN:
+				return r.getFrobsBorn();
+			case SURVIVORS:
+				return r.getSurvivors();
+			case GENERATIONS:
+				return r.getDeepestGeneration();
+			case DISTANCE:
+				return r.getAverageDistance();
+			default:
+				return r.getAverageGrassConsumption();
+			}
+		}
+	}
+
+	// the figure we sample
+	private final Metric metric;
+	// how wide the interval may be when we are done, and how confident it is
+	private final double width, confidence;
+	// the standard normal quantile for that confidence
+	private final double z;
+	// the figure of every run so far
+	private final StreamingStats values = new StreamingStats();
+
+	/**
+	 * Constructor for a SequentialSampler.
+	 * 
+	 * @param metric
+	 *            the figure to sample
+	 * @param width
+	 *            how wide, from end to end, its confidence interval may be
+	 *            when sampling is done
+	 * @param confidence
+	 *            the confidence level of the interval, such as 0.95
+	 */
+	public SequentialSampler(Metric metric, double width, double confidence) {
+		if (!(width > 0))
+			throw new IllegalArgumentException("width " + width);
+		if (!(confidence > 0 && confidence < 1))
+			throw new IllegalArgumentException("confidence " + confidence);
+		this.metric = metric;
+		this.width = width;
+		this.confidence = confidence;
+		this.z = normalQuantile(0.5 + confidence / 2);
+	}
+
+	/**
+	 * Method to make a SequentialSampler from a specification of the form
+	 * <i>metric</i><code>:</code><i>width</i>[<code>:</code><i>confidence</i>],
+	 * such as <code>extinction:0.1</code> or
+	 * <code>generations:5:0.99</code>. The confidence is 0.95 unless given.
+	 * 
+	 * @param spec
+	 *            the specification
+	 * @return the SequentialSampler
+	 * @throws IllegalArgumentException
+	 *             If the specification can't be understood
+	 */
+	public static SequentialSampler parse(String spec) {
+		String[] f = spec.split(":");
+		if (f.length < 2 || f.length > 3)
+			throw new IllegalArgumentException("bad sampling target " + spec);
+		try {
+			return new SequentialSampler(Metric.valueOf(f[0].toUpperCase()),
+					Double.parseDouble(f[1]), f.length == 3 ? Double
+							.parseDouble(f[2]) : 0.95);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("bad sampling target " + spec, e);
+		}
+	}
+
+	/**
+	 * Method to find the value a standard normal variable is below with a
+	 * given probability, by bisection on the error function.
+	 * 
+	 * @param p
+	 *            the probability, between 0.5 and 1
+	 * @return the quantile
+	 */
+	static double normalQuantile(double p) {
+		double lo = 0, hi = 40;
+		for (int i = 0; i < 100; i++) {
+			double mid = (lo + hi) / 2;
+			if (0.5 * (1 + erf(mid / Math.sqrt(2))) < p)
+				lo = mid;
+			else
+				hi = mid;
+		}
+		return (lo + hi) / 2;
+	}
+
+	/**
+	 * Method to approximate the error function of a value no smaller than 0,
+	 * to within 1.5e-7 (Abramowitz and Stegun 7.1.26).
+	 * 
+	 * @param x
+	 *            the value
+	 * @return erf(x)
+	 */
+	private static double erf(double x) {
+		double t = 1 / (1 + 0.3275911 * x);
+		double poly = t * (0.254829592 + t * (-0.284496736 + t
+				* (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+		return 1 - poly * Math.exp(-x * x);
+	}
+
+	/**
+	 * Method to add one run.
+	 * 
+	 * @param result
+	 *            the run's result
+	 */
+	public void add(RunResult result) {
+		values.add(metric.of(result));
+	}
+
+	/**
+	 * Getter method for how many runs have been added.
+	 * 
+	 * @return the count
+	 */
+	public long getRuns() {
+		return values.getCount();
+	}
+
+	/**
+	 * Getter method for the estimate of the figure.
+	 * 
+	 * @return the mean over every run so far
+	 */
+	public double getEstimate() {
+		return values.getMean();
+	}
+
+	/**
+	 * Method to find the confidence interval of the figure.
+	 * 
+	 * @return its low and high ends, or both NaN if there are no runs
+	 */
+	public double[] getInterval() {
+		long n = values.getCount();
+		if (n == 0)
+			return new double[] { Double.NaN, Double.NaN };
+		double mean = values.getMean();
+		if (metric == Metric.EXTINCTION) {
+			double z2 = z * z, centre = (mean + z2 / (2 * n)) / (1 + z2 / n);
+			double half = z / (1 + z2 / n)
+					* Math.sqrt(mean * (1 - mean) / n + z2 / (4.0 * n * n));
+			return new double[] { centre - half, centre + half };
+		}
+		double half = z * values.getStandardDeviation() / Math.sqrt(n);
+		return new double[] { mean - half, mean + half };
+	}
+
+	/**
+	 * Method to decide whether enough runs have been made.
+	 * 
+	 * @return true once there are at least {@link #MIN_RUNS} runs and the
+	 *         confidence interval is narrow enough
+	 */
+	public boolean isDone() {
+		if (values.getCount() < MIN_RUNS)
+			return false;
+		double[] interval = getInterval();
+		return interval[1] - interval[0] <= width;
+	}
+
+	@Override
+	public String toString() {
+		double[] interval = getInterval();
+		return String.format("%s = %.4g, %s%% confidence interval [%.4g, %.4g]"
+				+ " after %d runs (%s)", metric.name().toLowerCase(),
+				getEstimate(), new DecimalFormat("0.###")
+						.format(confidence * 100), interval[0], interval[1],
+				getRuns(), isDone() ? "target width " + width + " reached"
+						: "target width " + width + " not reached");
+	}
+}
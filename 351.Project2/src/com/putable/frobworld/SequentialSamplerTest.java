@@ -0,0 +1,59 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for SequentialSampler.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class SequentialSamplerTest {
+	private static RunResult run(boolean extinct, int generations) {
+		return new RunResult(1, extinct ? 900 : 25000, extinct, 1000,
+				extinct ? 0 : 100, generations, 10, 10, 10, 1, 1, 0);
+	}
+
+	@Test
+	public void testNormalQuantile() {
+		assertTrue(Math.abs(SequentialSampler.normalQuantile(0.975) - 1.95996)
+				< 1e-4);
+		assertTrue(Math.abs(SequentialSampler.normalQuantile(0.995) - 2.57583)
+				< 1e-4);
+	}
+
+	@Test
+	public void testNeverDoneBeforeMinRuns() {
+		SequentialSampler s = SequentialSampler.parse("generations:1000");
+		for (int i = 1; i < SequentialSampler.MIN_RUNS; i++) {
+			s.add(run(false, 50));
+			assertFalse(s.isDone());
+		}
+		s.add(run(false, 50));
+		assertTrue(s.isDone());
+	}
+
+	@Test
+	public void testExtinctionIntervalNarrows() {
+		SequentialSampler s = SequentialSampler.parse("extinction:0.1");
+		for (int i = 0; i < 20; i++)
+			s.add(run(false, 50));
+		// even with no extinctions yet, the interval isn't empty
+		double[] interval = s.getInterval();
+		assertTrue(interval[1] > 0.1);
+		assertFalse(s.isDone());
+		for (int i = 0; i < 1000; i++)
+			s.add(run(i % 4 == 0, 50));
+		interval = s.getInterval();
+		assertTrue(interval[0] < 0.25 && interval[1] > 0.24);
+		assertTrue(s.isDone());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void badSpecTest() {
+		SequentialSampler.parse("extinction");
+	}
+}
@@ -0,0 +1,453 @@
+package com.putable.frobworld;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.putable.frobworld.WorldConfig.Parameter;
+
+/**
+ * A long-lived process that runs Worlds for clients, so that jobs don't each
+ * pay for starting a JVM and warming up its JIT. Clients connect to a Unix
+ * domain socket (see {@link DaemonClient}) and send one job per line:
+ *
+ * <pre>
+ * <i>seed</i> [<i>NAME</i>=<i>value</i>,...]
+ * </pre>
+ *
+ * where the optional constants are changes to {@link WorldConfig#DEFAULT}.
+ * The jobs of every client are run on one shared pool of threads, and each
+ * client gets back the {@link CsvResultSink#HEADER} line and then one line of
+ * comma separated values per job, in the order the jobs were sent. A job
+ * that can't be run gets a line starting with <code>error</code> instead. A
+ * client that sends <code>shutdown</code> stops the daemon once its jobs are
+ * done, and every other client once the jobs it has already sent are done.
+ *
+ * <p>
+ * Only processes that can open the socket file can use the daemon, so it is
+ * as private as the directory the socket is made in.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class SimulationDaemon implements Closeable {
+	// how many jobs of one client may be waiting for their results to be
+	// sent before we stop reading more of its jobs
+	private static final int WINDOW = 1024;
+	// tells a client's writer there are no more results
+	private static final Future<String> END = CompletableFuture
+			.completedFuture(null);
+	// where clients connect
+	private final Path path;
+	private final ServerSocketChannel server;
+	// the clients being served, and the threads serving them
+	private final Set<SocketChannel> clients = ConcurrentHashMap.newKeySet();
+	private final Set<Thread> handlers = ConcurrentHashMap.newKeySet();
+	// the threads every job is run on, and how many there are
+	private final ExecutorService pool;
+	private final int threads;
+	// the kind of PQueue every World is run with
+	private SchedulerType scheduler = SchedulerType.BINARY_HEAP;
+	// what may stop every World early, or null to run every World to the end
+	private String stopSpec;
+	// where results are looked up before running and kept after, or null
+	private ResultCache cache;
+	// whether we are still accepting clients
+	private volatile boolean open = true;
+
+	/**
+	 * Constructor for a SimulationDaemon, which makes its socket right away.
+	 * A socket file left behind by a daemon that is no longer running is
+	 * replaced.
+	 *
+	 * @param path
+	 *            the socket file
+	 * @param threads
+	 *            how many jobs to run at once
+	 * @throws IOException
+	 *             If the socket can't be made, or another daemon is using it
+	 */
+	public SimulationDaemon(Path path, int threads) throws IOException {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads " + threads);
+		UnixDomainSocketAddress address = UnixDomainSocketAddress.of(path);
+		if (Files.exists(path)) {
+			SocketChannel probe;
+			try {
+				probe = SocketChannel.open(address);
+			} catch (IOException e) {
+				probe = null;
+			}
+			if (probe != null) {
+				probe.close();
+				throw new IOException("a daemon is already running on " + path);
+			}
+			Files.delete(path);
+		}
+		this.path = path;
+		this.threads = threads;
+		this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		server.bind(address);
+		this.pool = Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Setter method for the kind of PQueue every World is run with.
+	 *
+	 * @param scheduler
+	 *            the kind of PQueue
+	 */
+	public void setScheduler(SchedulerType scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Setter method for what may stop every World before its frobs die out or
+	 * its last day is reached.
+	 *
+	 * @param spec
+	 *            the stop conditions as described in
+	 *            {@link StopCondition#parse(String)}, or null to run every
+	 *            World to the end
+	 */
+	public void setStopConditions(String spec) {
+		if (spec != null)
+			StopCondition.parse(spec);
+		this.stopSpec = spec;
+	}
+
+	/**
+	 * Setter method for where results are looked up before each job is run
+	 * and kept after.
+	 *
+	 * @param cache
+	 *            the cache, or null to run every job
+	 */
+	public void setCache(ResultCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Method to warm up the JIT before any client is served, by running one
+	 * short World on each of our threads.
+	 *
+	 * @param days
+	 *            how many days each World lasts
+	 */
+	public void warmUp(int days) {
+		WorldConfig config = WorldConfig.DEFAULT.with(
+				Parameter.MAX_SIMULATION_LENGTH, days);
+		Future<?>[] runs = new Future<?>[threads];
+		for (int i = 0; i < runs.length; i++) {
+			final int seed = i + 1;
+			runs[i] = pool.submit(() -> new World(seed, scheduler, config)
+					.run());
+		}
+		for (Future<?> run : runs) {
+			try {
+				run.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Method to serve clients until the daemon is closed, each on a thread
+	 * of its own. Once the daemon is closed, this waits until every client
+	 * has been sent the results of its jobs.
+	 *
+	 * @throws IOException
+	 *             If clients can no longer be accepted
+	 */
+	public void serve() throws IOException {
+		try {
+			while (open) {
+				final SocketChannel client;
+				try {
+					client = server.accept();
+				} catch (IOException e) {
+					if (!open)
+						return;
+					throw e;
+				}
+				Thread t = new Thread(() -> {
+					try {
+						handle(client);
+					} finally {
+						handlers.remove(Thread.currentThread());
+					}
+				}, "daemon client");
+				t.setDaemon(true);
+				handlers.add(t);
+				t.start();
+			}
+		} finally {
+			try {
+				for (Thread t : handlers)
+					t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Method to read a client's jobs and start them, while another thread
+	 * sends their results back in order.
+	 *
+	 * @param client
+	 *            the client
+	 */
+	private void handle(final SocketChannel client) {
+		final BlockingQueue<Future<String>> results;
+		results = new ArrayBlockingQueue<Future<String>>(WINDOW);
+		Thread writer = new Thread(() -> send(client, results),
+				"daemon results");
+		writer.setDaemon(true);
+		writer.start();
+		boolean shutdown = false;
+		clients.add(client);
+		// not closed when done, since that would close the socket before the
+		// results are sent
+		BufferedReader in = new BufferedReader(Channels.newReader(client,
+				StandardCharsets.UTF_8));
+		try {
+			for (String line = in.readLine(); line != null; line = in
+					.readLine()) {
+				line = line.trim();
+				if (line.isEmpty())
+					continue;
+				if (line.equals("shutdown")) {
+					shutdown = true;
+					break;
+				}
+				results.put(start(line));
+			}
+		} catch (IOException e) {
+			// the client went away, or we are closing; send what we can
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			try {
+				results.put(END);
+				writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			clients.remove(client);
+			try {
+				client.close();
+			} catch (IOException e) {
+				// nothing more to say to it anyway
+			}
+		}
+		if (shutdown) {
+			try {
+				close();
+			} catch (IOException e) {
+				// we are stopping regardless
+			}
+		}
+	}
+
+	/**
+	 * Method to send a client the results of its jobs as they finish, in the
+	 * order the jobs were sent.
+	 *
+	 * @param client
+	 *            the client
+	 * @param results
+	 *            the results to come, ended by {@link #END}
+	 */
+	private static void send(SocketChannel client,
+			BlockingQueue<Future<String>> results) {
+		Writer out = new BufferedWriter(Channels.newWriter(client,
+				StandardCharsets.UTF_8), 1 << 16);
+		boolean connected = true;
+		try {
+			out.write(CsvResultSink.HEADER);
+			out.write('\n');
+			out.flush();
+		} catch (IOException e) {
+			connected = false;
+		}
+		try {
+			for (Future<String> f = results.take(); f != END; f = results
+					.take()) {
+				String line;
+				try {
+					line = f.get();
+				} catch (ExecutionException e) {
+					line = "error " + e.getCause();
+				}
+				if (!connected)
+					continue;
+				try {
+					out.write(line);
+					out.write('\n');
+					// send the line now unless more are ready behind it
+					if (results.isEmpty() || !results.peek().isDone())
+						out.flush();
+				} catch (IOException e) {
+					connected = false;
+				}
+			}
+			if (connected)
+				out.flush();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// the client went away
+		}
+	}
+
+	/**
+	 * Method to start one job on the pool.
+	 *
+	 * @param job
+	 *            the job, as sent by the client
+	 * @return its line of results to come, or an error line if the job can't
+	 *         be understood
+	 */
+	private Future<String> start(String job) {
+		final int seed;
+		final WorldConfig config;
+		try {
+			String[] f = job.split("\\s+", 2);
+			seed = Integer.parseInt(f[0]);
+			config = f.length == 2 ? WorldConfig.DEFAULT.with(f[1])
+					: WorldConfig.DEFAULT;
+		} catch (IllegalArgumentException e) {
+			return CompletableFuture.completedFuture("error in job " + job
+					+ ": " + e.getMessage());
+		}
+		try {
+			return pool.submit(() -> CsvResultSink.append(
+					new StringBuilder(128), run(seed, config)).toString());
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.completedFuture("error shutting down");
+		}
+	}
+
+	/**
+	 * Method to run one job, or find its result in the cache.
+	 *
+	 * @param seed
+	 *            the seed
+	 * @param config
+	 *            the constants
+	 * @return the result
+	 * @throws IOException
+	 *             If the result can't be kept in the cache
+	 */
+	private RunResult run(int seed, WorldConfig config) throws IOException {
+		String how = ResultCache.describe(scheduler, false, stopSpec);
+		RunResult r = cache == null ? null : cache.get(config, seed, how);
+		if (r != null)
+			return r;
+		World world = new World(seed, scheduler, config);
+		if (stopSpec != null)
+			world.setStopConditions(StopCondition.parse(stopSpec));
+		world.run();
+		r = world.getResult();
+		if (cache != null)
+			cache.put(config, seed, how, r);
+		return r;
+	}
+
+	/**
+	 * Removes the socket file, stops accepting clients and reading jobs, and
+	 * lets the jobs already started finish.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!open)
+			return;
+		open = false;
+		Files.deleteIfExists(path);
+		server.close();
+		pool.shutdown();
+		for (SocketChannel client : clients) {
+			try {
+				client.shutdownInput();
+			} catch (IOException e) {
+				// it has gone already
+			}
+		}
+	}
+
+	/**
+	 * Method to run a daemon from the command line, as in
+	 * <code>daemon SOCKET [scheduler] [options]</code>. The options are
+	 * <code>--threads N</code> (one per processor unless given),
+	 * <code>--warmup DAYS</code> (2000 unless given, 0 for none),
+	 * <code>--stop SPEC</code> and <code>--cache FILE</code>.
+	 *
+	 * @param args
+	 *            the arguments, after <code>daemon</code>
+	 * @throws Exception
+	 *             If the daemon can't be run
+	 */
+	public static void main(String[] args) throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors(), warmup = 2000;
+		SchedulerType scheduler = SchedulerType.BINARY_HEAP;
+		String stop = null, cacheFile = null;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--threads"))
+				threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--warmup"))
+				warmup = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--stop"))
+				stop = args[++i];
+			else if (args[i].equals("--cache"))
+				cacheFile = args[++i];
+			else
+				scheduler = SchedulerType.parse(args[i]);
+		}
+		SimulationDaemon daemon = new SimulationDaemon(Path.of(args[0]),
+				threads);
+		daemon.setScheduler(scheduler);
+		daemon.setStopConditions(stop);
+		ResultCache cache = cacheFile == null ? null : new ResultCache(
+				new File(cacheFile));
+		daemon.setCache(cache);
+		if (warmup > 0)
+			daemon.warmUp(warmup);
+		System.err.println("Serving on " + args[0] + " with " + threads
+				+ " threads");
+		try {
+			daemon.serve();
+		} finally {
+			daemon.close();
+			daemon.pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			if (cache != null)
+				cache.close();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for SimulationDaemon and DaemonClient, over a socket in a
+ * temporary directory.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class SimulationDaemonTest {
+	private static String[] submit(Path socket, String jobs, int errors)
+			throws IOException {
+		ByteArrayOutputStream results = new ByteArrayOutputStream();
+		assertTrue(DaemonClient.submit(socket, new ByteArrayInputStream(jobs
+				.getBytes(StandardCharsets.UTF_8)), results) == errors);
+		return new String(results.toByteArray(), StandardCharsets.UTF_8)
+				.split("\n");
+	}
+
+	@Test
+	public void testJobs() throws Exception {
+		Path dir = Files.createTempDirectory("daemon");
+		Path socket = dir.resolve("frobworld.sock");
+		final SimulationDaemon daemon = new SimulationDaemon(socket, 2);
+		Thread server = new Thread(() -> {
+			try {
+				daemon.serve();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		server.start();
+		String[] lines = submit(socket, "5 MAX_SIMULATION_LENGTH=300\n"
+				+ "6 MAX_SIMULATION_LENGTH=200,INIT_FROBS=10\n" + "oops\n"
+				+ "5 MAX_SIMULATION_LENGTH=300\n", 1);
+		assertTrue(lines.length == 5);
+		assertTrue(lines[0].equals(CsvResultSink.HEADER));
+		// in the order sent, whichever finished first
+		assertTrue(lines[1].startsWith("5,300,"));
+		assertTrue(lines[2].startsWith("6,200,"));
+		assertTrue(lines[3].startsWith("error"));
+		assertTrue(lines[4].equals(lines[1]));
+		// a second daemon can't take over the socket
+		try {
+			new SimulationDaemon(socket, 1);
+			assertTrue(false);
+		} catch (IOException e) {
+			// as it should be
+		}
+		lines = submit(socket, "shutdown\n", 0);
+		assertTrue(lines.length == 1);
+		server.join(10000);
+		assertTrue(!server.isAlive());
+		assertTrue(!Files.exists(socket));
+		Files.delete(dir);
+	}
+}
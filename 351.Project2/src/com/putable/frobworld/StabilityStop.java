@@ -0,0 +1,112 @@
+package com.putable.frobworld;
+
+/**
+ * A {@link StopCondition} that stops a World once some of its figures have
+ * held steady for long enough. Each day's figures are compared with the
+ * figures on the day the current steady stretch began; if any has moved by
+ * more than a fraction epsilon of what it was then, a new stretch begins
+ * from today. The World is stopped once a stretch has lasted the required
+ * number of days. This is constant time and memory per day, unlike keeping
+ * a window of every day's figures.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public class StabilityStop implements StopCondition {
+	/**
+	 * The figures a StabilityStop watches.
+	 */
+	public enum Measure {
+		/** How many frobs are alive. */
+		FROBS,
+		/**
+		 * The mean and standard deviation of each trait of the frobs that are
+		 * alive.
+		 */
+		TRAITS
+	}
+
+	// what we watch
+	private final Measure measure;
+	// how far, as a fraction, the figures may move and still be steady
+	private final double epsilon;
+	// how many days they must be steady for
+	private final int days;
+	// the figures when the current stretch began, and today's
+	private final double[] reference, current;
+	// the day the current stretch began, or -1 before the first day
+	private int since = -1;
+
+	/**
+	 * Constructor for a StabilityStop.
+	 * 
+	 * @param measure
+	 *            what to watch
+	 * @param epsilon
+	 *            how far, as a fraction, the figures may move and still be
+	 *            steady; 0 for not at all
+	 * @param days
+	 *            how many days they must be steady for
+	 */
+	public StabilityStop(Measure measure, double epsilon, int days) {
+		if (epsilon < 0 || Double.isNaN(epsilon))
+			throw new IllegalArgumentException("epsilon " + epsilon);
+		if (days < 1)
+			throw new IllegalArgumentException("days " + days);
+		this.measure = measure;
+		this.epsilon = epsilon;
+		this.days = days;
+		int n = measure == Measure.FROBS ? 1 : 8;
+		this.reference = new double[n];
+		this.current = new double[n];
+	}
+
+	/**
+	 * Method to read today's figures into {@link #current}.
+	 * 
+	 * @param frobs
+	 *            how many frobs are alive
+	 * @param traits
+	 *            the traits of the frobs that are alive
+	 */
+	private void measure(int frobs, SurvivorStats traits) {
+		if (measure == Measure.FROBS) {
+			current[0] = frobs;
+			return;
+		}
+		TraitStats[] all = { traits.getUpdatePeriod(),
+				traits.getStartingMass(), traits.getBirthMass(),
+				traits.getBirthPercent() };
+		for (int i = 0; i < all.length; i++) {
+			current[2 * i] = all[i].getMean();
+			current[2 * i + 1] = all[i].getStandardDeviation();
+		}
+	}
+
+	@Override
+	public boolean shouldStop(int day, int frobs, SurvivorStats traits) {
+		measure(frobs, traits);
+		boolean steady = since >= 0;
+		for (int i = 0; steady && i < current.length; i++)
+			steady = Math.abs(current[i] - reference[i]) <= epsilon
+					* Math.abs(reference[i]);
+		if (!steady) {
+			System.arraycopy(current, 0, reference, 0, current.length);
+			since = day;
+		}
+		return day - since >= days;
+	}
+
+	@Override
+	public void reset() {
+		since = -1;
+	}
+
+	@Override
+	public String toString() {
+		if (measure == Measure.FROBS && epsilon == 0)
+			return "frob count unchanged for " + days + " days";
+		return (measure == Measure.FROBS ? "frob count" : "frob traits")
+				+ " within " + epsilon * 100 + "% for " + days + " days";
+	}
+}
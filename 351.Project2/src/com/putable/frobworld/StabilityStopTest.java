@@ -0,0 +1,57 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for StabilityStop and the parsing of stop conditions.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class StabilityStopTest {
+	private static final SurvivorStats NONE = new SurvivorStats();
+
+	@Test
+	public void testFixedPoint() {
+		StabilityStop stop = new StabilityStop(StabilityStop.Measure.FROBS, 0,
+				10);
+		for (int day = 1; day <= 10; day++)
+			assertFalse(stop.shouldStop(day, 100, NONE));
+		assertTrue(stop.shouldStop(11, 100, NONE));
+		// any change starts over
+		assertFalse(stop.shouldStop(12, 101, NONE));
+		assertFalse(stop.shouldStop(21, 101, NONE));
+		assertTrue(stop.shouldStop(22, 101, NONE));
+	}
+
+	@Test
+	public void testWithinEpsilon() {
+		StabilityStop stop = new StabilityStop(StabilityStop.Measure.FROBS,
+				0.1, 5);
+		assertFalse(stop.shouldStop(1, 100, NONE));
+		assertFalse(stop.shouldStop(2, 109, NONE));
+		assertFalse(stop.shouldStop(3, 91, NONE));
+		// more than 10% from 100, so the stretch starts again from 120
+		assertFalse(stop.shouldStop(4, 120, NONE));
+		assertFalse(stop.shouldStop(8, 130, NONE));
+		assertTrue(stop.shouldStop(9, 110, NONE));
+		stop.reset();
+		assertFalse(stop.shouldStop(9, 110, NONE));
+	}
+
+	@Test
+	public void testParse() {
+		StopCondition[] c = StopCondition.parse("stable:0.05:2000, fixed:500,"
+				+ "traits:0.01:1000");
+		assertTrue(c.length == 3);
+		assertTrue(c[1].toString().equals("frob count unchanged for 500 days"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void badSpecTest() {
+		StopCondition.parse("stable:lots:2000");
+	}
+}
@@ -0,0 +1,84 @@
+package com.putable.frobworld;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reason for a {@link World} to stop running before the frobs die out or
+ * the last day is reached, for runs where only the regime the World settles
+ * into matters. A StopCondition is asked at the end of every day, and is
+ * only given figures that the World already keeps up to date, so asking it
+ * costs next to nothing.
+ * 
+ * <p>
+ * StopConditions remember what they have seen, so each World needs its own.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public interface StopCondition {
+	/**
+	 * Decides, at the end of a day, whether the World has seen enough.
+	 * 
+	 * @param day
+	 *            the day that is starting
+	 * @param frobs
+	 *            how many frobs are alive
+	 * @param traits
+	 *            the traits of the frobs that are alive
+	 * @return true to stop the World
+	 */
+	boolean shouldStop(int day, int frobs, SurvivorStats traits);
+
+	/**
+	 * Forgets everything seen so far, for when the World starts over.
+	 */
+	void reset();
+
+	/**
+	 * Makes the StopConditions described by a specification, which is one or
+	 * more of these separated by commas:
+	 * <ul>
+	 * <li><code>stable:</code><i>epsilon</i><code>:</code><i>days</i>, to stop
+	 * once the number of frobs has stayed within a fraction <i>epsilon</i> of
+	 * itself for <i>days</i> days</li>
+	 * <li><code>fixed:</code><i>days</i>, to stop once the number of frobs
+	 * hasn't changed at all for <i>days</i> days</li>
+	 * <li><code>traits:</code><i>epsilon</i><code>:</code><i>days</i>, to stop
+	 * once the mean and standard deviation of every trait of the frobs have
+	 * stayed within a fraction <i>epsilon</i> of themselves for <i>days</i>
+	 * days</li>
+	 * </ul>
+	 * 
+	 * @param spec
+	 *            the specification, such as <code>stable:0.05:2000</code>
+	 * @return the StopConditions, any one of which should stop the World
+	 * @throws IllegalArgumentException
+	 *             If the specification can't be understood
+	 */
+	static StopCondition[] parse(String spec) {
+		List<StopCondition> conditions = new ArrayList<StopCondition>();
+		for (String part : spec.split(",")) {
+			String[] f = part.trim().split(":");
+			try {
+				if (f[0].equals("stable") && f.length == 3)
+					conditions.add(new StabilityStop(StabilityStop.Measure.FROBS,
+							Double.parseDouble(f[1]), Integer.parseInt(f[2])));
+				else if (f[0].equals("fixed") && f.length == 2)
+					conditions.add(new StabilityStop(StabilityStop.Measure.FROBS,
+							0, Integer.parseInt(f[1])));
+				else if (f[0].equals("traits") && f.length == 3)
+					conditions.add(new StabilityStop(
+							StabilityStop.Measure.TRAITS, Double
+									.parseDouble(f[1]), Integer.parseInt(f[2])));
+				else
+					throw new IllegalArgumentException("unknown stop condition "
+							+ part);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("bad stop condition " + part,
+						e);
+			}
+		}
+		return conditions.toArray(new StopCondition[conditions.size()]);
+	}
+}
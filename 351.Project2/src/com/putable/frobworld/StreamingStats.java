@@ -0,0 +1,141 @@
+package com.putable.frobworld;
+
+/**
+ * Running statistics of a stream of numbers in constant memory: the count,
+ * mean and variance (kept with Welford's method), the smallest and largest,
+ * and quantiles from a {@link LatencyHistogram} sketch accurate to within 1
+ * part in 64. Two StreamingStats can be merged, so partial statistics kept by
+ * separate threads can be combined at the end.
+ *
+ * <p>
+ * The sketch only holds numbers from 0 up, in steps of 1/1000; smaller
+ * numbers are counted as 0 there, but still count fully toward the mean,
+ * variance, smallest and largest.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class StreamingStats {
+	// how finely the sketch keeps numbers
+	private static final double SCALE = 1000;
+	// the count, mean, sum of squared differences from the mean, and range
+	private long count = 0;
+	private double mean = 0, m2 = 0, min = Double.POSITIVE_INFINITY,
+			max = Double.NEGATIVE_INFINITY;
+	// the distribution, for quantiles
+	private final LatencyHistogram sketch = new LatencyHistogram(6);
+
+	/**
+	 * Method to add a number to the stream.
+	 *
+	 * @param x
+	 *            the number
+	 */
+	public void add(double x) {
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		m2 += delta * (x - mean);
+		min = Math.min(min, x);
+		max = Math.max(max, x);
+		sketch.record(Math.round(x * SCALE));
+	}
+
+	/**
+	 * Method to add everything in another stream to this one, as if its
+	 * numbers had been added here.
+	 *
+	 * @param other
+	 *            the other stream, which is left alone
+	 */
+	public void merge(StreamingStats other) {
+		if (other.count == 0)
+			return;
+		long n = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / n;
+		m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+		count = n;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		sketch.add(other.sketch);
+	}
+
+	/**
+	 * Getter method for how many numbers are in the stream.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Getter method for the average of the stream.
+	 *
+	 * @return the mean, or 0 if the stream is empty
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Getter method for how spread out the stream is.
+	 *
+	 * @return the sample variance, or 0 if there are fewer than two numbers
+	 */
+	public double getVariance() {
+		return count < 2 ? 0 : m2 / (count - 1);
+	}
+
+	/**
+	 * Getter method for the standard deviation of the stream.
+	 *
+	 * @return the sample standard deviation
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Getter method for the smallest number in the stream.
+	 *
+	 * @return the smallest number, or 0 if the stream is empty
+	 */
+	public double getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Getter method for the largest number in the stream.
+	 *
+	 * @return the largest number, or 0 if the stream is empty
+	 */
+	public double getMax() {
+		return count == 0 ? 0 : max;
+	}
+
+	/**
+	 * Method to estimate the number that a given fraction of the stream is no
+	 * larger than.
+	 *
+	 * @param fraction
+	 *            between 0 and 1, so 0.5 for the median
+	 * @return the estimate, or 0 if the stream is empty
+	 */
+	public double getQuantile(double fraction) {
+		if (count == 0)
+			return 0;
+		double q = sketch.getPercentile(fraction) / SCALE;
+		// the sketch rounds up within a bucket, but never past what was seen
+		return Math.max(min, Math.min(q, max));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("mean = %.2f, std dev = %.2f, min = %.2f, "
+				+ "p10 = %.2f, median = %.2f, p90 = %.2f, max = %.2f",
+				getMean(), getStandardDeviation(), getMin(), getQuantile(0.1),
+				getQuantile(0.5), getQuantile(0.9), getMax());
+	}
+}
@@ -0,0 +1,81 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for StreamingStats. A stream split between several
+ * StreamingStats and merged back together must give the same statistics as
+ * the whole stream added to one.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class StreamingStatsTest {
+
+	@Test
+	public void testAgainstExact() {
+		Random rand = new Random(1);
+		StreamingStats stats = new StreamingStats();
+		double[] xs = new double[10000];
+		double sum = 0;
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = 1000 + rand.nextGaussian() * 300;
+			stats.add(xs[i]);
+			sum += xs[i];
+		}
+		double mean = sum / xs.length, ss = 0;
+		for (double x : xs)
+			ss += (x - mean) * (x - mean);
+		assertTrue(Math.abs(stats.getMean() - mean) < 1e-9);
+		assertTrue(Math.abs(stats.getVariance() - ss / (xs.length - 1)) < 1e-6);
+		Arrays.sort(xs);
+		assertTrue(stats.getMin() == xs[0]);
+		assertTrue(stats.getMax() == xs[xs.length - 1]);
+		for (double q : new double[] { 0.1, 0.5, 0.9 }) {
+			double exact = xs[(int) Math.ceil(q * xs.length) - 1];
+			double error = Math.abs(stats.getQuantile(q) - exact);
+			assertTrue(error <= exact / 64 + 0.001);
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		Random rand = new Random(2);
+		StreamingStats whole = new StreamingStats();
+		StreamingStats[] parts = new StreamingStats[4];
+		for (int p = 0; p < parts.length; p++)
+			parts[p] = new StreamingStats();
+		for (int i = 0; i < 5000; i++) {
+			double x = rand.nextInt(25000);
+			whole.add(x);
+			parts[rand.nextInt(parts.length)].add(x);
+		}
+		StreamingStats merged = new StreamingStats();
+		for (StreamingStats part : parts)
+			merged.merge(part);
+		merged.merge(new StreamingStats());
+		assertTrue(merged.getCount() == whole.getCount());
+		assertTrue(Math.abs(merged.getMean() - whole.getMean()) < 1e-6);
+		double ratio = merged.getVariance() / whole.getVariance();
+		assertTrue(Math.abs(ratio - 1) < 1e-9);
+		assertTrue(merged.getMin() == whole.getMin());
+		assertTrue(merged.getMax() == whole.getMax());
+		assertTrue(merged.getQuantile(0.5) == whole.getQuantile(0.5));
+	}
+
+	@Test
+	public void testEmpty() {
+		StreamingStats stats = new StreamingStats();
+		assertTrue(stats.getCount() == 0 && stats.getMean() == 0);
+		assertTrue(stats.getMin() == 0 && stats.getMax() == 0);
+		assertTrue(stats.getQuantile(0.5) == 0);
+		stats.add(3);
+		assertTrue(stats.getVariance() == 0);
+		assertTrue(stats.getQuantile(0.5) == 3);
+	}
+}
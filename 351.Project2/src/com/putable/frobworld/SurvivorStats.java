@@ -0,0 +1,93 @@
+package com.putable.frobworld;
+
+/**
+ * Running statistics of the traits of every Frob in a {@link World}, kept up
+ * to date as Frobs are born and die so that they can be reported at any time
+ * without walking the frob PQueue. A Frob counts from the moment it is put
+ * into the World until the moment it is taken off the grid.
+ * 
+ * <p>
+ * Only traits a Frob keeps for its whole life are tracked: its update period
+ * (its metabolic rate), the mass it started out with, the mass at which it
+ * reproduces and the percentage of its mass it gives to its child.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public class SurvivorStats {
+	// one set of statistics per trait
+	private final TraitStats updatePeriod = new TraitStats(),
+			startingMass = new TraitStats(), birthMass = new TraitStats(),
+			birthPercent = new TraitStats();
+
+	/**
+	 * Method to count a Frob that has just been put into the World.
+	 * 
+	 * @param frob
+	 *            the Frob
+	 */
+	public void add(Frob frob) {
+		updatePeriod.add(frob.getUpdatePeriod());
+		startingMass.add(frob.startingMass);
+		birthMass.add(frob.birthMass);
+		birthPercent.add(frob.birthPercent);
+	}
+
+	/**
+	 * Method to stop counting a Frob that has just left the World.
+	 * 
+	 * @param frob
+	 *            the Frob
+	 */
+	public void remove(Frob frob) {
+		updatePeriod.remove(frob.getUpdatePeriod());
+		startingMass.remove(frob.startingMass);
+		birthMass.remove(frob.birthMass);
+		birthPercent.remove(frob.birthPercent);
+	}
+
+	/**
+	 * Getter method for how many Frobs are in the World.
+	 * 
+	 * @return the count
+	 */
+	public long getCount() {
+		return updatePeriod.getCount();
+	}
+
+	/**
+	 * Getter method for the statistics of the update periods.
+	 * 
+	 * @return the statistics
+	 */
+	public TraitStats getUpdatePeriod() {
+		return updatePeriod;
+	}
+
+	/**
+	 * Getter method for the statistics of the masses the Frobs started with.
+	 * 
+	 * @return the statistics
+	 */
+	public TraitStats getStartingMass() {
+		return startingMass;
+	}
+
+	/**
+	 * Getter method for the statistics of the birth masses.
+	 * 
+	 * @return the statistics
+	 */
+	public TraitStats getBirthMass() {
+		return birthMass;
+	}
+
+	/**
+	 * Getter method for the statistics of the birth percentages.
+	 * 
+	 * @return the statistics
+	 */
+	public TraitStats getBirthPercent() {
+		return birthPercent;
+	}
+}
@@ -0,0 +1,433 @@
+package com.putable.frobworld;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.putable.frobworld.WorldConfig.Parameter;
+
+/**
+ * A parameter sweep: many {@link WorldConfig}s, each run on many seeds, with
+ * one row of results per run. The configurations are either every
+ * combination of the values given for each varied constant (a grid), or a
+ * number of combinations picked at random from them.
+ *
+ * <p>
+ * Runs are spread over a work-stealing {@link ForkJoinPool}, and started
+ * longest expected first so that one long run near the end doesn't leave the
+ * rest of the machine idle. Rows are written as runs finish, so their order
+ * is not fixed, but each row names its configuration and seed.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class Sweep {
+	// the configuration the varied constants are changed from
+	private WorldConfig base = WorldConfig.DEFAULT;
+	// the values of each varied constant, in the order of the constants
+	private final Map<Parameter, int[]> varied = new EnumMap<Parameter, int[]>(
+			Parameter.class);
+	// how many seeds each configuration is run on, and the first of them
+	private int seeds = 1, firstSeed = 1;
+	// how many configurations to pick at random, or 0 for the whole grid,
+	// and the seed to pick them with
+	private int samples = 0;
+	private long sampleSeed = 1;
+	// how many threads to run on
+	private int threads = Runtime.getRuntime().availableProcessors();
+	// the kind of PQueue every World is run with
+	private SchedulerType scheduler = SchedulerType.BINARY_HEAP;
+	// what may stop every World early, or null to run every World to the end
+	private String stopSpec;
+	// where results are looked up before running and kept after, or null
+	private ResultCache cache;
+
+	/**
+	 * One run of a sweep.
+	 */
+	private static final class Point {
+		private final WorldConfig config;
+		private final int seed;
+		private final double cost;
+
+		private Point(WorldConfig config, int seed) {
+			this.config = config;
+			this.seed = seed;
+			this.cost = expectedCost(config);
+		}
+	}
+
+	/**
+	 * Setter method for the configuration the varied constants are changed
+	 * from, which is {@link WorldConfig#DEFAULT} unless set.
+	 *
+	 * @param base
+	 *            the configuration
+	 */
+	public void setBase(WorldConfig base) {
+		this.base = base;
+	}
+
+	/**
+	 * Method to vary a constant over some values.
+	 *
+	 * @param p
+	 *            the constant
+	 * @param values
+	 *            its values
+	 * @throws IllegalArgumentException
+	 *             If there are no values, or one makes no sense for the
+	 *             constant
+	 */
+	public void vary(Parameter p, int... values) {
+		if (values.length == 0)
+			throw new IllegalArgumentException("no values for " + p);
+		for (int v : values)
+			p.check(v);
+		varied.put(p, values.clone());
+	}
+
+	/**
+	 * Method to read the values of a constant, written as a list such as
+	 * <code>10,20,40</code>, a range such as <code>10..40</code> or a range
+	 * with a step such as <code>10..40/5</code>.
+	 *
+	 * @param spec
+	 *            the values
+	 * @return them, in order
+	 * @throws IllegalArgumentException
+	 *             If the values can't be understood
+	 */
+	public static int[] parseValues(String spec) {
+		try {
+			int range = spec.indexOf("..");
+			if (range < 0) {
+				String[] f = spec.split(",");
+				int[] values = new int[f.length];
+				for (int i = 0; i < f.length; i++)
+					values[i] = Integer.parseInt(f[i].trim());
+				return values;
+			}
+			int slash = spec.indexOf('/', range);
+			int lo = Integer.parseInt(spec.substring(0, range).trim());
+			int hi = Integer.parseInt(spec.substring(range + 2,
+					slash < 0 ? spec.length() : slash).trim());
+			int step = slash < 0 ? 1 : Integer.parseInt(spec.substring(
+					slash + 1).trim());
+			if (step < 1 || hi < lo)
+				throw new IllegalArgumentException("bad range " + spec);
+			int[] values = new int[(int) (((long) hi - lo) / step + 1)];
+			for (int i = 0; i < values.length; i++)
+				values[i] = lo + i * step;
+			return values;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("bad values " + spec, e);
+		}
+	}
+
+	/**
+	 * Setter method for which seeds each configuration is run on.
+	 *
+	 * @param count
+	 *            how many seeds
+	 * @param first
+	 *            the first seed; the rest follow it
+	 */
+	public void setSeeds(int count, int first) {
+		if (count < 1)
+			throw new IllegalArgumentException("seeds " + count);
+		this.seeds = count;
+		this.firstSeed = first;
+	}
+
+	/**
+	 * Setter method for picking configurations at random instead of running
+	 * the whole grid. Each configuration picked takes a value of each varied
+	 * constant at random, so the same one may be picked more than once.
+	 *
+	 * @param count
+	 *            how many configurations to pick, or 0 for the whole grid
+	 * @param seed
+	 *            the seed to pick them with
+	 */
+	public void setSamples(int count, long seed) {
+		if (count < 0)
+			throw new IllegalArgumentException("samples " + count);
+		this.samples = count;
+		this.sampleSeed = seed;
+	}
+
+	/**
+	 * Setter method for how many threads to run on, which is one per
+	 * processor unless set.
+	 *
+	 * @param threads
+	 *            how many threads
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads " + threads);
+		this.threads = threads;
+	}
+
+	/**
+	 * Setter method for the kind of PQueue every World is run with.
+	 *
+	 * @param scheduler
+	 *            the kind of PQueue
+	 */
+	public void setScheduler(SchedulerType scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Setter method for what may stop every World before its frobs die out or
+	 * its last day is reached.
+	 *
+	 * @param spec
+	 *            the stop conditions as described in
+	 *            {@link StopCondition#parse(String)}, or null to run every
+	 *            World to the end
+	 */
+	public void setStopConditions(String spec) {
+		if (spec != null)
+			StopCondition.parse(spec);
+		this.stopSpec = spec;
+	}
+
+	/**
+	 * Setter method for where results are looked up before each run is made
+	 * and kept after, so that sweeps that overlap earlier ones only make the
+	 * runs that are new.
+	 *
+	 * @param cache
+	 *            the cache, or null to make every run
+	 */
+	public void setCache(ResultCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Method to make one row of the table.
+	 *
+	 * @param params
+	 *            the varied constants
+	 * @param config
+	 *            the run's constants
+	 * @param r
+	 *            the run's result
+	 * @return the row, with its line end
+	 */
+	private static StringBuilder row(Parameter[] params, WorldConfig config,
+			RunResult r) {
+		StringBuilder line = new StringBuilder(160);
+		for (Parameter p : params)
+			line.append(config.get(p)).append(',');
+		return CsvResultSink.append(line, r).append('\n');
+	}
+
+	/**
+	 * Method to list the configurations of the sweep: every combination of
+	 * the varied constants in order, the last varying fastest, or the ones
+	 * picked at random.
+	 *
+	 * @return the configurations
+	 */
+	public List<WorldConfig> configurations() {
+		Parameter[] params = varied.keySet().toArray(new Parameter[0]);
+		List<WorldConfig> configs = new ArrayList<WorldConfig>();
+		if (samples > 0) {
+			Random rand = new Random(sampleSeed);
+			for (int i = 0; i < samples; i++) {
+				WorldConfig c = base;
+				for (Parameter p : params) {
+					int[] values = varied.get(p);
+					c = c.with(p, values[rand.nextInt(values.length)]);
+				}
+				configs.add(c);
+			}
+			return configs;
+		}
+		int[] at = new int[params.length];
+		while (true) {
+			WorldConfig c = base;
+			for (int i = 0; i < params.length; i++)
+				c = c.with(params[i], varied.get(params[i])[at[i]]);
+			configs.add(c);
+			// count like an odometer, the last constant fastest
+			int i = params.length - 1;
+			while (i >= 0 && ++at[i] == varied.get(params[i]).length)
+				at[i--] = 0;
+			if (i < 0)
+				return configs;
+		}
+	}
+
+	/**
+	 * Method to guess how long a World with a configuration takes to run,
+	 * relative to others. The guess is the most days it can last times how
+	 * many beings take a turn on each of them at the start. It is rough, but
+	 * is only used to order the runs.
+	 *
+	 * @param c
+	 *            the configuration
+	 * @return the guess
+	 */
+	static double expectedCost(WorldConfig c) {
+		return (double) c.get(Parameter.MAX_SIMULATION_LENGTH)
+				* (c.get(Parameter.INIT_FROBS) + (double) c
+						.get(Parameter.INIT_GRASSES)
+						/ c.get(Parameter.GRASS_INITIAL_UPDATE_PERIOD));
+	}
+
+	/**
+	 * Method to run the sweep, writing a table of comma separated values: a
+	 * header line, then one line per run with the value of each varied
+	 * constant followed by the columns of {@link CsvResultSink}. Runs found
+	 * in the cache, if there is one, are written first and not made again.
+	 *
+	 * @param to
+	 *            where to write the table, which is closed afterwards
+	 * @return how many runs were made, not counting those found in the cache
+	 * @throws IOException
+	 *             If the table can't be written
+	 * @throws InterruptedException
+	 *             If interrupted while waiting for the runs
+	 */
+	public int run(OutputStream to) throws IOException, InterruptedException {
+		final Parameter[] params = varied.keySet().toArray(new Parameter[0]);
+		final String how = ResultCache.describe(scheduler, false, stopSpec);
+		final Writer out = new BufferedWriter(new OutputStreamWriter(to,
+				StandardCharsets.UTF_8), 1 << 16);
+		StringBuilder header = new StringBuilder();
+		for (Parameter p : params)
+			header.append(p).append(',');
+		out.write(header.append(CsvResultSink.HEADER).append('\n').toString());
+
+		List<Point> points = new ArrayList<Point>();
+		for (WorldConfig c : configurations()) {
+			for (int s = 0; s < seeds; s++) {
+				RunResult cached = cache == null ? null : cache.get(c,
+						firstSeed + s, how);
+				if (cached != null)
+					out.append(row(params, c, cached));
+				else
+					points.add(new Point(c, firstSeed + s));
+			}
+		}
+		// a stable sort, so equally long runs keep their order
+		points.sort(Comparator.comparingDouble((Point p) -> -p.cost));
+
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		for (final Point point : points) {
+			pool.execute(() -> {
+				if (failure.get() != null)
+					return;
+				try {
+					World world = new World(point.seed, scheduler, point.config);
+					if (stopSpec != null)
+						world.setStopConditions(StopCondition.parse(stopSpec));
+					world.run();
+					RunResult r = world.getResult();
+					if (cache != null)
+						cache.put(point.config, point.seed, how, r);
+					StringBuilder line = row(params, point.config, r);
+					synchronized (out) {
+						out.append(line);
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		out.close();
+		Throwable t = failure.get();
+		if (t instanceof IOException)
+			throw (IOException) t;
+		if (t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		if (t instanceof Error)
+			throw (Error) t;
+		return points.size();
+	}
+
+	/**
+	 * Method to run a sweep from the command line, as in
+	 * <code>sweep [scheduler] [options] NAME=values ...</code>, where each
+	 * NAME is a {@link Parameter} and its values are as in
+	 * {@link #parseValues(String)}. The options are <code>--seeds N</code>,
+	 * <code>--first-seed S</code>, <code>--samples N</code>,
+	 * <code>--sample-seed S</code>, <code>--threads N</code>,
+	 * <code>--stop SPEC</code>, <code>--base NAME=value,...</code>,
+	 * <code>--cache FILE</code> and <code>--out FILE</code>; the table goes to
+	 * standard output unless a file is given.
+	 *
+	 * @param args
+	 *            the arguments, after <code>sweep</code>
+	 * @throws Exception
+	 *             If the sweep can't be run
+	 */
+	public static void main(String[] args) throws Exception {
+		Sweep sweep = new Sweep();
+		String file = null;
+		int count = 1, first = 1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--seeds"))
+				count = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--first-seed"))
+				first = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--samples"))
+				sweep.setSamples(Integer.parseInt(args[++i]), sweep.sampleSeed);
+			else if (args[i].equals("--sample-seed"))
+				sweep.setSamples(sweep.samples, Long.parseLong(args[++i]));
+			else if (args[i].equals("--threads"))
+				sweep.setThreads(Integer.parseInt(args[++i]));
+			else if (args[i].equals("--stop"))
+				sweep.setStopConditions(args[++i]);
+			else if (args[i].equals("--base"))
+				sweep.setBase(WorldConfig.DEFAULT.with(args[++i]));
+			else if (args[i].equals("--out"))
+				file = args[++i];
+			else if (args[i].equals("--cache"))
+				sweep.setCache(new ResultCache(new File(args[++i])));
+			else if (args[i].contains("=")) {
+				String[] f = args[i].split("=", 2);
+				sweep.vary(Parameter.valueOf(f[0].toUpperCase()),
+						parseValues(f[1]));
+			} else
+				sweep.setScheduler(SchedulerType.parse(args[i]));
+		}
+		sweep.setSeeds(count, first);
+		long start = System.nanoTime();
+		int configurations = sweep.configurations().size();
+		int runs = sweep.run(file == null ? new FileOutputStream(
+				FileDescriptor.out) : new FileOutputStream(file));
+		System.err.println("Swept " + configurations * count + " rows of "
+				+ configurations + " configurations over "
+				+ sweep.varied.keySet() + " in "
+				+ (System.nanoTime() - start) / 1000000 + " ms, making "
+				+ runs + " runs");
+		if (sweep.cache != null) {
+			System.err.println("Result cache: " + sweep.cache);
+			sweep.cache.close();
+		}
+	}
+}
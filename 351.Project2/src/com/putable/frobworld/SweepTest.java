@@ -0,0 +1,109 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.putable.frobworld.WorldConfig.Parameter;
+
+/**
+ * Unit tests for WorldConfig and Sweep.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class SweepTest {
+
+	@Test
+	public void testConfig() {
+		WorldConfig c = WorldConfig.DEFAULT
+				.with("rock_bump_penalty=40, INIT_FROBS=80");
+		assertTrue(c.get(Parameter.ROCK_BUMP_PENALTY) == 40);
+		assertTrue(c.get(Parameter.GRASS_BIRTH_PERCENT) == 40);
+		assertTrue(c.toString().equals("ROCK_BUMP_PENALTY=40,INIT_FROBS=80"));
+		assertTrue(c.equals(WorldConfig.DEFAULT.with(c.toString())));
+		assertTrue(c.hashCode() == WorldConfig.DEFAULT.with(c.toString())
+				.hashCode());
+		assertTrue(WorldConfig.DEFAULT.toString().isEmpty());
+		assertTrue(WorldConfig.DEFAULT.with(Parameter.INIT_FROBS, 50)
+				== WorldConfig.DEFAULT);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void badConfigTest() {
+		WorldConfig.DEFAULT.with(Parameter.GRASS_BIRTH_PERCENT, 101);
+	}
+
+	@Test
+	public void testParseValues() {
+		assertTrue(Arrays.equals(Sweep.parseValues("3,1,2"), new int[] { 3, 1,
+				2 }));
+		assertTrue(Arrays.equals(Sweep.parseValues("10..13"), new int[] { 10,
+				11, 12, 13 }));
+		assertTrue(Arrays.equals(Sweep.parseValues("10..40/15"), new int[] {
+				10, 25, 40 }));
+	}
+
+	@Test
+	public void testGrid() {
+		Sweep sweep = new Sweep();
+		sweep.vary(Parameter.INIT_GRASSES, 100, 200, 300);
+		sweep.vary(Parameter.ROCK_BUMP_PENALTY, 5, 50);
+		List<WorldConfig> configs = sweep.configurations();
+		assertTrue(configs.size() == 6);
+		// constants are in their declared order, the last varying fastest
+		assertTrue(configs.get(0).toString()
+				.equals("ROCK_BUMP_PENALTY=5,INIT_GRASSES=100"));
+		assertTrue(configs.get(1).toString()
+				.equals("ROCK_BUMP_PENALTY=5,INIT_GRASSES=200"));
+		assertTrue(configs.get(5).toString()
+				.equals("ROCK_BUMP_PENALTY=50,INIT_GRASSES=300"));
+		sweep.setSamples(10, 7);
+		assertTrue(sweep.configurations().size() == 10);
+		assertTrue(sweep.configurations().equals(sweep.configurations()));
+	}
+
+	@Test
+	public void testRun() throws Exception {
+		Sweep sweep = new Sweep();
+		sweep.setBase(WorldConfig.DEFAULT.with(Parameter.MAX_SIMULATION_LENGTH,
+				200));
+		sweep.vary(Parameter.INIT_FROBS, 10, 20);
+		sweep.setSeeds(2, 5);
+		sweep.setThreads(2);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		assertTrue(sweep.run(bytes) == 4);
+		String[] lines = new String(bytes.toByteArray(),
+				StandardCharsets.UTF_8).split("\n");
+		assertTrue(lines.length == 5);
+		assertTrue(lines[0].equals("INIT_FROBS," + CsvResultSink.HEADER));
+		for (int i = 1; i < lines.length; i++)
+			assertTrue(lines[i].matches("(10|20),[56],200,.*"));
+	}
+
+	@Test
+	public void testRunCountsOnlyNewRuns() throws Exception {
+		File f = File.createTempFile("sweep", ".cache");
+		f.delete();
+		f.deleteOnExit();
+		try (ResultCache cache = new ResultCache(f)) {
+			Sweep sweep = new Sweep();
+			sweep.setBase(WorldConfig.DEFAULT.with(
+					Parameter.MAX_SIMULATION_LENGTH, 200));
+			sweep.vary(Parameter.INIT_FROBS, 10, 20);
+			sweep.setCache(cache);
+			assertTrue(sweep.run(new ByteArrayOutputStream()) == 2);
+			sweep.vary(Parameter.INIT_FROBS, 10, 20, 30);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			assertTrue(sweep.run(bytes) == 1);
+			assertTrue(new String(bytes.toByteArray(), StandardCharsets.UTF_8)
+					.split("\n").length == 4);
+		}
+	}
+}
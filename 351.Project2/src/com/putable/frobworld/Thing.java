@@ -1,11 +1,9 @@
 package com.putable.frobworld;
 
-import java.awt.Point;
-
 /**
  * The interface Thing is simple. It defines what all "things" must have (a
- * point on the grid), and what all things must be able to set or retrieve (a
- * point).
+ * location on the grid), and what all things must be able to set or retrieve
+ * (the x and y coordinates of that location).
  * 
  * @author Brennan Collins
  * 
@@ -15,15 +13,24 @@ public interface Thing {
 	/**
 	 * Setter method for the location of this "Thing".
 	 * 
-	 * @param p
-	 *            the point on the grid where the Thing is
+	 * @param x
+	 *            the column of the grid where the Thing is
+	 * @param y
+	 *            the row of the grid where the Thing is
+	 */
+	public void setLocation(int x, int y);
+
+	/**
+	 * Getter method for the column of this Thing's location.
+	 * 
+	 * @return this "Thing's" x coordinate
 	 */
-	public void setLocation(Point p);
+	public int getX();
 
 	/**
-	 * Getter method for this Thing's location.
+	 * Getter method for the row of this Thing's location.
 	 * 
-	 * @return this "Thing's" location
+	 * @return this "Thing's" y coordinate
 	 */
-	public Point getLocation();
+	public int getY();
 }
@@ -0,0 +1,226 @@
+package com.putable.frobworld;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running statistics of one whole-number trait over a population that
+ * changes one member at a time. Members are added as they are born and
+ * removed as they die, and the mean, variance, smallest, largest and
+ * percentiles of whoever is left can be read at any time without looking at
+ * the population itself.
+ *
+ * <p>
+ * Since the traits are whole numbers, their sum and sum of squares are kept
+ * exactly (the sum of squares in 128 bits, so even traits near
+ * Integer.MAX_VALUE can't overflow it), so unlike a floating point running
+ * mean nothing drifts no matter how many members come and go. Each value from
+ * 0 to 255, where nearly every Frob trait lives, also has its own counter in
+ * a fixed 2KB. The rare values outside that range (a large
+ * FROB_GENESIS_MASS, say) are counted in a sorted map instead, so the
+ * smallest, largest and percentiles are exact for any int.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class TraitStats {
+	// one counter for each value from 0 to this
+	private static final int MAX_VALUE = 255;
+	// how many members have each value
+	private final long[] counts = new long[MAX_VALUE + 1];
+	// how many members have each value below 0 or above MAX_VALUE
+	private final TreeMap<Integer, Long> outliers = new TreeMap<Integer, Long>();
+	// how many members there are, and the sum of their values
+	private long count = 0, sum = 0;
+	// the sum of the squares of their values, as a 128 bit number whose low
+	// 64 bits are unsigned
+	private long squaresHigh = 0, squaresLow = 0;
+
+	/**
+	 * Method to tell whether a value has its own counter.
+	 *
+	 * @param value
+	 *            the value
+	 * @return true if it is counted in counts, false if in outliers
+	 */
+	private static boolean isDense(int value) {
+		return value >= 0 && value <= MAX_VALUE;
+	}
+
+	/**
+	 * Method to count a new member of the population.
+	 *
+	 * @param value
+	 *            its trait
+	 */
+	public void add(int value) {
+		if (isDense(value))
+			counts[value]++;
+		else
+			outliers.merge(value, 1L, Long::sum);
+		count++;
+		sum += value;
+		long square = (long) value * value, low = squaresLow + square;
+		if (Long.compareUnsigned(low, squaresLow) < 0)
+			squaresHigh++;
+		squaresLow = low;
+	}
+
+	/**
+	 * Method to stop counting a member of the population.
+	 *
+	 * @param value
+	 *            its trait, the same as when it was added
+	 * @throws IllegalStateException
+	 *             If no member with that trait was added
+	 */
+	public void remove(int value) {
+		if (isDense(value)) {
+			if (counts[value] == 0)
+				throw new IllegalStateException("no member with " + value);
+			counts[value]--;
+		} else {
+			Long n = outliers.get(value);
+			if (n == null)
+				throw new IllegalStateException("no member with " + value);
+			if (n == 1)
+				outliers.remove(value);
+			else
+				outliers.put(value, n - 1);
+		}
+		count--;
+		sum -= value;
+		long square = (long) value * value, low = squaresLow - square;
+		if (Long.compareUnsigned(low, squaresLow) > 0)
+			squaresHigh--;
+		squaresLow = low;
+	}
+
+	/**
+	 * Getter method for the size of the population.
+	 *
+	 * @return how many members there are
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Getter method for the average trait.
+	 *
+	 * @return the mean, or 0 if there are no members
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * Getter method for how spread out the trait is.
+	 *
+	 * @return the population variance, or 0 if there are no members
+	 */
+	public double getVariance() {
+		if (count == 0)
+			return 0;
+		double spread;
+		// n * sum(x^2) - sum(x)^2 is exact in a long for small traits, and
+		// needs more room for large ones
+		if (squaresHigh == 0 && squaresLow >= 0
+				&& Math.multiplyHigh(count, squaresLow) == 0
+				&& count * squaresLow >= 0 && Math.multiplyHigh(sum, sum) == 0
+				&& sum * sum >= 0)
+			spread = (double) (count * squaresLow - sum * sum);
+		else {
+			BigInteger squares = BigInteger.valueOf(squaresHigh).shiftLeft(64)
+					.add(BigInteger.valueOf(squaresLow >>> 1).shiftLeft(1))
+					.add(BigInteger.valueOf(squaresLow & 1));
+			BigInteger s = BigInteger.valueOf(sum);
+			spread = squares.multiply(BigInteger.valueOf(count))
+					.subtract(s.multiply(s)).doubleValue();
+		}
+		return Math.max(0, spread / ((double) count * count));
+	}
+
+	/**
+	 * Getter method for the standard deviation of the trait.
+	 *
+	 * @return the population standard deviation, or 0 if there are no
+	 *         members
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Getter method for the smallest trait.
+	 *
+	 * @return the smallest trait, or 0 if there are no members
+	 */
+	public int getMin() {
+		if (count == 0)
+			return 0;
+		if (!outliers.isEmpty() && outliers.firstKey() < 0)
+			return outliers.firstKey();
+		for (int v = 0; v <= MAX_VALUE; v++)
+			if (counts[v] > 0)
+				return v;
+		return outliers.firstKey();
+	}
+
+	/**
+	 * Getter method for the largest trait.
+	 *
+	 * @return the largest trait, or 0 if there are no members
+	 */
+	public int getMax() {
+		if (count == 0)
+			return 0;
+		if (!outliers.isEmpty() && outliers.lastKey() > MAX_VALUE)
+			return outliers.lastKey();
+		for (int v = MAX_VALUE; v >= 0; v--)
+			if (counts[v] > 0)
+				return v;
+		return outliers.lastKey();
+	}
+
+	/**
+	 * Method to find the trait that a given fraction of the population is no
+	 * larger than.
+	 *
+	 * @param fraction
+	 *            between 0 and 1, so 0.5 for the median
+	 * @return the trait, or 0 if there are no members
+	 */
+	public int getPercentile(double fraction) {
+		if (fraction < 0 || fraction > 1)
+			throw new IllegalArgumentException("fraction " + fraction);
+		if (count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(fraction * count)), seen = 0;
+		for (Map.Entry<Integer, Long> e : outliers.headMap(0).entrySet()) {
+			seen += e.getValue();
+			if (seen >= rank)
+				return e.getKey();
+		}
+		for (int v = 0; v <= MAX_VALUE; v++) {
+			seen += counts[v];
+			if (seen >= rank)
+				return v;
+		}
+		for (Map.Entry<Integer, Long> e : outliers.tailMap(MAX_VALUE, false)
+				.entrySet()) {
+			seen += e.getValue();
+			if (seen >= rank)
+				return e.getKey();
+		}
+		return getMax();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("mean = %.2f, std dev = %.2f, min = %d, "
+				+ "median = %d, max = %d", getMean(), getStandardDeviation(),
+				getMin(), getPercentile(0.5), getMax());
+	}
+}
@@ -0,0 +1,130 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for TraitStats. Members are added and removed at random, and
+ * the running statistics must always match the ones worked out from scratch
+ * over whoever is left.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class TraitStatsTest {
+
+	/**
+	 * Checks the running statistics against the population itself.
+	 *
+	 * @param stats
+	 *            the running statistics
+	 * @param population
+	 *            the traits of every member left
+	 */
+	public void check(TraitStats stats, List<Integer> population) {
+		assertTrue(stats.getCount() == population.size());
+		double mean = 0, variance = 0;
+		for (int v : population)
+			mean += v;
+		mean /= population.size();
+		for (int v : population)
+			variance += (v - mean) * (v - mean);
+		variance /= population.size();
+		assertTrue(Math.abs(stats.getMean() - mean) < 1e-9);
+		assertTrue(Math.abs(stats.getVariance() - variance) < 1e-6 * Math.max(
+				1, variance));
+		List<Integer> sorted = new ArrayList<Integer>(population);
+		Collections.sort(sorted);
+		assertTrue(stats.getMin() == sorted.get(0));
+		assertTrue(stats.getMax() == sorted.get(sorted.size() - 1));
+		int median = sorted.get((sorted.size() + 1) / 2 - 1);
+		assertTrue(stats.getPercentile(0.5) == median);
+	}
+
+	@Test
+	public void testBirthsAndDeaths() {
+		Random rand = new Random(1);
+		TraitStats stats = new TraitStats();
+		List<Integer> population = new ArrayList<Integer>();
+		for (int i = 0; i < 20000; i++) {
+			if (population.size() < 10 || rand.nextInt(3) != 0) {
+				int v = 5 + rand.nextInt(32);
+				stats.add(v);
+				population.add(v);
+			} else
+				stats.remove(population.remove(rand.nextInt(population
+						.size())));
+			if (i % 1000 == 999)
+				check(stats, population);
+		}
+	}
+
+	/**
+	 * Traits far outside 0 to 255, up to Integer.MAX_VALUE (a large
+	 * FROB_GENESIS_MASS) and below 0, must not be clamped, and their squares
+	 * must not overflow the running sums.
+	 */
+	@Test
+	public void testWideTraits() {
+		Random rand = new Random(2);
+		TraitStats stats = new TraitStats();
+		List<Integer> population = new ArrayList<Integer>();
+		for (int i = 0; i < 20000; i++) {
+			if (population.size() < 10 || rand.nextInt(3) != 0) {
+				int kind = rand.nextInt(4), v;
+				if (kind == 0)
+					v = rand.nextInt(256);
+				else if (kind == 1)
+					v = 256 + rand.nextInt(5000);
+				else if (kind == 2)
+					v = Integer.MAX_VALUE - rand.nextInt(1000);
+				else
+					v = -rand.nextInt(300);
+				stats.add(v);
+				population.add(v);
+			} else
+				stats.remove(population.remove(rand.nextInt(population
+						.size())));
+			if (i % 1000 == 999)
+				check(stats, population);
+		}
+		while (!population.isEmpty())
+			stats.remove(population.remove(population.size() - 1));
+		stats.add(Integer.MAX_VALUE);
+		stats.add(300);
+		assertTrue(stats.getMin() == 300);
+		assertTrue(stats.getMax() == Integer.MAX_VALUE);
+		assertTrue(stats.getPercentile(0.5) == 300);
+		assertTrue(stats.getPercentile(1) == Integer.MAX_VALUE);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void removeMissingWideTest() {
+		TraitStats stats = new TraitStats();
+		stats.add(1000);
+		stats.remove(1001);
+	}
+
+	@Test
+	public void testEmpty() {
+		TraitStats stats = new TraitStats();
+		stats.add(7);
+		stats.remove(7);
+		assertTrue(stats.getCount() == 0);
+		assertTrue(stats.getMean() == 0 && stats.getVariance() == 0);
+		assertTrue(stats.getMin() == 0 && stats.getMax() == 0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void removeMissingTest() {
+		TraitStats stats = new TraitStats();
+		stats.add(7);
+		stats.remove(8);
+	}
+}
@@ -0,0 +1,418 @@
+package com.putable.frobworld;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.putable.frobworld.WorkerProtocol.Incoming;
+import com.putable.frobworld.WorkerProtocol.Outgoing;
+
+/**
+ * A farm of worker processes that Worlds are run in, for runs too many or
+ * too big for one JVM. Each worker is a separate JVM running
+ * {@link FarmWorker}, spoken to over its standard input and output with
+ * {@link WorkerProtocol}.
+ *
+ * <p>
+ * Jobs wait in one queue, and each worker takes the next job as soon as it
+ * finishes its last, so a worker that gets long runs simply takes fewer of
+ * them. If a worker dies, the job it was running goes back to the front of
+ * the queue and the worker is started again. A job that kills
+ * {@link #MAX_ATTEMPTS} workers fails instead. Results come back as futures,
+ * which callers can wait on in whatever order they need, such as the order
+ * the seeds were given in. Cancelling a future takes its job off the queue,
+ * or stops its World where it is if a worker has it already.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class WorkerFarm implements Closeable {
+	/**
+	 * How many times a job is tried before it is given up on.
+	 */
+	public static final int MAX_ATTEMPTS = 3;
+
+	/**
+	 * What a worker sends back for a job: the result and, if asked for, the
+	 * printed report.
+	 */
+	public static final class Outcome {
+		private final RunResult result;
+		private final byte[] report;
+
+		private Outcome(RunResult result, byte[] report) {
+			this.result = result;
+			this.report = report;
+		}
+
+		/**
+		 * Getter method for the result of the run.
+		 *
+		 * @return the result
+		 */
+		public RunResult getResult() {
+			return result;
+		}
+
+		/**
+		 * Getter method for the printed report of the run.
+		 *
+		 * @return the report, empty if it wasn't asked for
+		 */
+		public byte[] getReport() {
+			return report;
+		}
+	}
+
+	/**
+	 * A job waiting for, or being run by, a worker.
+	 */
+	private static final class Task {
+		private final long id;
+		private final int seed;
+		private final byte[] job;
+		private final CompletableFuture<Outcome> future;
+		private int attempts = 0;
+		// the standard input of the worker running the job, if any
+		private OutputStream sentTo;
+
+		private Task(long id, int seed, byte[] job) {
+			this.id = id;
+			this.seed = seed;
+			this.job = job;
+			this.future = new CompletableFuture<Outcome>();
+			future.whenComplete((o, t) -> {
+				if (future.isCancelled())
+					cancel();
+			});
+		}
+
+		/**
+		 * Method to tell the worker running the job, if any, that it is no
+		 * longer wanted.
+		 */
+		private void cancel() {
+			OutputStream to;
+			synchronized (this) {
+				to = sentTo;
+			}
+			if (to == null)
+				return;
+			Outgoing cancel = new Outgoing(WorkerProtocol.CANCEL);
+			try {
+				cancel.writeLong(id);
+				synchronized (to) {
+					cancel.sendTo(to);
+				}
+			} catch (IOException e) {
+				// the worker has died, which its driver will see
+			}
+		}
+	}
+
+	// tells a worker's thread to stop
+	private static final Task STOP = new Task(-1, 0, new byte[0]);
+	// how to start a worker
+	private final List<String> command;
+	// the jobs waiting for a worker
+	private final LinkedBlockingDeque<Task> tasks;
+	// the thread looking after each worker
+	private final Thread[] drivers;
+	// the id of the next job, and how many times workers have been started
+	// again after dying
+	private final AtomicLong nextId = new AtomicLong();
+	private final AtomicInteger restarts = new AtomicInteger();
+
+	/**
+	 * Method to find the command that starts a worker on this machine: the
+	 * JVM we are running on, with our class path and our
+	 * <code>frobworld.</code> system properties, such as the one that turns
+	 * on profiling.
+	 *
+	 * @return the command
+	 */
+	public static List<String> localCommand() {
+		List<String> command = new ArrayList<String>(Arrays.asList(
+				System.getProperty("java.home") + File.separator + "bin"
+						+ File.separator + "java", "-cp",
+				System.getProperty("java.class.path")));
+		for (String name : System.getProperties().stringPropertyNames())
+			if (name.startsWith("frobworld."))
+				command.add("-D" + name + "=" + System.getProperty(name));
+		command.add(BasicDriver.class.getName());
+		command.add("worker");
+		return command;
+	}
+
+	/**
+	 * Constructor for a farm of workers on this machine.
+	 *
+	 * @param workers
+	 *            how many workers
+	 */
+	public WorkerFarm(int workers) {
+		this(workers, localCommand());
+	}
+
+	/**
+	 * Constructor for a farm of workers started by any command that runs
+	 * {@link FarmWorker} and connects its standard input and output to ours,
+	 * which could as well reach another machine. Workers are started when
+	 * they are first given a job.
+	 *
+	 * @param workers
+	 *            how many workers
+	 * @param command
+	 *            the command that starts a worker
+	 */
+	public WorkerFarm(int workers, List<String> command) {
+		if (workers < 1)
+			throw new IllegalArgumentException("workers " + workers);
+		this.command = new ArrayList<String>(command);
+		this.tasks = new LinkedBlockingDeque<Task>();
+		this.drivers = new Thread[workers];
+		for (int i = 0; i < workers; i++) {
+			drivers[i] = new Thread(this::drive, "farm worker " + i);
+			drivers[i].setDaemon(true);
+			drivers[i].start();
+		}
+	}
+
+	/**
+	 * Getter method for how many workers there are.
+	 *
+	 * @return the count
+	 */
+	public int getWorkers() {
+		return drivers.length;
+	}
+
+	/**
+	 * Getter method for how many times a worker has been started again after
+	 * dying.
+	 *
+	 * @return the count
+	 */
+	public int getRestarts() {
+		return restarts.get();
+	}
+
+	/**
+	 * Method to queue a run for the next free worker.
+	 *
+	 * @param seed
+	 *            the seed to run on
+	 * @param config
+	 *            the constants to run with
+	 * @param scheduler
+	 *            the kind of PQueue to run with
+	 * @param batchDays
+	 *            whether to run each day in batches
+	 * @param stopSpec
+	 *            the stop conditions as described in
+	 *            {@link StopCondition#parse(String)}, or null for none
+	 * @param report
+	 *            whether to send back the printed report
+	 * @return the outcome to come
+	 */
+	public CompletableFuture<Outcome> submit(int seed, WorldConfig config,
+			SchedulerType scheduler, boolean batchDays, String stopSpec,
+			boolean report) {
+		long id = nextId.getAndIncrement();
+		Outgoing job = new Outgoing(WorkerProtocol.JOB);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			job.writeLong(id);
+			job.writeInt(seed);
+			job.writeUTF(config.toString());
+			job.writeUTF(scheduler.name());
+			job.writeUTF(stopSpec == null ? "" : stopSpec);
+			job.writeBoolean(batchDays);
+			job.writeBoolean(report);
+			job.sendTo(bytes);
+		} catch (IOException e) {
+			// can't happen when writing to memory
+			throw new IllegalStateException(e);
+		}
+		Task task = new Task(id, seed, bytes.toByteArray());
+		tasks.add(task);
+		return task.future;
+	}
+
+	/**
+	 * What each worker's thread does: start the worker, then hand it jobs
+	 * one at a time until told to stop, starting it again whenever it dies.
+	 */
+	private void drive() {
+		Process process = null;
+		InputStream in = null;
+		OutputStream out = null;
+		try {
+			for (Task task = tasks.take(); task != STOP; task = tasks.take()) {
+				if (task.future.isDone())
+					continue;
+				try {
+					if (process == null) {
+						process = new ProcessBuilder(command).redirectError(
+								ProcessBuilder.Redirect.INHERIT).start();
+						in = new BufferedInputStream(process.getInputStream(),
+								1 << 16);
+						out = new BufferedOutputStream(
+								process.getOutputStream(), 1 << 16);
+						Incoming hello = expect(WorkerProtocol.receive(in),
+								WorkerProtocol.HELLO);
+						int version = hello.body.readInt();
+						if (version != WorkerProtocol.VERSION)
+							throw new IOException("worker speaks version "
+									+ version);
+					}
+					synchronized (task) {
+						// cancelled while the worker was starting
+						if (task.future.isDone())
+							continue;
+						task.sentTo = out;
+					}
+					synchronized (out) {
+						out.write(task.job);
+						out.flush();
+					}
+					Incoming reply;
+					try {
+						reply = WorkerProtocol.receive(in);
+					} finally {
+						synchronized (task) {
+							task.sentTo = null;
+						}
+					}
+					if (reply == null)
+						throw new IOException("worker went away");
+					if (reply.body.readLong() != task.id)
+						throw new IOException("worker answered the wrong job");
+					if (reply.type == WorkerProtocol.FAILED) {
+						String why = reply.body.readUTF();
+						task.future.completeExceptionally(
+								new IllegalStateException("seed " + task.seed
+										+ " failed: " + why));
+					} else
+						task.future.complete(outcome(expect(reply,
+								WorkerProtocol.RESULT).body));
+				} catch (IOException e) {
+					// the worker died, or said something we can't trust
+					if (process != null) {
+						process.destroyForcibly();
+						process = null;
+						restarts.incrementAndGet();
+					}
+					if (++task.attempts >= MAX_ATTEMPTS)
+						task.future.completeExceptionally(new IOException(
+								"seed " + task.seed + " failed "
+										+ MAX_ATTEMPTS + " times", e));
+					else
+						tasks.addFirst(task);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (process != null)
+				quit(process, out);
+		}
+	}
+
+	/**
+	 * Method to check the type of a frame from a worker.
+	 *
+	 * @param frame
+	 *            the frame, or null if the worker went away
+	 * @param type
+	 *            the type expected
+	 * @return the frame
+	 * @throws IOException
+	 *             If there is no frame, or it is of some other type
+	 */
+	private static Incoming expect(Incoming frame, byte type)
+			throws IOException {
+		if (frame == null)
+			throw new IOException("worker went away");
+		if (frame.type != type)
+			throw new IOException("expected frame " + type + ", got "
+					+ frame.type);
+		return frame;
+	}
+
+	/**
+	 * Method to read the outcome of a job from a worker.
+	 *
+	 * @param body
+	 *            the rest of the {@link WorkerProtocol#RESULT} frame
+	 * @return the outcome
+	 * @throws IOException
+	 *             If the frame is cut short
+	 */
+	private static Outcome outcome(DataInputStream body) throws IOException {
+		RunResult result = BinaryResultSink.read(body);
+		byte[] report = new byte[body.readInt()];
+		body.readFully(report);
+		return new Outcome(result, report);
+	}
+
+	/**
+	 * Method to ask a worker to quit, and make it if it won't.
+	 *
+	 * @param process
+	 *            the worker
+	 * @param out
+	 *            its standard input
+	 */
+	private static void quit(Process process, OutputStream out) {
+		try {
+			synchronized (out) {
+				new Outgoing(WorkerProtocol.QUIT).sendTo(out);
+				out.close();
+			}
+			if (process.waitFor(5, TimeUnit.SECONDS))
+				return;
+		} catch (IOException e) {
+			// it is already gone, or going
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		process.destroyForcibly();
+	}
+
+	/**
+	 * Cancels every job no worker has started, lets the workers finish the
+	 * ones they have, and stops them.
+	 */
+	@Override
+	public void close() {
+		for (Task task = tasks.poll(); task != null; task = tasks.poll())
+			task.future.completeExceptionally(new CancellationException(
+					"farm closed"));
+		for (int i = 0; i < drivers.length; i++)
+			tasks.add(STOP);
+		for (Thread driver : drivers) {
+			try {
+				driver.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+}
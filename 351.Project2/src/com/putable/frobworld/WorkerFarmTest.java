@@ -0,0 +1,131 @@
+package com.putable.frobworld;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.putable.frobworld.WorkerFarm.Outcome;
+import com.putable.frobworld.WorldConfig.Parameter;
+
+/**
+ * Unit tests for WorkerFarm and FarmWorker, with real worker processes.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class WorkerFarmTest {
+	private static final WorldConfig SHORT = WorldConfig.DEFAULT.with(
+			Parameter.MAX_SIMULATION_LENGTH, 300);
+
+	/**
+	 * A worker that dies on its first job if the file named by its argument
+	 * doesn't exist yet, making it, and otherwise works normally.
+	 */
+	public static final class CrashingWorker {
+		public static void main(String[] args) throws IOException {
+			try {
+				Files.createFile(Path.of(args[0]));
+			} catch (FileAlreadyExistsException e) {
+				FarmWorker.main(args);
+				return;
+			}
+			OutputStream out = new FileOutputStream(FileDescriptor.out);
+			WorkerProtocol.Outgoing hello = new WorkerProtocol.Outgoing(
+					WorkerProtocol.HELLO);
+			hello.writeInt(WorkerProtocol.VERSION);
+			hello.sendTo(out);
+			WorkerProtocol.receive(new BufferedInputStream(new FileInputStream(
+					FileDescriptor.in)));
+			System.exit(3);
+		}
+	}
+
+	private static List<String> command(Class<?> main, String... args) {
+		List<String> command = new ArrayList<String>(WorkerFarm.localCommand());
+		// in place of the main class and its "worker"
+		command = command.subList(0, command.size() - 2);
+		command.add(main.getName());
+		for (String arg : args)
+			command.add(arg);
+		return command;
+	}
+
+	@Test
+	public void testResultsMatchThisJvm() throws Exception {
+		try (WorkerFarm farm = new WorkerFarm(2, command(BasicDriver.class,
+				"worker"))) {
+			List<CompletableFuture<Outcome>> outcomes;
+			outcomes = new ArrayList<CompletableFuture<Outcome>>();
+			for (int seed = 1; seed <= 4; seed++)
+				outcomes.add(farm.submit(seed, SHORT, SchedulerType.BINARY_HEAP,
+						false, null, seed == 1));
+			for (int seed = 1; seed <= 4; seed++) {
+				World world = new World(seed, SchedulerType.BINARY_HEAP, SHORT);
+				world.run();
+				Outcome o = outcomes.get(seed - 1).get();
+				assertTrue(o.getResult().getSeed() == seed);
+				assertTrue(o.getResult().getFrobsBorn() == world.getResult()
+						.getFrobsBorn());
+				assertTrue(o.getResult().getAverageDistance() == world
+						.getResult().getAverageDistance());
+				assertTrue((o.getReport().length > 0) == (seed == 1));
+			}
+			assertTrue(farm.getRestarts() == 0);
+		}
+	}
+
+	@Test
+	public void testCrashedWorkerIsRestarted() throws Exception {
+		File marker = File.createTempFile("worker", ".crashed");
+		marker.delete();
+		marker.deleteOnExit();
+		try (WorkerFarm farm = new WorkerFarm(1, command(CrashingWorker.class,
+				marker.getPath()))) {
+			CompletableFuture<Outcome> first = farm.submit(7, SHORT,
+					SchedulerType.BINARY_HEAP, false, null, false);
+			CompletableFuture<Outcome> second = farm.submit(8, SHORT,
+					SchedulerType.BINARY_HEAP, false, null, false);
+			assertTrue(first.get().getResult().getSeed() == 7);
+			assertTrue(second.get().getResult().getSeed() == 8);
+			assertTrue(farm.getRestarts() == 1);
+		}
+	}
+
+	@Test
+	public void testCancelStopsJobs() throws Exception {
+		WorldConfig endless = WorldConfig.DEFAULT.with(
+				Parameter.MAX_SIMULATION_LENGTH, Integer.MAX_VALUE);
+		try (WorkerFarm farm = new WorkerFarm(1, command(BasicDriver.class,
+				"worker"))) {
+			CompletableFuture<Outcome> running = farm.submit(42, endless,
+					SchedulerType.BINARY_HEAP, false, null, false);
+			CompletableFuture<Outcome> queued = farm.submit(43, endless,
+					SchedulerType.BINARY_HEAP, false, null, false);
+			CompletableFuture<Outcome> after = farm.submit(44, SHORT,
+					SchedulerType.BINARY_HEAP, false, null, false);
+			// give the worker time to start and take the first job
+			Thread.sleep(1000);
+			assertTrue(running.cancel(true));
+			assertTrue(queued.cancel(true));
+			// only answered once the worker has given up the other two
+			assertTrue(after.get(60, TimeUnit.SECONDS).getResult()
+					.getSeed() == 44);
+			assertTrue(farm.getRestarts() == 0);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.putable.frobworld;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The framing spoken between a {@link WorkerFarm} and its
+ * {@link FarmWorker}s. Every message is a frame: a big-endian int giving the
+ * length of the rest, a byte giving the type of message, and then the
+ * message itself. Since frames carry their own length, the protocol can run
+ * over any byte stream: the pipes of a local process, or later a socket to
+ * another machine.
+ *
+ * <ul>
+ * <li>{@link #HELLO}: worker to farm, once on starting; the protocol
+ * {@link #VERSION} as an int.</li>
+ * <li>{@link #JOB}: farm to worker; a long job id, the int seed, then as UTF
+ * strings the {@link WorldConfig} changes, the {@link SchedulerType} and the
+ * stop conditions (empty for none), then booleans for whether to run each
+ * day in batches and whether to send back the printed report.</li>
+ * <li>{@link #RESULT}: worker to farm; the job id, the result as
+ * {@link BinaryResultSink} writes it, then an int length and that many bytes
+ * of printed report.</li>
+ * <li>{@link #FAILED}: worker to farm; the job id and a UTF message.</li>
+ * <li>{@link #CANCEL}: farm to worker; the id of a job that is no longer
+ * wanted. If the worker is still running it, the World is stopped where it
+ * is and the job answered with {@link #FAILED}; otherwise it is ignored.</li>
+ * <li>{@link #QUIT}: farm to worker, with nothing more.</li>
+ * </ul>
+ *
+ * @author Brennan Collins
+ *
+ */
+final class WorkerProtocol {
+	/**
+	 * The version of the protocol, sent by each worker when it starts.
+	 */
+	static final int VERSION = 2;
+	/**
+	 * The types of frame.
+	 */
+	static final byte HELLO = 1, JOB = 2, RESULT = 3, FAILED = 4, QUIT = 5,
+			CANCEL = 6;
+	// the largest frame we believe, so that garbage can't make us allocate
+	// without limit
+	private static final int MAX_FRAME = 1 << 26;
+
+	private WorkerProtocol() {
+	}
+
+	/**
+	 * A frame being written. Its message is written to it like any
+	 * DataOutputStream, and it is then sent all at once.
+	 */
+	static final class Outgoing extends DataOutputStream {
+		/**
+		 * Constructor for a frame.
+		 *
+		 * @param type
+		 *            the type of frame
+		 */
+		Outgoing(byte type) {
+			super(new ByteArrayOutputStream(128));
+			((ByteArrayOutputStream) out).write(type);
+		}
+
+		/**
+		 * Method to send the frame.
+		 *
+		 * @param to
+		 *            where to send it, which is flushed
+		 * @throws IOException
+		 *             If the frame can't be sent
+		 */
+		void sendTo(OutputStream to) throws IOException {
+			flush();
+			ByteArrayOutputStream bytes = (ByteArrayOutputStream) out;
+			int length = bytes.size();
+			to.write(new byte[] { (byte) (length >>> 24),
+					(byte) (length >>> 16), (byte) (length >>> 8),
+					(byte) length });
+			bytes.writeTo(to);
+			to.flush();
+		}
+	}
+
+	/**
+	 * A frame that has been received.
+	 */
+	static final class Incoming {
+		/**
+		 * The type of frame.
+		 */
+		final byte type;
+		/**
+		 * The message, to be read.
+		 */
+		final DataInputStream body;
+
+		private Incoming(byte type, DataInputStream body) {
+			this.type = type;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * Method to receive a frame.
+	 *
+	 * @param in
+	 *            where to receive it from
+	 * @return the frame, positioned at its message, or null if the stream
+	 *         ended cleanly between frames
+	 * @throws IOException
+	 *             If the stream ended part way through a frame, or the frame
+	 *             makes no sense
+	 */
+	static Incoming receive(InputStream in) throws IOException {
+		int first = in.read();
+		if (first < 0)
+			return null;
+		DataInputStream data = new DataInputStream(in);
+		int length = first << 24 | data.readUnsignedByte() << 16
+				| data.readUnsignedByte() << 8 | data.readUnsignedByte();
+		if (length < 1 || length > MAX_FRAME)
+			throw new IOException("bad frame length " + length);
+		byte[] bytes = new byte[length];
+		data.readFully(bytes);
+		DataInputStream body = new DataInputStream(new ByteArrayInputStream(
+				bytes));
+		return new Incoming(body.readByte(), body);
+	}
+}
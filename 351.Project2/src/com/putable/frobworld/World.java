@@ -3,17 +3,22 @@ package com.putable.frobworld;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.PrintStream;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.function.Supplier;
 
 import javax.swing.JPanel;
 import javax.swing.Timer;
 
 import com.putable.pqueue.PQueue;
-import com.putable.pqueue.PQueueAdvanced;
+import com.putable.frobworld.PhaseProfiler.Phase;
+import com.putable.frobworld.WorldConfig.Parameter;
+import com.putable.pqueue.PQueueStats;
 
 /**
  * The class World is our container for "{@link #Thing}" and "{@link #Being}"
@@ -27,38 +32,26 @@ import com.putable.pqueue.PQueueAdvanced;
 public final class World extends JPanel implements ActionListener {
 
 	private static final long serialVersionUID = 1L;
+	/**
+	 * Only one in this many births, and one in this many deaths, is sent to
+	 * Flight Recorder, from the <code>frobworld.jfr.sample</code> system
+	 * property.
+	 */
+	public static final int EVENT_SAMPLE = Math.max(1,
+			Integer.getInteger("frobworld.jfr.sample", 100));
 	// final fields of Frob World
 	public final int WORLD_WIDTH = 100, // World Width
-			WORLD_HEIGHT = 50, // World Height
-			MAX_SIMULATION_LENGTH = 25000, // Time to quit even if frobs still
-											// live
-
-			ROCK_BUMP_PENALTY = 30, // Mass penalty when Frob hits Rock
-			FROB_HIT_PENALTY = 10, // Mass penalty (of hittee) when Frob hits
-									// Frob
-
-			INIT_FROBS = 50, // Number of Frobs in initial world
-			INIT_GRASSES = 250, // Number of Grasses in initial world
-
-			GRASS_FIXED_OVERHEAD = 0, // Grass fixed mass cost per action
-			GRASS_GENESIS_MASS = 10, // Initial Grass mass
-			GRASS_BIRTH_MASS = 30, // Mass at which Grasses wish to split
-			GRASS_INITIAL_UPDATE_PERIOD = 10, // Days between Grass activities
-			GRASS_CROWD_LIMIT = 2, // 4-neighborhood Grass count for no
-									// splitting
-			GRASS_MAX_UPDATE_PERIOD = 100, // Max inactive days on failed
-											// splitting
-			GRASS_BIRTH_PERCENT = 40, // Percent of mass given to offspring at
-										// split
-
-			FROB_FIXED_OVERHEAD = 2, // Frob fixed mass cost per action
-			FROB_GENESIS_MASS = 100, // Initial Frob mass
-
-			DNA_MUTATION_ODDS_PER_BYTE = 20, // 1-in-this chance of a bit flip
-												// per byte
-
-			GRASS_MASS_TAX_MILLS = -200, // Grass mass loss per day
-			FROB_MASS_TAX_MILLS = 100; // Frob mass loss per day
+			WORLD_HEIGHT = 50; // World Height
+	// the constants of Frob World, from our WorldConfig (see
+	// WorldConfig.Parameter for what each one means)
+	public final int MAX_SIMULATION_LENGTH, ROCK_BUMP_PENALTY,
+			FROB_HIT_PENALTY, INIT_FROBS, INIT_GRASSES, GRASS_FIXED_OVERHEAD,
+			GRASS_GENESIS_MASS, GRASS_BIRTH_MASS, GRASS_INITIAL_UPDATE_PERIOD,
+			GRASS_CROWD_LIMIT, GRASS_MAX_UPDATE_PERIOD, GRASS_BIRTH_PERCENT,
+			FROB_FIXED_OVERHEAD, FROB_GENESIS_MASS, DNA_MUTATION_ODDS_PER_BYTE,
+			GRASS_MASS_TAX_MILLS, FROB_MASS_TAX_MILLS;
+	// the configuration they came from
+	private final WorldConfig config;
 
 	// Timer for updating screen
 	private Timer timer;
@@ -66,17 +59,59 @@ public final class World extends JPanel implements ActionListener {
 	private Random rand;
 	// a two-dimensional grid for determining what "Thing" lies where
 	private Thing[][] grid;
+	// every empty location of our grid, for picking one at random
+	private FreeCellIndex openCells;
 	// our Priority Queue of grassBeings to determine who makes the next move
-	private PQueue grassBeings;
+	private PQueue<Being> grassBeings;
 	// our Priority Queue of grassBeings to determine who makes the next move
-	private PQueue frobBeings;
+	private PQueue<Being> frobBeings;
 	// fields for our current day, total frobs, and total grass
 	private int day = 0;
 	// boolean value for whether our frobs are alive
 	private boolean extinct = false;
+	// the kind of PQueue to schedule our beings with
+	private final SchedulerType scheduler;
+	// where our PQueues come from instead, or null to make them of our kind
+	private Supplier<PQueue<Being>> queueFactory;
+	// whether each day's beings are taken off the PQueues in batches, and the
+	// reusable buffers they are taken off into
+	private boolean batchDays = false;
+	private final List<Being> dueGrass = new ArrayList<Being>(),
+			dueFrobs = new ArrayList<Being>();
+	// where the grass and frob PQueues count their work, or null if they
+	// don't
+	private PQueueStats grassStats, frobStats;
+	// where we publish our figures at the end of each day, or null if nobody
+	// is watching
+	private WorldMonitor monitor;
+	// how many beings have taken their turn
+	private long events = 0;
+	// how many beings have been born and have died, for sampling them
+	private long births = 0, deaths = 0;
+	// the traits of every frob in the World
+	private SurvivorStats survivors;
+	// how long each phase of a turn takes, only when profiling is on
+	private final PhaseProfiler profiler = PhaseProfiler.ENABLED
+			? new PhaseProfiler() : null;
+	// what may stop us early, and which of them did, if any
+	private StopCondition[] stopConditions = new StopCondition[0];
+	private StopCondition stoppedBy;
+	// where the phase timings are dumped along the way
+	private PrintStream profileOut = System.out;
 	// our seed value for PRNG and scale for sizing up the JFrame object that we
 	// paint Frob World to
 	public int inSeed, scale;
+	// for each 4-bit mask of open directions, the open directions in order
+	// (north, east, south, west) at OPEN_DIRECTIONS[mask * 4 + k]
+	private static final byte[] OPEN_DIRECTIONS = new byte[16 * 4];
+	static {
+		for (int mask = 0; mask < 16; mask++) {
+			int k = 0;
+			for (int bit = Being.NORTH; bit <= Being.WEST; bit <<= 1)
+				if ((mask & bit) != 0)
+					OPEN_DIRECTIONS[mask * 4 + k++] = (byte) bit;
+		}
+	}
 	// values to track important output
 	private int frobCount = 0, totalFrobHops = 0, totalGrassConsumption = 0,
 			taxDeathCount = 0, rockDeathCount = 0, frobDeathCount = 0,
@@ -91,7 +126,54 @@ public final class World extends JPanel implements ActionListener {
 	 *            our seed value
 	 */
 	public World(int seed) {
+		this(seed, SchedulerType.BINARY_HEAP);
+	}
+
+	/**
+	 * Constructor for a World object that schedules its beings with a chosen
+	 * kind of {@link PQueue}.
+	 * 
+	 * @param seed
+	 *            our seed value
+	 * @param scheduler
+	 *            the kind of PQueue to use for both grass and frobs
+	 */
+	public World(int seed, SchedulerType scheduler) {
+		this(seed, scheduler, WorldConfig.DEFAULT);
+	}
+
+	/**
+	 * Constructor for a World object with its own constants, for varying them
+	 * from run to run.
+	 * 
+	 * @param seed
+	 *            our seed value
+	 * @param scheduler
+	 *            the kind of PQueue to use for both grass and frobs
+	 * @param config
+	 *            our constants
+	 */
+	public World(int seed, SchedulerType scheduler, WorldConfig config) {
+		this.config = config;
+		MAX_SIMULATION_LENGTH = config.get(Parameter.MAX_SIMULATION_LENGTH);
+		ROCK_BUMP_PENALTY = config.get(Parameter.ROCK_BUMP_PENALTY);
+		FROB_HIT_PENALTY = config.get(Parameter.FROB_HIT_PENALTY);
+		INIT_FROBS = config.get(Parameter.INIT_FROBS);
+		INIT_GRASSES = config.get(Parameter.INIT_GRASSES);
+		GRASS_FIXED_OVERHEAD = config.get(Parameter.GRASS_FIXED_OVERHEAD);
+		GRASS_GENESIS_MASS = config.get(Parameter.GRASS_GENESIS_MASS);
+		GRASS_BIRTH_MASS = config.get(Parameter.GRASS_BIRTH_MASS);
+		GRASS_INITIAL_UPDATE_PERIOD = config.get(Parameter.GRASS_INITIAL_UPDATE_PERIOD);
+		GRASS_CROWD_LIMIT = config.get(Parameter.GRASS_CROWD_LIMIT);
+		GRASS_MAX_UPDATE_PERIOD = config.get(Parameter.GRASS_MAX_UPDATE_PERIOD);
+		GRASS_BIRTH_PERCENT = config.get(Parameter.GRASS_BIRTH_PERCENT);
+		FROB_FIXED_OVERHEAD = config.get(Parameter.FROB_FIXED_OVERHEAD);
+		FROB_GENESIS_MASS = config.get(Parameter.FROB_GENESIS_MASS);
+		DNA_MUTATION_ODDS_PER_BYTE = config.get(Parameter.DNA_MUTATION_ODDS_PER_BYTE);
+		GRASS_MASS_TAX_MILLS = config.get(Parameter.GRASS_MASS_TAX_MILLS);
+		FROB_MASS_TAX_MILLS = config.get(Parameter.FROB_MASS_TAX_MILLS);
 		inSeed = seed;
+		this.scheduler = scheduler;
 		timer = new Timer(0, this);
 		timer.start();
 		initiateWorld();
@@ -105,8 +187,19 @@ public final class World extends JPanel implements ActionListener {
 	public void initiateWorld() {
 		day = 0;
 		grid = new Thing[WORLD_WIDTH + 1][WORLD_HEIGHT + 1];
-		grassBeings = new PQueueAdvanced();
-		frobBeings = new PQueueAdvanced();
+		openCells = new FreeCellIndex((WORLD_WIDTH + 1) * (WORLD_HEIGHT + 1));
+		grassBeings = queueFactory == null ? scheduler.newQueue()
+				: queueFactory.get();
+		frobBeings = queueFactory == null ? scheduler.newQueue()
+				: queueFactory.get();
+		if (grassStats != null)
+			grassBeings.setStats(grassStats);
+		if (frobStats != null)
+			frobBeings.setStats(frobStats);
+		survivors = new SurvivorStats();
+		stoppedBy = null;
+		for (StopCondition condition : stopConditions)
+			condition.reset();
 		rand = new Random(inSeed);
 		setRocks();
 		setGrass();
@@ -115,28 +208,31 @@ public final class World extends JPanel implements ActionListener {
 
 	/**
 	 * Method to set all the {@link Rock} objects at edge and interior locations
-	 * in our Frob World.
+	 * in our Frob World. The edges are walled in first so that the interior
+	 * rocks are only ever placed in open interior locations.
 	 */
 	public void setRocks() {
 		for (int x = 0; x <= WORLD_WIDTH; x++) {
-			Point p = findRandomOpenLocation();
 			Thing rock1 = new Rock();
-			rock1.setLocation(new Point(x, 0));
+			rock1.setLocation(x, 0);
 			Thing rock2 = new Rock();
-			rock2.setLocation(new Point(x, WORLD_HEIGHT));
-			Thing rock3 = new Rock();
-			rock3.setLocation(p);
-			grid[x][0] = rock1;
-			grid[x][WORLD_HEIGHT] = rock2;
-			grid[p.x][p.y] = rock3;
+			rock2.setLocation(x, WORLD_HEIGHT);
+			setCell(x, 0, rock1);
+			setCell(x, WORLD_HEIGHT, rock2);
 		}
 		for (int y = 0; y <= WORLD_HEIGHT; y++) {
 			Thing rock1 = new Rock();
-			rock1.setLocation(new Point(0, y));
+			rock1.setLocation(0, y);
 			Thing rock2 = new Rock();
-			rock2.setLocation(new Point(WORLD_WIDTH, y));
-			grid[0][y] = rock1;
-			grid[WORLD_WIDTH][y] = rock2;
+			rock2.setLocation(WORLD_WIDTH, y);
+			setCell(0, y, rock1);
+			setCell(WORLD_WIDTH, y, rock2);
+		}
+		for (int i = 0; i <= WORLD_WIDTH; i++) {
+			int cell = findRandomOpenLocation();
+			Thing rock3 = new Rock();
+			rock3.setLocation(cellX(cell), cellY(cell));
+			setCell(cellX(cell), cellY(cell), rock3);
 		}
 	}
 
@@ -146,15 +242,15 @@ public final class World extends JPanel implements ActionListener {
 	 */
 	public void setGrass() {
 		for (int i = 0; i < INIT_GRASSES; i++) {
-			Point p = findRandomOpenLocation();
+			int cell = findRandomOpenLocation();
 			Being grass = new Grass(GRASS_GENESIS_MASS, GRASS_BIRTH_MASS,
 					GRASS_BIRTH_PERCENT, GRASS_MASS_TAX_MILLS,
 					GRASS_FIXED_OVERHEAD, GRASS_INITIAL_UPDATE_PERIOD);
-			grass.setLocation(p);
+			grass.setLocation(cellX(cell), cellY(cell));
 			grass.rand = rand;
 			grass.setUpdatePeriod(GRASS_INITIAL_UPDATE_PERIOD);
 			grass.setInitialNextUpdate(0);
-			grid[p.x][p.y] = grass;
+			setCell(cellX(cell), cellY(cell), grass);
 			grassBeings.insert(grass);
 		}
 	}
@@ -165,14 +261,15 @@ public final class World extends JPanel implements ActionListener {
 	 */
 	public void setFrobs() {
 		for (int i = 0; i < INIT_FROBS; i++) {
-			Point p = findRandomOpenLocation();
+			int cell = findRandomOpenLocation();
 			Being frob = new Frob(rand, FROB_GENESIS_MASS, FROB_MASS_TAX_MILLS,
 					FROB_FIXED_OVERHEAD, DNA_MUTATION_ODDS_PER_BYTE);
-			frob.setLocation(p);
+			frob.setLocation(cellX(cell), cellY(cell));
 			frob.setInitialNextUpdate(0);
 			((Frob) frob).generation = 0;
-			grid[p.x][p.y] = frob;
+			setCell(cellX(cell), cellY(cell), frob);
 			frobBeings.insert(frob);
+			survivors.add((Frob) frob);
 			frobCount++;
 		}
 	}
@@ -187,9 +284,13 @@ public final class World extends JPanel implements ActionListener {
 	 *            our {@link Being} that will be performing different actions
 	 */
 	public void doAction(Being life) {
+		long start = PhaseProfiler.ENABLED ? System.nanoTime() : 0;
 		life.performAction();
+		if (PhaseProfiler.ENABLED)
+			profiler.record(Phase.PAY_TAX, start);
 		if (life instanceof Frob && life.mass <= 0) {
 			taxDeathCount++;
+			died(life, DeathEvent.TAX);
 			if (((Frob) life).generation > deepestGeneration)
 				deepestGeneration = ((Frob) life).generation;
 		}
@@ -198,15 +299,14 @@ public final class World extends JPanel implements ActionListener {
 			if (life instanceof Grass) {
 				grassAction(life);
 				life.reschedule();
-				grassBeings.insert(life);
+				schedule(grassBeings, life);
 			} else if (life instanceof Frob) {
 				frobAction(life);
 				life.reschedule();
-				frobBeings.insert(life);
+				schedule(frobBeings, life);
 			}
-		} else {
-			grid[life.getLocation().x][life.getLocation().y] = null;
-		}
+		} else
+			leave(life);
 	}
 
 	/**
@@ -218,18 +318,28 @@ public final class World extends JPanel implements ActionListener {
 	 *            our {@link Being} that is attempting to reproduce
 	 */
 	public void grassAction(Being life) {
+		long start = PhaseProfiler.ENABLED ? System.nanoTime() : 0;
 		int check = grassCheckNeighborhood(life);
+		if (PhaseProfiler.ENABLED)
+			profiler.record(Phase.GRASS_NEIGHBORHOOD, start);
 		if (life.getMass() > life.birthMass && check < GRASS_CROWD_LIMIT+2) {
-			Point p = setGrassChildLocation(life);
-			if (p == null)
+			int direction = setGrassChildLocation(life);
+			if (direction == 0)
 				return;
+			int childX = life.getX() + stepX(direction);
+			int childY = life.getY() + stepY(direction);
+			if (PhaseProfiler.ENABLED)
+				start = System.nanoTime();
 			Being child = life.reproduce();
+			if (PhaseProfiler.ENABLED)
+				profiler.record(Phase.REPRODUCE, start);
+			born(child);
 			child.rand = rand;
 			child.setUpdatePeriod(GRASS_INITIAL_UPDATE_PERIOD);
 			child.setInitialNextUpdate(day);
-			child.setLocation(p);
-			grid[p.x][p.y] = child;
-			grassBeings.insert(child);
+			child.setLocation(childX, childY);
+			setCell(childX, childY, child);
+			schedule(grassBeings, child);
 		} else if (check >= GRASS_CROWD_LIMIT) {
 			if (2 * life.getUpdatePeriod() < GRASS_MAX_UPDATE_PERIOD)
 				life.setUpdatePeriod(2 * life.getUpdatePeriod());
@@ -247,16 +357,30 @@ public final class World extends JPanel implements ActionListener {
 	 *            the {@link Frob} performing the action
 	 */
 	public void frobAction(Being life) {
+		long start = PhaseProfiler.ENABLED ? System.nanoTime() : 0;
 		frobCheckNeighborhood(life);
-		Point oldLoc = life.getLocation();
+		if (PhaseProfiler.ENABLED) {
+			profiler.record(Phase.FROB_NEIGHBORHOOD, start);
+			start = System.nanoTime();
+		}
+		int oldX = life.getX(), oldY = life.getY();
 		frobMove(life);
-		if (life.getMass() >= life.birthMass && life.getLocation() != oldLoc) {
+		if (PhaseProfiler.ENABLED)
+			profiler.record(Phase.FROB_MOVE, start);
+		if (life.getMass() >= life.birthMass
+				&& (life.getX() != oldX || life.getY() != oldY)) {
+			if (PhaseProfiler.ENABLED)
+				start = System.nanoTime();
 			Being child = life.reproduce();
-			child.setLocation(oldLoc);
-			grid[oldLoc.x][oldLoc.y] = child;
+			if (PhaseProfiler.ENABLED)
+				profiler.record(Phase.REPRODUCE, start);
+			child.setLocation(oldX, oldY);
+			setCell(oldX, oldY, child);
 			child.setInitialNextUpdate(day);
 			((Frob) child).generation = ((Frob) life).generation + 1;
-			frobBeings.insert(child);
+			born(child);
+			schedule(frobBeings, child);
+			survivors.add((Frob) child);
 			frobCount++;
 		}
 	}
@@ -315,76 +439,141 @@ public final class World extends JPanel implements ActionListener {
 	 */
 	public void frobCheckNeighborhood(Being life) {
 		// the location of our frob
-		int xLoc = life.getLocation().x;
-		int yLoc = life.getLocation().y;
+		int xLoc = life.getX();
+		int yLoc = life.getY();
 		// check east
 		if (grid[xLoc + 1][yLoc] != null) {
 			CentralFrobUnitEast.checkSurroundings(life);
 		} else
-			life.neighborhood.e = 0;
+			life.east = 0;
 		// check west
 		if (grid[xLoc - 1][yLoc] != null) {
 			CentralFrobUnitWest.checkSurroundings(life);
 		} else
-			life.neighborhood.w = 0;
+			life.west = 0;
 		// check south
 		if (grid[xLoc][yLoc + 1] != null) {
 			CentralFrobUnitSouth.checkSurroundings(life);
 		} else
-			life.neighborhood.s = 0;
+			life.south = 0;
 		// check north
 		if (grid[xLoc][yLoc - 1] != null) {
 			CentralFrobUnitNorth.checkSurroundings(life);
 		} else
-			life.neighborhood.n = 0;
+			life.north = 0;
 	}
 
 	/**
-	 * A method to set where a {@link #Grass} object reproduces. It picks a
-	 * random direction and tries to reproduce there. If the location in this
-	 * direction is null, it puts a child there. Else if the neighborhood is
-	 * full, then it returns null. If neither of these apply, then it repeatedly
-	 * searches for another neighboring location that is null to put a child in.
+	 * A method to set where a {@link #Grass} object reproduces. The grass'
+	 * neighborhood (as found by {@link #grassCheckNeighborhood(Being)}) is
+	 * turned into a mask of its open directions, and one of those directions is
+	 * picked with a single random draw using {@link #OPEN_DIRECTIONS}.
 	 * 
 	 * @param life
 	 *            our grass that is reproducing
-	 * @return a point that is safe to reproduce in
-	 */
-	public Point setGrassChildLocation(Being life) {
-		int r = rand.nextInt(Integer.MAX_VALUE - 1) % 4;
-		// is north empty? put child to north
-		if (r == 0 && !life.neighborhood.north)
-			return new Point(life.getLocation().x, life.getLocation().y - 1);
-		// is east empty? put child to east
-		else if (r == 1 && !life.neighborhood.east)
-			return new Point(life.getLocation().x + 1, life.getLocation().y);
-		// is south empty? put child to south
-		else if (r == 2 && !life.neighborhood.south)
-			return new Point(life.getLocation().x, life.getLocation().y + 1);
-		// is west empty? put child to west
-		else if (r == 3 && !life.neighborhood.west)
-			return new Point(life.getLocation().x - 1, life.getLocation().y);
-		// is neighborhood full? return null indicating theres no room for a
-		// baby
-		else if (life.neighborhood.north && life.neighborhood.east
-				&& life.neighborhood.south && life.neighborhood.west)
-			return null;
-		else
-			return setGrassChildLocation(life);
+	 * @return the direction ({@link Being#NORTH}, {@link Being#EAST},
+	 *         {@link Being#SOUTH} or {@link Being#WEST}) that is safe to
+	 *         reproduce in, or 0 if the neighborhood is full
+	 */
+	public int setGrassChildLocation(Being life) {
+		int open = ~life.getOccupiedMask() & 0xF;
+		if (open == 0)
+			return 0;
+		int r = rand.nextInt(Integer.bitCount(open));
+		return OPEN_DIRECTIONS[open * 4 + r];
+	}
+
+	/**
+	 * Method to get how far a step in a given direction moves along x.
+	 * 
+	 * @param direction
+	 *            one of the direction bits of {@link Being}
+	 * @return -1, 0 or 1
+	 */
+	private static int stepX(int direction) {
+		if (direction == Being.EAST)
+			return 1;
+		else if (direction == Being.WEST)
+			return -1;
+		return 0;
+	}
+
+	/**
+	 * Method to get how far a step in a given direction moves along y.
+	 * 
+	 * @param direction
+	 *            one of the direction bits of {@link Being}
+	 * @return -1, 0 or 1
+	 */
+	private static int stepY(int direction) {
+		if (direction == Being.SOUTH)
+			return 1;
+		else if (direction == Being.NORTH)
+			return -1;
+		return 0;
+	}
+
+	/**
+	 * Method to find a random open location anywhere in our Frob World. Every
+	 * open location is equally likely, and the time it takes doesn't depend on
+	 * how crowded the world is.
+	 * 
+	 * @return a random open cell (see {@link #cellX(int)} and
+	 *         {@link #cellY(int)}), or -1 if the world is full
+	 */
+	public int findRandomOpenLocation() {
+		return openCells.random(rand);
+	}
+
+	/**
+	 * Method to determine how many open locations are left in our Frob World.
+	 * 
+	 * @return the number of empty cells
+	 */
+	public int getOpenLocationCount() {
+		return openCells.size();
 	}
 
 	/**
-	 * Method to find a random open location anywhere in our Frob World.
+	 * Method to put a "{@link Thing}" (or nothing) at a location on our grid.
+	 * Every write to the grid goes through here so that the index of open
+	 * locations stays up to date.
 	 * 
-	 * @return a random open location
+	 * @param x
+	 *            the column of the location
+	 * @param y
+	 *            the row of the location
+	 * @param thing
+	 *            what to put there, or null to empty the location
 	 */
-	public Point findRandomOpenLocation() {
-		int xR = Math.abs(rand.nextInt(Integer.MAX_VALUE)) % WORLD_WIDTH;
-		int yR = Math.abs(rand.nextInt(Integer.MAX_VALUE)) % WORLD_HEIGHT;
-		if (grid[xR][yR] == null)
-			return new Point(xR, yR);
+	private void setCell(int x, int y, Thing thing) {
+		grid[x][y] = thing;
+		if (thing == null)
+			openCells.release(x * (WORLD_HEIGHT + 1) + y);
 		else
-			return findRandomOpenLocation();
+			openCells.occupy(x * (WORLD_HEIGHT + 1) + y);
+	}
+
+	/**
+	 * Method to get the column of a cell number.
+	 * 
+	 * @param cell
+	 *            a cell number
+	 * @return the x coordinate of the cell
+	 */
+	public int cellX(int cell) {
+		return cell / (WORLD_HEIGHT + 1);
+	}
+
+	/**
+	 * Method to get the row of a cell number.
+	 * 
+	 * @param cell
+	 *            a cell number
+	 * @return the y coordinate of the cell
+	 */
+	public int cellY(int cell) {
+		return cell % (WORLD_HEIGHT + 1);
 	}
 
 	/**
@@ -457,18 +646,63 @@ public final class World extends JPanel implements ActionListener {
 	 * stats to standard output.
 	 */
 	public void gatherResults() {
+		run();
+		printResults();
+		printProfile(System.out);
+	}
+
+	/**
+	 * A function to run our Frob World simulation from the start until the
+	 * frobs die out, the last day is reached or one of our stop conditions is
+	 * met, without printing anything. If the thread running us is
+	 * interrupted we stop where we are, and the results are meaningless.
+	 * Afterwards the results can be printed with {@link #printResults()} or
+	 * collected with {@link #getResult()}.
+	 */
+	public void run() {
 		initiateWorld();
-		while (day < 25000) {
-			if (day == MAX_SIMULATION_LENGTH) {
+		RunStartEvent startEvent = new RunStartEvent();
+		if (startEvent.shouldCommit()) {
+			startEvent.seed = inSeed;
+			startEvent.scheduler = scheduler.name();
+			startEvent.batchDays = batchDays;
+			startEvent.commit();
+		}
+		RunEndEvent endEvent = new RunEndEvent();
+		endEvent.begin();
+		while (day < MAX_SIMULATION_LENGTH) {
+			if (extinct) {
 				break;
-			} else if (extinct) {
+			} else if (stoppedBy != null) {
+				break;
+			} else if (Thread.currentThread().isInterrupted()) {
 				break;
 			} else {
 				runSimulation();
 			}
 		}
 		timer.stop();
-		printResults();
+		publishDay(true);
+		if (endEvent.shouldCommit()) {
+			endEvent.seed = inSeed;
+			endEvent.days = day;
+			endEvent.extinct = extinct;
+			endEvent.frobsBorn = frobCount;
+			endEvent.turns = events;
+			endEvent.commit();
+		}
+	}
+
+	/**
+	 * Method to print the phase timings of the whole run, if profiling is on
+	 * (see {@link PhaseProfiler}).
+	 * 
+	 * @param out
+	 *            where to print to
+	 */
+	public void printProfile(PrintStream out) {
+		if (PhaseProfiler.ENABLED)
+			profiler.dumpTotal(day, out);
 	}
 
 	/**
@@ -479,78 +713,98 @@ public final class World extends JPanel implements ActionListener {
 	 * then it also outputs the metabolic rates of the surviving Frobs.
 	 */
 	public void printResults() {
+		printResults(System.out);
+	}
+
+	/**
+	 * The same as {@link #printResults()}, but prints somewhere other than
+	 * standard output.
+	 * 
+	 * @param out
+	 *            where to print to
+	 */
+	public void printResults(PrintStream out) {
 		NumberFormat nf = NumberFormat.getInstance();
 		nf.setMaximumFractionDigits(2);
 		if (extinct) {
-			System.out.println("The Frobs are no more after " + day
+			out.println("The Frobs are no more after " + day
 					+ " days.\n\n");
 
 			double avgDistance = (double) totalFrobHops / frobCount;
-			System.out.println("Average distance travelled: \n--- "
+			out.println("Average distance travelled: \n--- "
 					+ nf.format(avgDistance) + " hops ---\n");
 
-			System.out.println("Generations past:\n--- " + deepestGeneration
+			out.println("Generations past:\n--- " + deepestGeneration
 					+ " ---\n");
 
 			double avgGrassConsumption = (double) totalGrassConsumption
 					/ frobCount;
-			System.out
+			out
 					.println("Average amount of grass consumption during Simulation:\n--- "
 							+ nf.format(avgGrassConsumption) + " ---\n");
 
 			String d1 = (taxDeathCount > rockDeathCount) ? "Paying the tax."
 					: "Hitting the rock.";
 			if (d1 == "Paying the tax." && taxDeathCount > frobDeathCount)
-				System.out
+				out
 						.println("Main cause of death:\n--- " + d1 + " ---\n");
 			else if (d1 == "Hitting the rock."
 					&& rockDeathCount > frobDeathCount)
-				System.out
+				out
 						.println("Main cause of death:\n--- " + d1 + " ---\n");
 			else
-				System.out
+				out
 						.println("Main cause of death:\n--- Death by Frob! ---\n");
 		} else {
-			System.out.println("Long live the Almighty Frob!\n\n");
+			if (stoppedBy != null)
+				out.println("Stopped early after " + day + " days: "
+						+ stoppedBy + ".\n");
+			out.println("Long live the Almighty Frob!\n\n");
 			int size = frobBeings.size();
 			double frobPercentageAlive = (double) size / frobCount * 100;
-			System.out
+			out
 					.println("Percentage of Frobs left compared to total Frobs to ever exist:\n--- Frobs still alive = "
 							+ size
 							+ ", Percentage of all Frobs still alive = "
 							+ nf.format(frobPercentageAlive) + "% ---\n");
 
-			int[] metaRates = metabolicRates();
-			System.out
+			double[] metaRates = metabolicRates();
+			out
 					.println("Average metabolic rate and standard deviation of survivors:\n--- Average = "
-							+ metaRates[0]
+							+ nf.format(metaRates[0])
 							+ ", Standard Deviation = "
-							+ metaRates[1] + " ---\n");
+							+ nf.format(metaRates[1]) + " ---\n");
+
+			out.println("Traits of survivors:\n--- Update period: "
+					+ survivors.getUpdatePeriod() + "\n--- Starting mass: "
+					+ survivors.getStartingMass() + "\n--- Birth mass: "
+					+ survivors.getBirthMass() + "\n--- Birth percent: "
+					+ survivors.getBirthPercent() + " ---\n");
 
 			double avgDistance = (double) totalFrobHops / frobCount;
-			System.out.println("Average distance travelled: \n--- "
+			out.println("Average distance travelled: \n--- "
 					+ nf.format(avgDistance) + " hops ---\n");
 
-			System.out.println("Generations past:\n--- " + deepestGeneration
+			out.println("Generations past:\n--- " + deepestGeneration
 					+ " ---\n");
 
 			double avgGrassConsumption = (double) totalGrassConsumption
 					/ frobCount;
-			System.out
+			out
 					.println("Average amount of grass consumption during Simulation:\n--- "
 							+ nf.format(avgGrassConsumption) + " ---\n");
 
 			String d1 = (taxDeathCount > rockDeathCount) ? "Paying the tax."
 					: "Hitting the rock.";
 			if (d1 == "Paying the tax." && taxDeathCount > frobDeathCount)
-				System.out
+				out
 						.println("Main cause of death:\n--- " + d1 + " ---\n");
 			else if (d1 == "Hitting the rock."
 					&& rockDeathCount > frobDeathCount)
-				System.out
+				out
 						.println("Main cause of death:\n--- " + d1 + " ---\n");
 			else
-				System.out
+				out
 						.println("Main cause of death:\n--- Death by Frob! ---\n");
 		}
 	}
@@ -562,52 +816,392 @@ public final class World extends JPanel implements ActionListener {
 	 * of a given simulation.
 	 */
 	public void runSimulation() {
+		if (batchDays) {
+			runDay();
+			return;
+		}
+		DayEvent dayEvent = new DayEvent();
+		dayEvent.begin();
+		long turns = events;
 		boolean dayComplete = false;
 		while (!dayComplete) {
 			if (frobBeings.size() == 0) {
 				extinct = true;
 				return;
 			}
-			if (((Being) grassBeings.top()).getNextUpdate() == day) {
-				Being life = (Being) grassBeings.remove();
-				if (life != null && life.getMass() > 0) {
-					doAction(life);
-				} else
-					grid[life.getLocation().x][life.getLocation().y] = null;
-			}
-			if (((Being) frobBeings.top()).getNextUpdate() == day) {
-				Being life = (Being) frobBeings.remove();
-				if (life != null && life.getMass() > 0) {
-					doAction(life);
-				} else
-					grid[life.getLocation().x][life.getLocation().y] = null;
-			}
-			if (((Being) grassBeings.top()).getNextUpdate() != day
-					&& ((Being) frobBeings.top()).getNextUpdate() != day) {
+			if (grassBeings.top().getNextUpdate() == day)
+				runBeing(takeNext(grassBeings));
+			if (frobBeings.top().getNextUpdate() == day)
+				runBeing(takeNext(frobBeings));
+			if (grassBeings.top().getNextUpdate() != day
+					&& frobBeings.top().getNextUpdate() != day) {
 				day++;
+				endOfDay(dayEvent, events - turns);
 				dayComplete = true;
 			}
 		}
 	}
 
+	/**
+	 * The batch version of {@link #runSimulation()}. Everything due today is
+	 * taken off both PQueues at once with {@link PQueue#removeThrough}, all the
+	 * grass acts and then all the frobs act, and this repeats for any beings
+	 * that were born due today until nothing is left for today. A being that
+	 * is due today serves as the bound for everything else due today.
+	 */
+	private void runDay() {
+		DayEvent dayEvent = new DayEvent();
+		dayEvent.begin();
+		long turns = events;
+		while (true) {
+			if (frobBeings.size() == 0) {
+				extinct = true;
+				return;
+			}
+			dueGrass.clear();
+			dueFrobs.clear();
+			Being grass = grassBeings.top(), frob = frobBeings.top();
+			if (grass != null && grass.getNextUpdate() == day)
+				takeDue(grassBeings, grass, dueGrass);
+			if (frob.getNextUpdate() == day)
+				takeDue(frobBeings, frob, dueFrobs);
+			if (dueGrass.isEmpty() && dueFrobs.isEmpty())
+				break;
+			for (int i = 0; i < dueGrass.size(); i++)
+				runBeing(dueGrass.get(i));
+			for (int i = 0; i < dueFrobs.size(); i++)
+				runBeing(dueFrobs.get(i));
+		}
+		day++;
+		endOfDay(dayEvent, events - turns);
+	}
+
+	/**
+	 * Method to put a being onto one of our PQueues.
+	 * 
+	 * @param queue
+	 *            the PQueue
+	 * @param life
+	 *            the being
+	 */
+	private void schedule(PQueue<Being> queue, Being life) {
+		long start = PhaseProfiler.ENABLED ? System.nanoTime() : 0;
+		queue.insert(life);
+		if (PhaseProfiler.ENABLED)
+			profiler.record(Phase.QUEUE_INSERT, start);
+	}
+
+	/**
+	 * Method to take the top being off one of our PQueues.
+	 * 
+	 * @param queue
+	 *            the PQueue
+	 * @return the being
+	 */
+	private Being takeNext(PQueue<Being> queue) {
+		long start = PhaseProfiler.ENABLED ? System.nanoTime() : 0;
+		Being life = queue.remove();
+		if (PhaseProfiler.ENABLED)
+			profiler.record(Phase.QUEUE_REMOVE, start);
+		return life;
+	}
+
+	/**
+	 * Method to take every being due no later than bound off one of our
+	 * PQueues (see {@link PQueue#removeThrough}).
+	 * 
+	 * @param queue
+	 *            the PQueue
+	 * @param bound
+	 *            a being due today
+	 * @param due
+	 *            where to put the beings
+	 */
+	private void takeDue(PQueue<Being> queue, Being bound, List<Being> due) {
+		long start = PhaseProfiler.ENABLED ? System.nanoTime() : 0;
+		queue.removeThrough(bound, due);
+		if (PhaseProfiler.ENABLED)
+			profiler.record(Phase.QUEUE_REMOVE, start);
+	}
+
+	/**
+	 * Method to delete a grass that has been eaten from its PQueue.
+	 * 
+	 * @param grass
+	 *            the grass
+	 */
+	private void unschedule(Grass grass) {
+		died(grass, DeathEvent.EATEN);
+		long start = PhaseProfiler.ENABLED ? System.nanoTime() : 0;
+		grassBeings.delete(grass);
+		if (PhaseProfiler.ENABLED)
+			profiler.record(Phase.QUEUE_DELETE, start);
+	}
+
+	/**
+	 * Method to wrap up a day once it is over: publish our figures, check
+	 * whether we should stop early, send the
+	 * day to Flight Recorder and, when profiling, dump the phase timings if an
+	 * interval has passed.
+	 * 
+	 * @param dayEvent
+	 *            the event begun when the day started
+	 * @param turns
+	 *            how many beings took their turn during the day
+	 */
+	private void endOfDay(DayEvent dayEvent, long turns) {
+		publishDay(false);
+		for (StopCondition condition : stopConditions)
+			if (stoppedBy == null
+					&& condition.shouldStop(day, frobBeings.size(), survivors))
+				stoppedBy = condition;
+		if (PhaseProfiler.ENABLED)
+			profiler.endOfDay(day, profileOut);
+		if (dayEvent.shouldCommit()) {
+			dayEvent.day = day - 1;
+			dayEvent.grass = grassBeings.size();
+			dayEvent.frobs = frobBeings.size();
+			dayEvent.turns = turns;
+			dayEvent.commit();
+		}
+	}
+
+	/**
+	 * Method to send one in every {@link #EVENT_SAMPLE} births to Flight
+	 * Recorder.
+	 * 
+	 * @param child
+	 *            the being just born
+	 */
+	private void born(Being child) {
+		if (++births % EVENT_SAMPLE != 0)
+			return;
+		BirthEvent event = new BirthEvent();
+		if (!event.shouldCommit())
+			return;
+		event.day = day;
+		event.kind = child instanceof Frob ? "frob" : "grass";
+		event.generation = child instanceof Frob ? ((Frob) child).generation
+				: 0;
+		event.sampleWeight = EVENT_SAMPLE;
+		event.commit();
+	}
+
+	/**
+	 * Method to send one in every {@link #EVENT_SAMPLE} deaths to Flight
+	 * Recorder.
+	 * 
+	 * @param life
+	 *            the being that died
+	 * @param cause
+	 *            one of the causes in {@link DeathEvent}
+	 */
+	private void died(Being life, String cause) {
+		if (++deaths % EVENT_SAMPLE != 0)
+			return;
+		DeathEvent event = new DeathEvent();
+		if (!event.shouldCommit())
+			return;
+		event.day = day;
+		event.kind = life instanceof Frob ? "frob" : "grass";
+		event.cause = cause;
+		event.generation = life instanceof Frob ? ((Frob) life).generation
+				: 0;
+		event.sampleWeight = EVENT_SAMPLE;
+		event.commit();
+	}
+
+	/**
+	 * Method to hand our figures to the {@link WorldMonitor}, if we have one.
+	 * 
+	 * @param finished
+	 *            whether the simulation has stopped
+	 */
+	private void publishDay(boolean finished) {
+		if (monitor == null)
+			return;
+		// between days every being in the World is waiting on its PQueue
+		monitor.publish(day, grassBeings.size(), frobBeings.size(), frobCount,
+				taxDeathCount, rockDeathCount, frobDeathCount,
+				deepestGeneration, events, finished);
+	}
+
+	/**
+	 * Method for a {@link Being} that has just come off the top of its PQueue.
+	 * If it still has mass it performs its actions for the day, otherwise it is
+	 * cleared off the grid.
+	 * 
+	 * @param life
+	 *            the being whose turn it is
+	 */
+	private void runBeing(Being life) {
+		events++;
+		if (life.getMass() > 0)
+			doAction(life);
+		else
+			leave(life);
+	}
+
+	/**
+	 * Method for a dead {@link Being} to leave the World for good.
+	 * 
+	 * @param life
+	 *            the being that died
+	 */
+	private void leave(Being life) {
+		setCell(life.getX(), life.getY(), null);
+		if (life instanceof Frob)
+			survivors.remove((Frob) life);
+	}
+
+	/**
+	 * Setter method for whether each day's beings are taken off the PQueues in
+	 * batches (see {@link PQueue#removeThrough}). In a batch, all the grass due
+	 * on a day acts before any of the frobs do, so a given seed plays out
+	 * differently than when grass and frobs take turns.
+	 * 
+	 * @param batch
+	 *            true to run each day in batches
+	 */
+	public void setBatchDays(boolean batch) {
+		this.batchDays = batch;
+	}
+
+	/**
+	 * Setter method for where the grass and frob PQueues of each run come
+	 * from, in place of our kind of PQueue, so that tests can watch what is
+	 * done with them.
+	 * 
+	 * @param factory
+	 *            makes each PQueue, or null to make them of our kind again
+	 */
+	void setQueueFactory(Supplier<PQueue<Being>> factory) {
+		this.queueFactory = factory;
+	}
+
+	/**
+	 * Setter method for the counters the grass and frob PQueues add their work
+	 * to (see {@link PQueue#setStats(PQueueStats)}). They stay attached when
+	 * the World is initiated again, so they cover every run from here on.
+	 * 
+	 * @param grass
+	 *            the counters for the grass PQueue, or null for none
+	 * @param frob
+	 *            the counters for the frob PQueue, or null for none
+	 */
+	public void setQueueStats(PQueueStats grass, PQueueStats frob) {
+		grassBeings.setStats(grass);
+		frobBeings.setStats(frob);
+		grassStats = grass;
+		frobStats = frob;
+	}
+
+	/**
+	 * Setter method for what may stop us before the frobs die out or the last
+	 * day is reached. Each is checked at the end of every day, and the first
+	 * to be met stops us.
+	 * 
+	 * @param conditions
+	 *            the stop conditions, none to always run to the end
+	 */
+	public void setStopConditions(StopCondition... conditions) {
+		this.stopConditions = conditions.clone();
+	}
+
+	/**
+	 * Getter method for the stop condition that stopped us early.
+	 * 
+	 * @return the stop condition, or null if we ran to the end
+	 */
+	public StopCondition getStoppedBy() {
+		return stoppedBy;
+	}
+
+	/**
+	 * Setter method for where the phase timings are dumped every
+	 * {@link PhaseProfiler#INTERVAL} days while we run, which is standard
+	 * output unless set.
+	 * 
+	 * @param out
+	 *            where to dump to
+	 */
+	public void setProfileOut(PrintStream out) {
+		this.profileOut = out;
+	}
+
+	/**
+	 * Setter method for the {@link WorldMonitor} that we publish our figures
+	 * to at the end of each day.
+	 * 
+	 * @param monitor
+	 *            the monitor, or null to stop publishing
+	 */
+	public void setMonitor(WorldMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Getter method for the counters of the grass PQueue.
+	 * 
+	 * @return the counters, or null if the grass PQueue isn't counting
+	 */
+	public PQueueStats getGrassStats() {
+		return grassStats;
+	}
+
+	/**
+	 * Getter method for the counters of the frob PQueue.
+	 * 
+	 * @return the counters, or null if the frob PQueue isn't counting
+	 */
+	public PQueueStats getFrobStats() {
+		return frobStats;
+	}
+
 	/**
 	 * Method to determine the average metabolic rate of surviving Frobs and
-	 * also the standard deviant.
+	 * also its standard deviation. These are kept up to date as Frobs are born
+	 * and die (see {@link #getSurvivorStats()}), so this takes constant time and
+	 * never touches the PQueue.
 	 * 
 	 * @return an array of length two containing the average Frob metabolic rate
-	 *         and standard deviant
+	 *         and its standard deviation
 	 */
-	public int[] metabolicRates() {
-		int avg = 0, stdDev = ((Being) frobBeings.top()).getUpdatePeriod(), fCount = frobBeings
-				.size();
-		while (frobBeings.top() != null) {
-			Being b = (Being) frobBeings.remove();
-			int val = b.getUpdatePeriod();
-			if (Math.abs(avg - val) > Math.abs(avg - stdDev))
-				stdDev = val;
-			avg += val;
-		}
-		return new int[] { avg / fCount, stdDev };
+	public double[] metabolicRates() {
+		TraitStats rates = survivors.getUpdatePeriod();
+		return new double[] { rates.getMean(), rates.getStandardDeviation() };
+	}
+
+	/**
+	 * Method to gather the figures that {@link #printResults()} prints into a
+	 * {@link RunResult}, for summarising many runs together.
+	 * 
+	 * @return the result of the run so far
+	 */
+	public RunResult getResult() {
+		return new RunResult(inSeed, day, extinct, frobCount,
+				frobBeings.size(), deepestGeneration, taxDeathCount,
+				rockDeathCount, frobDeathCount, (double) totalFrobHops
+						/ frobCount, (double) totalGrassConsumption
+						/ frobCount, survivors.getUpdatePeriod().getMean());
+	}
+
+	/**
+	 * Getter method for the constants we were made with.
+	 * 
+	 * @return our configuration
+	 */
+	public WorldConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * Getter method for the traits of every Frob in the World.
+	 * 
+	 * @return the running statistics of their traits
+	 */
+	public SurvivorStats getSurvivorStats() {
+		return survivors;
 	}
 
 	@Override
@@ -666,36 +1260,38 @@ public final class World extends JPanel implements ActionListener {
 	private CentralFrobcessingUnit CentralFrobUnitNorth = new CentralFrobcessingUnit() {
 		@Override
 		public void iHop(Being life) {
-			int x = life.getLocation().x;
-			int y = life.getLocation().y;
+			int x = life.getX();
+			int y = life.getY();
 
-			if (life.neighborhood.n == 0) {
-				life.setLocation(new Point(x, y - 1));
-				grid[x][y] = null;
-				grid[x][y - 1] = life;
+			if (life.north == 0) {
+				life.setLocation(x, y - 1);
+				setCell(x, y, null);
+				setCell(x, y - 1, life);
 				totalFrobHops++;
-			} else if (life.neighborhood.n == 'R') {
+			} else if (life.north == 'R') {
 				int curMass = life.getMass();
 				life.setMass(curMass - ROCK_BUMP_PENALTY);
 				if (life.mass < 0) {
 					rockDeathCount++;
+					died(life, DeathEvent.ROCK);
 					if (((Frob) life).generation > deepestGeneration)
 						deepestGeneration = ((Frob) life).generation;
 				}
-			} else if (life.neighborhood.n == 'G') {
+			} else if (life.north == 'G') {
 				((Frob) life).consume((Grass) grid[x][y - 1]);
 				if (life.mass > life.birthMass)
 					life.mass = life.birthMass;
-				grassBeings.delete((Grass) grid[x][y - 1]);
-				life.setLocation(new Point(x, y - 1));
-				grid[x][y] = null;
-				grid[x][y - 1] = life;
+				unschedule((Grass) grid[x][y - 1]);
+				life.setLocation(x, y - 1);
+				setCell(x, y, null);
+				setCell(x, y - 1, life);
 				totalFrobHops++;
 				totalGrassConsumption++;
 			} else {
 				((Being) grid[x][y - 1]).mass -= FROB_HIT_PENALTY;
 				if (((Being) grid[x][y - 1]).mass < 0) {
 					frobDeathCount++;
+					died((Being) grid[x][y - 1], DeathEvent.FROB);
 					if (((Frob) grid[x][y - 1]).generation > deepestGeneration)
 						deepestGeneration = ((Frob) grid[x][y - 1]).generation;
 				}
@@ -705,16 +1301,16 @@ public final class World extends JPanel implements ActionListener {
 
 		@Override
 		public void checkSurroundings(Being life) {
-			int xLoc = life.getLocation().x;
-			int yLoc = life.getLocation().y;
-			life.neighborhood.north = true;
+			int xLoc = life.getX();
+			int yLoc = life.getY();
+			life.setOccupied(Being.NORTH, true);
 
 			if (grid[xLoc][yLoc - 1] instanceof Grass) {
-				life.neighborhood.n = 'G';
+				life.north = 'G';
 			} else if (grid[xLoc][yLoc - 1] instanceof Rock) {
-				life.neighborhood.n = 'R';
+				life.north = 'R';
 			} else {
-				life.neighborhood.n = 'F';
+				life.north = 'F';
 			}
 		}
 
@@ -724,36 +1320,38 @@ public final class World extends JPanel implements ActionListener {
 	private CentralFrobcessingUnit CentralFrobUnitEast = new CentralFrobcessingUnit() {
 		@Override
 		public void iHop(Being life) {
-			int x = life.getLocation().x;
-			int y = life.getLocation().y;
+			int x = life.getX();
+			int y = life.getY();
 
-			if (life.neighborhood.e == 0) {
-				life.setLocation(new Point(x + 1, y));
-				grid[x][y] = null;
-				grid[x + 1][y] = life;
+			if (life.east == 0) {
+				life.setLocation(x + 1, y);
+				setCell(x, y, null);
+				setCell(x + 1, y, life);
 				totalFrobHops++;
-			} else if (life.neighborhood.e == 'R') {
+			} else if (life.east == 'R') {
 				int curMass = life.getMass();
 				life.setMass(curMass - ROCK_BUMP_PENALTY);
 				if (life.mass < 0) {
 					rockDeathCount++;
+					died(life, DeathEvent.ROCK);
 					if (((Frob) life).generation > deepestGeneration)
 						deepestGeneration = ((Frob) life).generation;
 				}
-			} else if (life.neighborhood.e == 'G') {
+			} else if (life.east == 'G') {
 				((Frob) life).consume((Grass) grid[x + 1][y]);
 				if (life.mass > life.birthMass)
 					life.mass = life.birthMass;
-				grassBeings.delete((Grass) grid[x + 1][y]);
-				life.setLocation(new Point(x + 1, y));
-				grid[x][y] = null;
-				grid[x + 1][y] = life;
+				unschedule((Grass) grid[x + 1][y]);
+				life.setLocation(x + 1, y);
+				setCell(x, y, null);
+				setCell(x + 1, y, life);
 				totalFrobHops++;
 				totalGrassConsumption++;
 			} else {
 				((Being) grid[x + 1][y]).mass -= FROB_HIT_PENALTY;
 				if (((Being) grid[x + 1][y]).mass < 0) {
 					frobDeathCount++;
+					died((Being) grid[x + 1][y], DeathEvent.FROB);
 					if (((Frob) grid[x + 1][y]).generation > deepestGeneration)
 						deepestGeneration = ((Frob) grid[x + 1][y]).generation;
 				}
@@ -763,16 +1361,16 @@ public final class World extends JPanel implements ActionListener {
 
 		@Override
 		public void checkSurroundings(Being life) {
-			int xLoc = life.getLocation().x;
-			int yLoc = life.getLocation().y;
-			life.neighborhood.east = true;
+			int xLoc = life.getX();
+			int yLoc = life.getY();
+			life.setOccupied(Being.EAST, true);
 
 			if (grid[xLoc + 1][yLoc] instanceof Grass) {
-				life.neighborhood.e = 'G';
+				life.east = 'G';
 			} else if (grid[xLoc + 1][yLoc] instanceof Rock) {
-				life.neighborhood.e = 'R';
+				life.east = 'R';
 			} else {
-				life.neighborhood.e = 'F';
+				life.east = 'F';
 			}
 		}
 	};
@@ -781,36 +1379,38 @@ public final class World extends JPanel implements ActionListener {
 	private CentralFrobcessingUnit CentralFrobUnitSouth = new CentralFrobcessingUnit() {
 		@Override
 		public void iHop(Being life) {
-			int x = life.getLocation().x;
-			int y = life.getLocation().y;
+			int x = life.getX();
+			int y = life.getY();
 
-			if (life.neighborhood.s == 0) {
-				life.setLocation(new Point(x, y + 1));
-				grid[x][y] = null;
-				grid[x][y + 1] = life;
+			if (life.south == 0) {
+				life.setLocation(x, y + 1);
+				setCell(x, y, null);
+				setCell(x, y + 1, life);
 				totalFrobHops++;
-			} else if (life.neighborhood.s == 'R') {
+			} else if (life.south == 'R') {
 				int curMass = life.getMass();
 				life.setMass(curMass - ROCK_BUMP_PENALTY);
 				if (life.mass < 0) {
 					rockDeathCount++;
+					died(life, DeathEvent.ROCK);
 					if (((Frob) life).generation > deepestGeneration)
 						deepestGeneration = ((Frob) life).generation;
 				}
-			} else if (life.neighborhood.s == 'G') {
+			} else if (life.south == 'G') {
 				((Frob) life).consume((Grass) grid[x][y + 1]);
 				if (life.mass > life.birthMass)
 					life.mass = life.birthMass;
-				grassBeings.delete((Grass) grid[x][y + 1]);
-				life.setLocation(new Point(x, y + 1));
-				grid[x][y] = null;
-				grid[x][y + 1] = life;
+				unschedule((Grass) grid[x][y + 1]);
+				life.setLocation(x, y + 1);
+				setCell(x, y, null);
+				setCell(x, y + 1, life);
 				totalFrobHops++;
 				totalGrassConsumption++;
 			} else {
 				((Being) grid[x][y + 1]).mass -= FROB_HIT_PENALTY;
 				if (((Being) grid[x][y + 1]).mass < 0) {
 					frobDeathCount++;
+					died((Being) grid[x][y + 1], DeathEvent.FROB);
 					if (((Frob) grid[x][y + 1]).generation > deepestGeneration)
 						deepestGeneration = ((Frob) grid[x][y + 1]).generation;
 				}
@@ -819,16 +1419,16 @@ public final class World extends JPanel implements ActionListener {
 
 		@Override
 		public void checkSurroundings(Being life) {
-			int xLoc = life.getLocation().x;
-			int yLoc = life.getLocation().y;
-			life.neighborhood.south = true;
+			int xLoc = life.getX();
+			int yLoc = life.getY();
+			life.setOccupied(Being.SOUTH, true);
 
 			if (grid[xLoc][yLoc + 1] instanceof Grass) {
-				life.neighborhood.s = 'G';
+				life.south = 'G';
 			} else if (grid[xLoc][yLoc + 1] instanceof Rock) {
-				life.neighborhood.s = 'R';
+				life.south = 'R';
 			} else {
-				life.neighborhood.s = 'F';
+				life.south = 'F';
 			}
 		}
 	};
@@ -837,36 +1437,38 @@ public final class World extends JPanel implements ActionListener {
 	private CentralFrobcessingUnit CentralFrobUnitWest = new CentralFrobcessingUnit() {
 		@Override
 		public void iHop(Being life) {
-			int x = life.getLocation().x;
-			int y = life.getLocation().y;
+			int x = life.getX();
+			int y = life.getY();
 
-			if (life.neighborhood.w == 0) {
-				life.setLocation(new Point(x - 1, y));
-				grid[x][y] = null;
-				grid[x - 1][y] = life;
+			if (life.west == 0) {
+				life.setLocation(x - 1, y);
+				setCell(x, y, null);
+				setCell(x - 1, y, life);
 				totalFrobHops++;
-			} else if (life.neighborhood.w == 'R') {
+			} else if (life.west == 'R') {
 				int curMass = life.getMass();
 				life.setMass(curMass - ROCK_BUMP_PENALTY);
 				if (life.mass < 0) {
 					rockDeathCount++;
+					died(life, DeathEvent.ROCK);
 					if (((Frob) life).generation > deepestGeneration)
 						deepestGeneration = ((Frob) life).generation;
 				}
-			} else if (life.neighborhood.w == 'G') {
+			} else if (life.west == 'G') {
 				((Frob) life).consume((Grass) grid[x - 1][y]);
-				grassBeings.delete((Grass) grid[x - 1][y]);
+				unschedule((Grass) grid[x - 1][y]);
 				if (life.mass > life.birthMass)
 					life.mass = life.birthMass;
-				life.setLocation(new Point(x - 1, y));
-				grid[x][y] = null;
-				grid[x - 1][y] = life;
+				life.setLocation(x - 1, y);
+				setCell(x, y, null);
+				setCell(x - 1, y, life);
 				totalFrobHops++;
 				totalGrassConsumption++;
 			} else {
 				((Being) grid[x - 1][y]).mass -= FROB_HIT_PENALTY;
 				if (((Being) grid[x - 1][y]).mass < 0) {
 					frobDeathCount++;
+					died((Being) grid[x - 1][y], DeathEvent.FROB);
 					if (((Frob) grid[x - 1][y]).generation > deepestGeneration)
 						deepestGeneration = ((Frob) grid[x - 1][y]).generation;
 				}
@@ -875,16 +1477,16 @@ public final class World extends JPanel implements ActionListener {
 
 		@Override
 		public void checkSurroundings(Being life) {
-			int xLoc = life.getLocation().x;
-			int yLoc = life.getLocation().y;
-			life.neighborhood.west = true;
+			int xLoc = life.getX();
+			int yLoc = life.getY();
+			life.setOccupied(Being.WEST, true);
 
 			if (grid[xLoc - 1][yLoc] instanceof Grass) {
-				life.neighborhood.w = 'G';
+				life.west = 'G';
 			} else if (grid[xLoc - 1][yLoc] instanceof Rock) {
-				life.neighborhood.w = 'R';
+				life.west = 'R';
 			} else {
-				life.neighborhood.w = 'F';
+				life.west = 'F';
 			}
 		}
 	};
@@ -917,17 +1519,17 @@ public final class World extends JPanel implements ActionListener {
 	private GrassNeighborhoodWatch WatchmenNorth = new GrassNeighborhoodWatch() {
 		@Override
 		public int checkSurroundings(Being life) {
-			int xLoc = life.getLocation().x;
-			int yLoc = life.getLocation().y;
+			int xLoc = life.getX();
+			int yLoc = life.getY();
 
 			if (grid[xLoc][yLoc - 1] != null) {
-				life.neighborhood.north = true;
+				life.setOccupied(Being.NORTH, true);
 				if (grid[xLoc][yLoc - 1] instanceof Grass) {
-					life.neighborhood.n = 'G';
+					life.north = 'G';
 					return 1;
 				}
 			} else
-				life.neighborhood.north = false;
+				life.setOccupied(Being.NORTH, false);
 			return 0;
 		}
 	};
@@ -936,17 +1538,17 @@ public final class World extends JPanel implements ActionListener {
 	private GrassNeighborhoodWatch WatchmenEast = new GrassNeighborhoodWatch() {
 		@Override
 		public int checkSurroundings(Being life) {
-			int xLoc = life.getLocation().x;
-			int yLoc = life.getLocation().y;
+			int xLoc = life.getX();
+			int yLoc = life.getY();
 
 			if (grid[xLoc + 1][yLoc] != null) {
-				life.neighborhood.east = true;
+				life.setOccupied(Being.EAST, true);
 				if (grid[xLoc + 1][yLoc] instanceof Grass) {
-					life.neighborhood.e = 'G';
+					life.east = 'G';
 					return 1;
 				}
 			} else
-				life.neighborhood.east = false;
+				life.setOccupied(Being.EAST, false);
 			return 0;
 		}
 	};
@@ -955,17 +1557,17 @@ public final class World extends JPanel implements ActionListener {
 	private GrassNeighborhoodWatch WatchmenSouth = new GrassNeighborhoodWatch() {
 		@Override
 		public int checkSurroundings(Being life) {
-			int xLoc = life.getLocation().x;
-			int yLoc = life.getLocation().y;
+			int xLoc = life.getX();
+			int yLoc = life.getY();
 
 			if (grid[xLoc][yLoc + 1] != null) {
-				life.neighborhood.south = true;
+				life.setOccupied(Being.SOUTH, true);
 				if (grid[xLoc][yLoc + 1] instanceof Grass) {
-					life.neighborhood.s = 'G';
+					life.south = 'G';
 					return 1;
 				}
 			} else
-				life.neighborhood.south = false;
+				life.setOccupied(Being.SOUTH, false);
 			return 0;
 		}
 	};
@@ -974,18 +1576,18 @@ public final class World extends JPanel implements ActionListener {
 	private GrassNeighborhoodWatch WatchmenWest = new GrassNeighborhoodWatch() {
 		@Override
 		public int checkSurroundings(Being life) {
-			int xLoc = life.getLocation().x;
-			int yLoc = life.getLocation().y;
+			int xLoc = life.getX();
+			int yLoc = life.getY();
 
 			if (grid[xLoc - 1][yLoc] != null) {
-				life.neighborhood.west = true;
+				life.setOccupied(Being.WEST, true);
 				if (grid[xLoc - 1][yLoc] instanceof Grass) {
-					life.neighborhood.w = 'G';
+					life.west = 'G';
 					return 1;
 				}
 
 			} else
-				life.neighborhood.west = false;
+				life.setOccupied(Being.WEST, false);
 			return 0;
 		}
 	};
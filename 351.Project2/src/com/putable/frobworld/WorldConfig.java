@@ -0,0 +1,195 @@
+package com.putable.frobworld;
+
+import java.util.Arrays;
+
+/**
+ * The constants that shape a {@link World}: penalties, starting populations,
+ * masses, update periods, taxes and the odds of mutation. A WorldConfig never
+ * changes once made; {@link #with(Parameter, int)} makes a copy with one
+ * constant changed, so configurations for a {@link Sweep} can be built up
+ * from {@link #DEFAULT}.
+ * 
+ * <p>
+ * WorldConfigs with the same constants are equal, and
+ * {@link #toString()} lists only the constants that differ from the
+ * defaults, so the default configuration prints as an empty string.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+public final class WorldConfig {
+	/**
+	 * The constants a WorldConfig holds, each with its default and the
+	 * smallest and largest values that make sense for it.
+	 */
+	public enum Parameter {
+		/** Time to quit even if frobs still live. */
+		MAX_SIMULATION_LENGTH(25000, 1, Integer.MAX_VALUE),
+		/** Mass penalty when Frob hits Rock. */
+		ROCK_BUMP_PENALTY(30, 0, Integer.MAX_VALUE),
+		/** Mass penalty (of hittee) when Frob hits Frob. */
+		FROB_HIT_PENALTY(10, 0, Integer.MAX_VALUE),
+		/** Number of Frobs in initial world. */
+		INIT_FROBS(50, 0, 2000),
+		/** Number of Grasses in initial world. */
+		INIT_GRASSES(250, 0, 2000),
+		/** Grass fixed mass cost per action. */
+		GRASS_FIXED_OVERHEAD(0, 0, Integer.MAX_VALUE),
+		/** Initial Grass mass. */
+		GRASS_GENESIS_MASS(10, 1, Integer.MAX_VALUE),
+		/** Mass at which Grasses wish to split. */
+		GRASS_BIRTH_MASS(30, 1, Integer.MAX_VALUE),
+		/** Days between Grass activities. */
+		GRASS_INITIAL_UPDATE_PERIOD(10, 1, Integer.MAX_VALUE),
+		/** 4-neighborhood Grass count for no splitting. */
+		GRASS_CROWD_LIMIT(2, 0, 4),
+		/** Max inactive days on failed splitting. */
+		GRASS_MAX_UPDATE_PERIOD(100, 1, Integer.MAX_VALUE),
+		/** Percent of mass given to offspring at split. */
+		GRASS_BIRTH_PERCENT(40, 0, 100),
+		/** Frob fixed mass cost per action. */
+		FROB_FIXED_OVERHEAD(2, 0, Integer.MAX_VALUE),
+		/** Initial Frob mass. */
+		FROB_GENESIS_MASS(100, 1, Integer.MAX_VALUE),
+		/** 1-in-this chance of a bit flip per byte. */
+		DNA_MUTATION_ODDS_PER_BYTE(20, 1, Integer.MAX_VALUE),
+		/** Grass mass loss per day, in thousandths. */
+		GRASS_MASS_TAX_MILLS(-200, Integer.MIN_VALUE, Integer.MAX_VALUE),
+		/** Frob mass loss per day, in thousandths. */
+		FROB_MASS_TAX_MILLS(100, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+		private final int defaultValue, min, max;
+
+		private Parameter(int defaultValue, int min, int max) {
+			this.defaultValue = defaultValue;
+			this.min = min;
+			this.max = max;
+		}
+
+		/**
+		 * Getter method for the value this constant has unless changed.
+		 * 
+		 * @return the default
+		 */
+		public int getDefault() {
+			return defaultValue;
+		}
+
+		/**
+		 * Method to check a value for this constant.
+		 * 
+		 * @param value
+		 *            the value
+		 * @throws IllegalArgumentException
+		 *             If the value makes no sense for this constant
+		 */
+		public void check(int value) {
+			if (value < min || value > max)
+				throw new IllegalArgumentException(this + " must be from "
+						+ min + " to " + max + ", not " + value);
+		}
+	}
+
+	/**
+	 * The configuration Frob World has always run with.
+	 */
+	public static final WorldConfig DEFAULT;
+	static {
+		int[] defaults = new int[Parameter.values().length];
+		for (Parameter p : Parameter.values())
+			defaults[p.ordinal()] = p.getDefault();
+		DEFAULT = new WorldConfig(defaults);
+	}
+
+	// the value of each constant, by ordinal
+	private final int[] values;
+
+	private WorldConfig(int[] values) {
+		this.values = values;
+	}
+
+	/**
+	 * Getter method for one constant.
+	 * 
+	 * @param p
+	 *            the constant
+	 * @return its value
+	 */
+	public int get(Parameter p) {
+		return values[p.ordinal()];
+	}
+
+	/**
+	 * Method to make a copy of this configuration with one constant changed.
+	 * 
+	 * @param p
+	 *            the constant
+	 * @param value
+	 *            its new value
+	 * @return the copy, or this configuration if the value is unchanged
+	 * @throws IllegalArgumentException
+	 *             If the value makes no sense for the constant
+	 */
+	public WorldConfig with(Parameter p, int value) {
+		p.check(value);
+		if (values[p.ordinal()] == value)
+			return this;
+		int[] copy = values.clone();
+		copy[p.ordinal()] = value;
+		return new WorldConfig(copy);
+	}
+
+	/**
+	 * Method to make a copy of this configuration with the constants listed
+	 * in a string changed, as <code>NAME=value</code> pairs separated by
+	 * commas. This is the form {@link #toString()} writes.
+	 * 
+	 * @param changes
+	 *            the changes, such as
+	 *            <code>ROCK_BUMP_PENALTY=40,INIT_FROBS=80</code>
+	 * @return the copy
+	 * @throws IllegalArgumentException
+	 *             If a change can't be understood or makes no sense
+	 */
+	public WorldConfig with(String changes) {
+		WorldConfig config = this;
+		for (String change : changes.split(",")) {
+			if (change.trim().isEmpty())
+				continue;
+			String[] f = change.split("=");
+			if (f.length != 2)
+				throw new IllegalArgumentException("bad constant " + change);
+			try {
+				config = config.with(Parameter.valueOf(f[0].trim()
+						.toUpperCase()), Integer.parseInt(f[1].trim()));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("bad constant " + change, e);
+			}
+		}
+		return config;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof WorldConfig
+				&& Arrays.equals(values, ((WorldConfig) o).values);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(values);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Parameter p : Parameter.values()) {
+			if (get(p) == p.getDefault())
+				continue;
+			if (sb.length() > 0)
+				sb.append(',');
+			sb.append(p).append('=').append(get(p));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,216 @@
+package com.putable.frobworld;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Live statistics of a running {@link World}, for watching long runs over JMX.
+ * Once handed a WorldMonitor with {@link World#setMonitor(WorldMonitor)}, the
+ * World publishes an immutable snapshot of its figures at the end of every
+ * day. Publishing is a single volatile write, so the simulation never waits
+ * on whoever is reading, and a reader always sees every figure from the same
+ * day.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class WorldMonitor implements WorldMonitorMBean {
+	// the JMX domain that WorldMonitors are registered under
+	private static final String DOMAIN = "com.putable.frobworld";
+	// how long, in nanoseconds, events are counted over to find their rate
+	private static final long RATE_WINDOW = 1000000000L;
+	// the seed value of the World being watched
+	private final int seed;
+	// the most recently published figures
+	private volatile Snapshot latest;
+	// where the current rate window started, only touched by the World's
+	// thread
+	private long windowStart, windowEvents;
+	// the last rate measured over a whole window, or -1 if there isn't one
+	private double lastRate = -1;
+
+	/**
+	 * The figures of a World at the end of one day. Never changes once made,
+	 * so it can be handed between threads freely.
+	 */
+	private static final class Snapshot {
+		final int day, grass, frobs, born, taxDeaths, rockDeaths, frobDeaths,
+				deepestGeneration;
+		final long events, time;
+		final double eventsPerSecond;
+		final boolean finished;
+
+		Snapshot(int day, int grass, int frobs, int born, int taxDeaths,
+				int rockDeaths, int frobDeaths, int deepestGeneration,
+				long events, long time, double eventsPerSecond,
+				boolean finished) {
+			this.day = day;
+			this.grass = grass;
+			this.frobs = frobs;
+			this.born = born;
+			this.taxDeaths = taxDeaths;
+			this.rockDeaths = rockDeaths;
+			this.frobDeaths = frobDeaths;
+			this.deepestGeneration = deepestGeneration;
+			this.events = events;
+			this.time = time;
+			this.eventsPerSecond = eventsPerSecond;
+			this.finished = finished;
+		}
+	}
+
+	/**
+	 * Constructor for a WorldMonitor. Until the World publishes its first day
+	 * every figure is 0.
+	 *
+	 * @param seed
+	 *            the seed value of the World to be watched
+	 */
+	public WorldMonitor(int seed) {
+		this.seed = seed;
+		windowStart = System.nanoTime();
+		latest = new Snapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, windowStart, 0,
+				false);
+	}
+
+	/**
+	 * Method for the World to publish its figures at the end of a day. Must
+	 * only be called from the thread running the World.
+	 *
+	 * @param day
+	 *            the day the World is on
+	 * @param grass
+	 *            how many grasses are in the World
+	 * @param frobs
+	 *            how many frobs are in the World
+	 * @param born
+	 *            how many frobs have been put into the World
+	 * @param taxDeaths
+	 *            how many frobs died paying the tax
+	 * @param rockDeaths
+	 *            how many frobs died running into rocks
+	 * @param frobDeaths
+	 *            how many frobs died running into other frobs
+	 * @param deepestGeneration
+	 *            the deepest generation of frob to have died
+	 * @param events
+	 *            how many beings have taken their turn
+	 * @param finished
+	 *            whether the World has stopped
+	 */
+	void publish(int day, int grass, int frobs, int born, int taxDeaths,
+			int rockDeaths, int frobDeaths, int deepestGeneration,
+			long events, boolean finished) {
+		long now = System.nanoTime();
+		long elapsed = now - windowStart;
+		double rate;
+		if (elapsed >= RATE_WINDOW) {
+			rate = lastRate = (events - windowEvents) * 1e9 / elapsed;
+			windowStart = now;
+			windowEvents = events;
+		} else if (lastRate >= 0)
+			rate = lastRate;
+		else
+			// still in the first window, so make do with what we have
+			rate = elapsed == 0 ? 0 : (events - windowEvents) * 1e9 / elapsed;
+		latest = new Snapshot(day, grass, frobs, born, taxDeaths, rockDeaths,
+				frobDeaths, deepestGeneration, events, now, rate, finished);
+	}
+
+	/**
+	 * Method to publish this WorldMonitor in the platform MBean server as
+	 * <code>com.putable.frobworld:type=World,name=</code><i>name</i>. Anything
+	 * already registered under that name is replaced.
+	 *
+	 * @param name
+	 *            which World this is
+	 * @return the name it was registered under
+	 * @throws JMException
+	 *             if the name is malformed or the MBean server refuses it
+	 */
+	public ObjectName register(String name) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName(DOMAIN + ":type=World,name="
+				+ ObjectName.quote(name));
+		if (server.isRegistered(objectName))
+			server.unregisterMBean(objectName);
+		server.registerMBean(this, objectName);
+		return objectName;
+	}
+
+	@Override
+	public int getSeed() {
+		return seed;
+	}
+
+	@Override
+	public int getDay() {
+		return latest.day;
+	}
+
+	@Override
+	public int getGrassPopulation() {
+		return latest.grass;
+	}
+
+	@Override
+	public int getFrobPopulation() {
+		return latest.frobs;
+	}
+
+	@Override
+	public int getFrobsBorn() {
+		return latest.born;
+	}
+
+	@Override
+	public int getTaxDeaths() {
+		return latest.taxDeaths;
+	}
+
+	@Override
+	public int getRockDeaths() {
+		return latest.rockDeaths;
+	}
+
+	@Override
+	public int getFrobDeaths() {
+		return latest.frobDeaths;
+	}
+
+	@Override
+	public int getDeepestGeneration() {
+		return latest.deepestGeneration;
+	}
+
+	@Override
+	public long getEvents() {
+		return latest.events;
+	}
+
+	@Override
+	public double getEventsPerSecond() {
+		return latest.eventsPerSecond;
+	}
+
+	@Override
+	public double getSecondsSinceLastDay() {
+		return (System.nanoTime() - latest.time) / 1e9;
+	}
+
+	@Override
+	public boolean isFinished() {
+		return latest.finished;
+	}
+
+	@Override
+	public String toString() {
+		Snapshot s = latest;
+		return "day = " + s.day + ", grass = " + s.grass + ", frobs = "
+				+ s.frobs + ", events = " + s.events + ", events/sec = "
+				+ String.format("%.0f", s.eventsPerSecond);
+	}
+}
@@ -0,0 +1,82 @@
+package com.putable.frobworld;
+
+/**
+ * The management interface of {@link WorldMonitor}, so a running
+ * {@link World} can be watched over JMX (with jconsole, for instance). Every
+ * value comes from the snapshot the World published at the end of its most
+ * recent day.
+ *
+ * @author Brennan Collins
+ *
+ */
+public interface WorldMonitorMBean {
+	/**
+	 * @return the seed value the World is running on
+	 */
+	int getSeed();
+
+	/**
+	 * @return the day the World is on
+	 */
+	int getDay();
+
+	/**
+	 * @return how many grasses are in the World, which is also the size of
+	 *         the grass PQueue
+	 */
+	int getGrassPopulation();
+
+	/**
+	 * @return how many frobs are in the World, which is also the size of the
+	 *         frob PQueue
+	 */
+	int getFrobPopulation();
+
+	/**
+	 * @return how many frobs have ever been put into the World
+	 */
+	int getFrobsBorn();
+
+	/**
+	 * @return how many frobs died paying the tax
+	 */
+	int getTaxDeaths();
+
+	/**
+	 * @return how many frobs died running into rocks
+	 */
+	int getRockDeaths();
+
+	/**
+	 * @return how many frobs died running into other frobs
+	 */
+	int getFrobDeaths();
+
+	/**
+	 * @return the deepest generation of frob to have died
+	 */
+	int getDeepestGeneration();
+
+	/**
+	 * @return how many beings have taken their turn
+	 */
+	long getEvents();
+
+	/**
+	 * @return how many beings took their turn per second, over the last
+	 *         second or so of running
+	 */
+	double getEventsPerSecond();
+
+	/**
+	 * @return how many seconds ago the World finished its last day, which
+	 *         keeps growing if the World stalls
+	 */
+	double getSecondsSinceLastDay();
+
+	/**
+	 * @return true once the World has stopped, because the frobs died out or
+	 *         the simulation reached its last day
+	 */
+	boolean isFinished();
+}
@@ -50,15 +50,15 @@ public abstract class AbstractPQAble implements PQAble {
     /**
      * The PQueue that we are on, or null if we are not on a pqueue.
      */
-    private PQueue pqueue = null;
+    private PQueue<?> pqueue = null;
 
     @Override
-    public PQueue getPQueue() {
+    public PQueue<?> getPQueue() {
         return pqueue;
     }
 
     @Override
-    public void setPQueue(PQueue pq) {
+    public void setPQueue(PQueue<?> pq) {
         pqueue = pq;
     }
 }
@@ -12,8 +12,11 @@ import java.util.Random;
 public class ConcretePQAble extends AbstractPQAble {
 	// fields for next updates and update periods
 	private int nextUpdate, updatePeriod;
+	// a random number generator shared by every PQAble that hasn't been handed
+	// one of its own, so that constructing a PQAble doesn't allocate one
+	private static final Random SHARED_RAND = new Random();
 	// a random number generator for setting updates
-	public Random rand = new Random();
+	public Random rand = SHARED_RAND;
 
 	/**
 	 * Setter method for changing how long a PQAble's update period is.
@@ -56,6 +59,17 @@ public class ConcretePQAble extends AbstractPQAble {
 		nextUpdate = ((rand.nextInt(25000) + 1) % updatePeriod) + day;
 	}
 
+	/**
+	 * Setter method for when our next update is. Must not be called while
+	 * this PQAble is located on a PQueue.
+	 * 
+	 * @param next
+	 *            the day of the next update
+	 */
+	public void setNextUpdate(int next) {
+		this.nextUpdate = next;
+	}
+
 	/**
 	 * Getter method for when our next update is.
 	 * 
@@ -65,15 +79,22 @@ public class ConcretePQAble extends AbstractPQAble {
 		return nextUpdate;
 	}
 
+	/**
+	 * Method to get the next update of a PQAble that is a ConcretePQAble. This
+	 * is the key that the PQueues ordering by a primitive key use when they
+	 * aren't given one, and it orders PQAbles the same way as compareTo.
+	 * 
+	 * @param p
+	 *            a ConcretePQAble
+	 * @return its next update
+	 */
+	public static long nextUpdateOf(PQAble p) {
+		return ((ConcretePQAble) p).nextUpdate;
+	}
+
 	@Override
 	public int compareTo(PQAble p) throws ClassCastException {
-		final int LV = -1, EQ = 0, GV = 1;
-		if (this.nextUpdate < ((ConcretePQAble) p).getNextUpdate())
-			return LV;
-		else if (nextUpdate == ((ConcretePQAble) p).getNextUpdate())
-			return EQ;
-		else
-			return GV;
+		return Integer.compare(nextUpdate, ((ConcretePQAble) p).nextUpdate);
 	}
 
 }
@@ -0,0 +1,233 @@
+package com.putable.pqueue;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe implementation of {@link PQueue}, for schedulers that are
+ * shared between threads. The PQAbles are kept in a lock-free skip list
+ * ({@link ConcurrentSkipListSet}), ordered by a primitive key (by default a
+ * {@link ConcretePQAble}'s next update) with ties going to whichever PQAble
+ * was inserted first. Each PQAble's index holds its insertion sequence number,
+ * which is what makes every PQAble distinct in the skip list and lets
+ * {@link #delete(PQAble)} find it in O(log |PQueue|) expected time.
+ *
+ * <p>
+ * {@link #insert(PQAble)}, {@link #remove()}, {@link #delete(PQAble)} and
+ * {@link #top()} are each linearizable: every call appears to take effect at
+ * a single instant, and remove() always hands out the highest priority PQAble
+ * on the PQueue at that instant. No PQAble is ever handed out twice, and a
+ * delete that races with a remove of the same PQAble fails with an
+ * IllegalStateException in exactly one of them. Everything else is weaker:
+ * <ul>
+ * <li>{@link #removeThrough(PQAble, List)} is a series of linearizable
+ * removes, not one atomic operation, so PQAbles inserted by other threads
+ * while it runs may or may not be taken, and the buffer is only in priority
+ * order if nobody else is removing at the same time.</li>
+ * <li>{@link #size()} is exact when the PQueue is quiet. While other threads
+ * are inserting or removing it may count PQAbles that are halfway in or
+ * halfway out, but it is never negative.</li>
+ * <li>Walking through the PQueue ({@link #forEach}, {@link #stream()} and so
+ * on) is weakly consistent: it is safe while other threads modify the PQueue,
+ * never visits a PQAble twice, and visits everything that stays on the PQueue
+ * for the whole walk.</li>
+ * </ul>
+ *
+ * <p>
+ * Its work can be counted ({@link #setStats(PQueueStats)}) from every thread
+ * at once without losing counts. A skip list never sifts or resizes, so only
+ * inserts, removes, deletes and comparisons are counted.
+ *
+ * <p>
+ * The PQueue takes care of its own thread safety, not of the PQAbles': any
+ * one PQAble must only be handed to one thread's insert or delete at a time,
+ * and its key must not change while it is located on the PQueue.
+ *
+ * @author Brennan Collins
+ *
+ * @param <T>
+ *            the type of PQAble held by the PQueue
+ */
+public class ConcurrentPQueue<T extends PQAble> implements PQueue<T> {
+	// the PQAbles in priority order
+	private final ConcurrentSkipListSet<T> set;
+	// the priority of each PQAble
+	private final ToLongFunction<? super T> key;
+	// the sequence number for the next PQAble inserted
+	private final AtomicInteger sequence = new AtomicInteger();
+	// how many PQAbles are inside of our PQueue
+	private final AtomicInteger count = new AtomicInteger();
+	// where to count our work, or null to not count it
+	private volatile PQueueStats stats;
+	// the counters of stats that every thread adds to, or null
+	private volatile PQueueStats.Shared counters;
+
+	/**
+	 * Default constructor for our PQueue, which orders ConcretePQAbles by
+	 * their next update.
+	 */
+	public ConcurrentPQueue() {
+		this(ConcretePQAble::nextUpdateOf);
+	}
+
+	/**
+	 * Constructor for a PQueue that orders its PQAbles by something other than
+	 * their next update. Lower keys come out first.
+	 *
+	 * @param key
+	 *            the priority of each PQAble, which must agree with its
+	 *            compareTo and must not change while it is on the PQueue
+	 */
+	public ConcurrentPQueue(final ToLongFunction<? super T> key) {
+		if (key == null)
+			throw new NullPointerException();
+		this.key = key;
+		this.set = new ConcurrentSkipListSet<T>(new Comparator<T>() {
+			@Override
+			public int compare(T a, T b) {
+				PQueueStats.Shared s = counters;
+				if (s != null)
+					s.comparisons.increment();
+				int c = Long.compare(key.applyAsLong(a), key.applyAsLong(b));
+				return c != 0 ? c : Integer.compare(a.getIndex(), b.getIndex());
+			}
+		});
+	}
+
+	@Override
+	public T remove() {
+		T top = set.pollFirst();
+		if (top == null)
+			return null;
+		count.decrementAndGet();
+		top.setPQueue(null);
+		PQueueStats.Shared s = counters;
+		if (s != null)
+			s.removes.increment();
+		return top;
+	}
+
+	@Override
+	public T top() {
+		try {
+			return set.first();
+		} catch (NoSuchElementException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * Each PQAble is taken off with its own linearizable remove, so this is
+	 * not atomic when other threads are using the PQueue at the same time.
+	 */
+	@Override
+	public int removeThrough(T bound, List<? super T> buffer) {
+		if (bound == null || buffer == null)
+			throw new NullPointerException();
+		long limit = key.applyAsLong(bound);
+		int removed = 0;
+		for (T p = top(); p != null && key.applyAsLong(p) <= limit; p = top()) {
+			// somebody else may have gotten to p first
+			if (set.remove(p)) {
+				count.decrementAndGet();
+				p.setPQueue(null);
+				buffer.add(p);
+				removed++;
+			}
+		}
+		PQueueStats.Shared s = counters;
+		if (s != null)
+			s.removes.add(removed);
+		return removed;
+	}
+
+	@Override
+	public void insert(T p) {
+		if (p == null)
+			throw new NullPointerException();
+		if (p.getPQueue() != null)
+			throw new IllegalStateException();
+		p.setPQueue(this);
+		count.incrementAndGet();
+		// a sequence number can only be taken twice after it wraps around, in
+		// which case we just take another
+		do
+			p.setIndex(sequence.getAndIncrement());
+		while (!set.add(p));
+		PQueueStats.Shared s = counters;
+		if (s != null)
+			s.inserts.increment();
+	}
+
+	@Override
+	public void delete(T p) {
+		if (p == null)
+			throw new NullPointerException();
+		if (p.getPQueue() != this || !set.remove(p))
+			throw new IllegalStateException();
+		count.decrementAndGet();
+		p.setPQueue(null);
+		PQueueStats.Shared s = counters;
+		if (s != null)
+			s.deletes.increment();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The Spliterator is weakly consistent, and visits PQAbles in priority
+	 * order. Other threads may keep using the PQueue while it is walked.
+	 */
+	@Override
+	public Spliterator<T> spliterator() {
+		return set.spliterator();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * Any thread may start or stop the counting, and operations already under
+	 * way when it does may or may not be counted.
+	 */
+	@Override
+	public void setStats(PQueueStats stats) {
+		this.counters = stats == null ? null : stats.shared();
+		this.stats = stats;
+	}
+
+	@Override
+	public PQueueStats getStats() {
+		return stats;
+	}
+
+	@Override
+	public int size() {
+		return count.get();
+	}
+
+	@Override
+	public boolean isAdvanced() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (T p : set) {
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append(key.applyAsLong(p));
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,331 @@
+package com.putable.pqueue;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for ConcurrentPQueue. Besides the usual single threaded checks,
+ * many threads at a time insert, remove and delete PQAbles on one PQueue, and
+ * afterwards every PQAble must be accounted for exactly once. The throughput
+ * test prints how many operations per millisecond the PQueue manages from 1
+ * up to 64 threads.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class ConcurrentPQueueTest {
+	// the most threads to run at once
+	private static final int MAX_THREADS = 64;
+
+	/**
+	 * Method to make a PQAble with a random next update.
+	 *
+	 * @param rand
+	 *            random number generator
+	 * @return a new PQAble
+	 */
+	public ConcretePQAble make(Random rand) {
+		ConcretePQAble c = new ConcretePQAble();
+		c.setNextUpdate(rand.nextInt(1000));
+		return c;
+	}
+
+	/**
+	 * Method to start some threads all at once and wait for them to finish.
+	 *
+	 * @param threads
+	 *            how many threads to run
+	 * @param work
+	 *            what each thread does, given its thread number
+	 * @return how long the threads took, in milliseconds
+	 */
+	public long runThreads(int threads, final Work work) {
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicBoolean failed = new AtomicBoolean();
+		List<Thread> all = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						work.run(id);
+					} catch (Throwable e) {
+						e.printStackTrace();
+						failed.set(true);
+					}
+				}
+			};
+			thread.start();
+			all.add(thread);
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Thread thread : all) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		assertTrue(!failed.get());
+		return (System.nanoTime() - begin) / 1000000;
+	}
+
+	/**
+	 * What one thread of a test does.
+	 */
+	public interface Work {
+		/**
+		 * @param id
+		 *            which thread this is
+		 */
+		void run(int id);
+	}
+
+	@Test
+	public void testOrder() {
+		Random rand = new Random(1);
+		PQueue<ConcretePQAble> p = new ConcurrentPQueue<ConcretePQAble>();
+		List<ConcretePQAble> all = new ArrayList<ConcretePQAble>();
+		for (int i = 0; i < 2000; i++) {
+			ConcretePQAble c = make(rand);
+			p.insert(c);
+			all.add(c);
+		}
+		for (int i = 0; i < 1000; i += 2)
+			p.delete(all.get(i));
+		assertTrue(p.size() == 1500);
+		int last = -1;
+		while (p.top() != null) {
+			ConcretePQAble c = p.remove();
+			assertTrue(c.getPQueue() == null);
+			assertTrue(c.getNextUpdate() >= last);
+			last = c.getNextUpdate();
+		}
+		assertTrue(p.size() == 0);
+		assertTrue(p.remove() == null);
+	}
+
+	@Test
+	public void testTiesFirstInFirstOut() {
+		PQueue<ConcretePQAble> p = new ConcurrentPQueue<ConcretePQAble>();
+		List<ConcretePQAble> all = new ArrayList<ConcretePQAble>();
+		for (int i = 0; i < 100; i++) {
+			ConcretePQAble c = new ConcretePQAble();
+			c.setNextUpdate(7);
+			p.insert(c);
+			all.add(c);
+		}
+		for (int i = 0; i < 100; i++)
+			assertTrue(p.remove() == all.get(i));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void insertIllegalStateTest() {
+		PQueue<ConcretePQAble> pq1 = new ConcurrentPQueue<ConcretePQAble>();
+		PQueue<ConcretePQAble> pq2 = new ConcurrentPQueue<ConcretePQAble>();
+		ConcretePQAble p = new ConcretePQAble();
+		pq1.insert(p);
+		pq2.insert(p);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void deleteIllegalStateTest() {
+		PQueue<ConcretePQAble> pq1 = new ConcurrentPQueue<ConcretePQAble>();
+		PQueue<ConcretePQAble> pq2 = new ConcurrentPQueue<ConcretePQAble>();
+		ConcretePQAble p = new ConcretePQAble();
+		pq1.insert(p);
+		pq2.delete(p);
+	}
+
+	/**
+	 * Every thread inserts its own PQAbles, deletes some of them, and removes
+	 * whatever is on top. Each thread keeps track of what it inserted, deleted
+	 * and removed, and at the end everything inserted must have been deleted,
+	 * removed or still be on the PQueue, exactly once.
+	 */
+	@Test
+	public void testStress() {
+		final int threads = 32, rounds = 20000;
+		final PQueue<ConcretePQAble> p = new ConcurrentPQueue<ConcretePQAble>();
+		// what each thread inserted, and what it took back off
+		final List<List<ConcretePQAble>> inserted, taken;
+		inserted = new ArrayList<List<ConcretePQAble>>();
+		taken = new ArrayList<List<ConcretePQAble>>();
+		for (int t = 0; t < threads; t++) {
+			inserted.add(new ArrayList<ConcretePQAble>());
+			taken.add(new ArrayList<ConcretePQAble>());
+		}
+		runThreads(threads, new Work() {
+			@Override
+			public void run(int id) {
+				Random rand = new Random(id);
+				List<ConcretePQAble> mine = inserted.get(id);
+				List<ConcretePQAble> out = taken.get(id);
+				for (int i = 0; i < rounds; i++) {
+					int op = rand.nextInt(4);
+					if (op < 2) {
+						ConcretePQAble c = make(rand);
+						p.insert(c);
+						mine.add(c);
+					} else if (op == 2) {
+						ConcretePQAble c = p.remove();
+						if (c != null) {
+							assertTrue(c.getPQueue() == null);
+							out.add(c);
+						}
+					} else if (!mine.isEmpty()) {
+						// this one may already have been removed by anyone
+						ConcretePQAble c = mine.get(rand.nextInt(mine.size()));
+						try {
+							p.delete(c);
+							out.add(c);
+						} catch (IllegalStateException e) {
+							// it was already gone
+						}
+					}
+				}
+			}
+		});
+		Map<PQAble, Integer> seen = new IdentityHashMap<PQAble, Integer>();
+		for (List<ConcretePQAble> out : taken)
+			for (ConcretePQAble c : out)
+				assertTrue(seen.put(c, 1) == null);
+		int left = 0, last = -1;
+		while (p.top() != null) {
+			ConcretePQAble c = p.remove();
+			assertTrue(c.getNextUpdate() >= last);
+			last = c.getNextUpdate();
+			assertTrue(seen.put(c, 1) == null);
+			left++;
+		}
+		int total = 0;
+		for (List<ConcretePQAble> mine : inserted) {
+			for (ConcretePQAble c : mine) {
+				assertTrue(seen.containsKey(c));
+				assertTrue(c.getPQueue() == null);
+			}
+			total += mine.size();
+		}
+		assertTrue(seen.size() == total);
+		assertTrue(p.size() == 0);
+		assertTrue(left <= total);
+	}
+
+	/**
+	 * Every thread inserts, removes, deletes and drains PQAbles on one counted
+	 * PQueue and keeps its own tally of what it did. The counters must come
+	 * out exactly equal to the tallies added up, with nothing lost to the
+	 * threads racing each other.
+	 */
+	@Test
+	public void testStats() {
+		final int threads = 16, rounds = 20000;
+		final PQueue<ConcretePQAble> p = new ConcurrentPQueue<ConcretePQAble>();
+		PQueueStats stats = new PQueueStats();
+		p.setStats(stats);
+		assertTrue(p.getStats() == stats);
+		// inserts, removes and deletes done by each thread
+		final long[][] tally = new long[threads][3];
+		runThreads(threads, new Work() {
+			@Override
+			public void run(int id) {
+				Random rand = new Random(id);
+				List<ConcretePQAble> mine = new ArrayList<ConcretePQAble>();
+				List<PQAble> buffer = new ArrayList<PQAble>();
+				for (int i = 0; i < rounds; i++) {
+					int op = rand.nextInt(8);
+					if (op < 4) {
+						ConcretePQAble c = make(rand);
+						p.insert(c);
+						mine.add(c);
+						tally[id][0]++;
+					} else if (op < 6) {
+						if (p.remove() != null)
+							tally[id][1]++;
+					} else if (op == 6 && !mine.isEmpty()) {
+						ConcretePQAble c = mine.get(rand.nextInt(mine.size()));
+						try {
+							p.delete(c);
+							tally[id][2]++;
+						} catch (IllegalStateException e) {
+							// it was already gone
+						}
+					} else if (op == 7) {
+						ConcretePQAble bound = make(rand);
+						bound.setNextUpdate(bound.getNextUpdate() / 20);
+						buffer.clear();
+						tally[id][1] += p.removeThrough(bound, buffer);
+					}
+				}
+			}
+		});
+		long inserts = 0, removes = 0, deletes = 0;
+		for (long[] t : tally) {
+			inserts += t[0];
+			removes += t[1];
+			deletes += t[2];
+		}
+		assertTrue(stats.getInserts() == inserts);
+		assertTrue(stats.getRemoves() == removes);
+		assertTrue(stats.getDeletes() == deletes);
+		assertTrue(inserts - removes - deletes == p.size());
+		assertTrue(stats.getComparisons() > inserts);
+		assertTrue(stats.getSifts() == 0 && stats.getResizes() == 0);
+		stats.reset();
+		assertTrue(stats.getInserts() == 0 && stats.getComparisons() == 0);
+		p.setStats(null);
+		assertTrue(p.getStats() == null);
+		p.insert(new ConcretePQAble());
+		assertTrue(stats.getInserts() == 0);
+	}
+
+	/**
+	 * Runs a simple scheduler workload -- take the top PQAble off and put it
+	 * back on a little later -- on one shared PQueue from more and more
+	 * threads, and prints the throughput of each. Only checks that nothing
+	 * goes missing; how well it scales depends on the machine.
+	 */
+	@Test
+	public void testThroughput() {
+		final int perThread = 20000;
+		for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+			final PQueue<ConcretePQAble> p;
+			p = new ConcurrentPQueue<ConcretePQAble>();
+			Random rand = new Random(threads);
+			for (int i = 0; i < 10000; i++)
+				p.insert(make(rand));
+			final AtomicLong ops = new AtomicLong();
+			long ms = runThreads(threads, new Work() {
+				@Override
+				public void run(int id) {
+					long done = 0;
+					for (int i = 0; i < perThread; i++) {
+						ConcretePQAble c = p.remove();
+						if (c == null)
+							continue;
+						c.setNextUpdate(c.getNextUpdate() + 10);
+						p.insert(c);
+						done += 2;
+					}
+					ops.addAndGet(done);
+				}
+			});
+			assertTrue(p.size() == 10000);
+			System.out.println(threads + " threads: " + ops.get()
+					/ Math.max(ms, 1) + " ops/ms");
+		}
+	}
+}
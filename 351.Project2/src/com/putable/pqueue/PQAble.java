@@ -58,7 +58,7 @@ public interface PQAble extends Comparable<PQAble> {
      *         or null if setPQueue has not yet been called on this
      *         PQAble-implementing object.
      */
-    public PQueue getPQueue();
+    public PQueue<?> getPQueue();
 
     /**
      * Save a reference to a PQueue to be returned in response to a later
@@ -67,5 +67,5 @@ public interface PQAble extends Comparable<PQAble> {
      * @param pq
      *            the reference to be saved, which may or may not be null.
      */
-    void setPQueue(PQueue pq);
+    void setPQueue(PQueue<?> pq);
 }
@@ -1,5 +1,14 @@
 package com.putable.pqueue;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * A specialized interface representing a container that can only hold things
  * that implement 'PQAble', and can return them in priority queue order --
@@ -64,13 +73,30 @@ package com.putable.pqueue;
  * implemented by the project contractor to produce a complete working fast
  * intrusive priority queue.
  * 
+ * <p>
+ * A PQueue can also be walked through without removing anything, with
+ * {@link #forEach(Consumer)}, {@link #iterator()}, {@link #spliterator()} or
+ * {@link #stream()}. These visit every PQAble located on the PQueue exactly
+ * once, in no particular order. The PQueue must not be modified while it is
+ * being walked through; as long as it isn't, any number of threads may walk
+ * through it at the same time.
+ * 
+ * <p>
+ * A PQueue is typed by what it holds, so that whatever comes back out of
+ * {@link #remove()} or {@link #top()} needs no cast. Implementations are free
+ * to order their elements by something other than compareTo (such as a
+ * primitive key extracted from each element; see {@link PQueueDAry}) as long
+ * as it agrees with compareTo.
+ * 
  * @author ackley
  * @version 1.0
+ * @param <T>
+ *            the type of PQAble held by the PQueue
  * @see PQAble
  * @see AbstractPQAble
  */
 
-public interface PQueue {
+public interface PQueue<T extends PQAble> extends Iterable<T> {
     /**
      * Removes and returns the highest priority PQAble on the PQueue, or returns
      * null if the PQueue is empty. Time: O(log |PQueue|).
@@ -78,7 +104,7 @@ public interface PQueue {
      * @return a reference to the now-unlocated PQAble with the highest
      *         priority, or null.
      */
-    public PQAble remove();
+    public T remove();
 
     /**
      * Returns the highest priority PQAble on the PQueue <i>without</i> removing
@@ -88,7 +114,7 @@ public interface PQueue {
      * @return a reference to the PQAble with the highest priority, which is
      *         <i>still located</i> in the PQueue, or null.
      */
-    public PQAble top();
+    public T top();
 
     /**
      * Inserts p, which must be currently not located on any PQueue, into the
@@ -105,7 +131,7 @@ public interface PQueue {
      * @throws IllegalStateException
      *             If p is already located on any PQueue
      */
-    public void insert(PQAble p);
+    public void insert(T p);
 
     /**
      * (Advanced PQueue only.) Deletes p, which must already be located in the
@@ -126,7 +152,124 @@ public interface PQueue {
      * 
      * 
      */
-    public void delete(PQAble p);
+    public void delete(T p);
+
+    /**
+     * Removes every PQAble whose priority is no lower than bound's (that is,
+     * every p with p.compareTo(bound) &lt;= 0) and appends them to buffer in
+     * priority order, leaving each of them located on no PQueue. The buffer
+     * is not cleared first, so the caller can reuse one buffer across calls.
+     * Time: O(k log |PQueue|) for k removed PQAbles; implementations may do
+     * better.
+     * 
+     * <p>
+     * The default implementation just calls {@link #top()} and
+     * {@link #remove()} until the top is lower priority than bound.
+     * 
+     * @param bound
+     *            a PQAble (which need not be located anywhere, and may well
+     *            be the current top) giving the lowest priority to remove
+     * @param buffer
+     *            the list to append the removed PQAbles to
+     * @return the number of PQAbles removed
+     * 
+     * @throws NullPointerException
+     *             If bound or buffer is null
+     */
+    public default int removeThrough(T bound, List<? super T> buffer) {
+        if (bound == null || buffer == null)
+            throw new NullPointerException();
+        int removed = 0;
+        T p;
+        while ((p = top()) != null && p.compareTo(bound) <= 0) {
+            buffer.add(remove());
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Returns a Spliterator over every PQAble located on the PQueue, in no
+     * particular order, without modifying the PQueue. Implementations should
+     * split well enough for parallel streams over large PQueues. Time: O(1)
+     * to create, O(|PQueue|) to traverse.
+     * 
+     * <p>
+     * The default implementation is for PQueues that can't see their own
+     * contents any other way: it takes every PQAble off with
+     * {@link #remove()}, puts them all back with {@link #insert(PQAble)} and
+     * splits the list it took them into. That costs O(|PQueue| log |PQueue|)
+     * up front, PQAbles due at the same time may come off in a different
+     * order afterwards, and later changes to the PQueue aren't seen.
+     * 
+     * @return a Spliterator over the contents of the PQueue
+     */
+    @Override
+    public default Spliterator<T> spliterator() {
+        List<T> all = new ArrayList<T>(size());
+        for (T p = remove(); p != null; p = remove())
+            all.add(p);
+        for (T p : all)
+            insert(p);
+        return Spliterators.spliterator(all, Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns an Iterator over every PQAble located on the PQueue, in no
+     * particular order. The Iterator does not support remove().
+     * 
+     * @return an Iterator over the contents of the PQueue
+     */
+    @Override
+    public default Iterator<T> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Performs action on every PQAble located on the PQueue, in no particular
+     * order, without modifying the PQueue. Time: O(|PQueue|).
+     * 
+     * @param action
+     *            the action to perform
+     * 
+     * @throws NullPointerException
+     *             If action is null
+     */
+    @Override
+    public default void forEach(Consumer<? super T> action) {
+        spliterator().forEachRemaining(action);
+    }
+
+    /**
+     * Returns a sequential Stream over every PQAble located on the PQueue. Use
+     * stream().parallel() to walk through a large PQueue in parallel.
+     * 
+     * @return a Stream over the contents of the PQueue
+     */
+    public default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Starts counting the work this PQueue does in stats, or stops counting
+     * if stats is null. Not every PQueue can count: the default implementation
+     * ignores stats, and {@link #getStats()} keeps returning null to show it.
+     * 
+     * @param stats
+     *            the counters to add to, or null to stop counting
+     */
+    public default void setStats(PQueueStats stats) {
+    }
+
+    /**
+     * Get the counters this PQueue is adding to.
+     * 
+     * @return the counters last passed to {@link #setStats(PQueueStats)}, or
+     *         null if this PQueue isn't counting
+     */
+    public default PQueueStats getStats() {
+        return null;
+    }
 
     /**
      * Get the size of the PQueue.
@@ -1,21 +1,70 @@
 package com.putable.pqueue;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
 /**
  * Implementation of the {@link #PQueue} to be used in the Frob World program.
  * Priority Queue follows rules of a heap priority queue. Notable functions are
  * insert, remove, and delete. All should follow run time requirements.
  * 
+ * <p>
+ * The PQueue can be put in lazy deletion mode ({@link #setLazyDelete(boolean)}
+ * ), where {@link #delete(PQAble)} only marks a PQAble as dead instead of
+ * restructuring the heap. Dead PQAbles are skipped when they surface at the
+ * top, and are swept out all at once when there get to be too many of them.
+ * 
+ * <p>
+ * The heap array doubles when it fills up and is halved again once it is less
+ * than a quarter full, but never below the capacity it started with, so
+ * memory follows the population up and back down without resizing back and
+ * forth around any one size. {@link #trimToSize()} gives back everything that
+ * isn't in use right away.
+ * 
+ * <p>
+ * Given a primitive key (see {@link #PQueueAdvanced(ToLongFunction)}), the
+ * PQueue takes each PQAble's key once when it is inserted and caches it in a
+ * <code>long[]</code> that runs parallel to the heap, like
+ * {@link PQueueDAry}, so sifting compares longs instead of calling compareTo
+ * on every level. Otherwise PQAbles are compared with compareTo.
+ * 
  * @author Brennan Collins
  * 
+ * @param <T>
+ *            the type of PQAble held by the PQueue
  */
-public class PQueueAdvanced implements PQueue {
+public class PQueueAdvanced<T extends PQAble> implements PQueue<T> {
 	// our heap as an array
 	private PQAble[] pq;
+	// the priority of pq[i] is keys[i], or null if we compare PQAbles instead
+	private long[] keys;
+	// the priority of each PQAble, or null to compare them with compareTo
+	private final ToLongFunction<? super T> key;
 	// the actual size of our PQueue along with the count of
 	// how many PQAbles are inside of it
 	private int pqSize, pqAbleCount = 1;
+	// the size our PQueue started with, which it never shrinks below on its
+	// own
+	private final int minSize;
+	// shrink once fewer than 1 in this many slots of the heap are in use
+	private static final int SHRINK_RATIO = 4;
 	// boolean expression for whether our PQueue is advanced or not
 	private boolean isAdvanced = false;
+	// whether deletes only mark PQAbles as dead, and how many dead PQAbles
+	// are still in the heap. A dead PQAble's index is the negative of its
+	// position in the heap.
+	private boolean lazyDelete = false;
+	private int deadCount = 0;
+	// sweep out the dead once more than 1 in this many PQAbles are dead
+	private static final int SWEEP_RATIO = 4;
+	// scratch space of heap indexes for removeThrough
+	private int[] scratch = new int[0];
+	// where to count our work, or null to not count it
+	private PQueueStats stats;
 
 	/**
 	 * Default constructor for our PQueue. Sets the initial size of the heap to
@@ -23,8 +72,75 @@ public class PQueueAdvanced implements PQueue {
 	 */
 	public PQueueAdvanced() {
 		this.isAdvanced = true;
-		this.pqSize = 4;
+		this.pqSize = this.minSize = 4;
+		this.pq = new PQAble[pqSize];
+		this.key = null;
+	}
+
+	/**
+	 * Constructor for an advanced PQueue that orders its PQAbles by a
+	 * primitive key instead of compareTo. Lower keys come out first.
+	 * 
+	 * @param key
+	 *            the priority of each PQAble, which must agree with its
+	 *            compareTo and not change while it is on the PQueue
+	 */
+	public PQueueAdvanced(ToLongFunction<? super T> key) {
+		this(0, true, key);
+	}
+
+	/**
+	 * Constructor that sizes the heap for an expected number of PQAbles, so
+	 * that filling the PQueue up to that many takes no resizing at all.
+	 * 
+	 * @param capacity
+	 *            how many PQAbles the PQueue should be able to hold before it
+	 *            first has to grow
+	 * @param advanced
+	 *            whether the PQueue is advanced
+	 * @throws IllegalArgumentException
+	 *             if capacity is negative
+	 */
+	public PQueueAdvanced(int capacity, boolean advanced) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("negative capacity: "
+					+ capacity);
+		this.isAdvanced = advanced;
+		this.pqSize = this.minSize = Math.max(capacity + 2, 4);
 		this.pq = new PQAble[pqSize];
+		this.key = null;
+	}
+
+	/**
+	 * Constructor that sizes the heap for an expected number of PQAbles and
+	 * orders them by a primitive key instead of compareTo. Lower keys come out
+	 * first.
+	 * 
+	 * @param capacity
+	 *            how many PQAbles the PQueue should be able to hold before it
+	 *            first has to grow
+	 * @param advanced
+	 *            whether the PQueue is advanced
+	 * @param key
+	 *            the priority of each PQAble, which must agree with its
+	 *            compareTo and not change while it is on the PQueue
+	 * @throws NullPointerException
+	 *             if key is null
+	 * @throws IllegalArgumentException
+	 *             if capacity is negative
+	 */
+	public PQueueAdvanced(int capacity, boolean advanced,
+			ToLongFunction<? super T> key) {
+		if (key == null)
+			throw new NullPointerException();
+		if (capacity < 0)
+			throw new IllegalArgumentException("negative capacity: "
+					+ capacity);
+		this.isAdvanced = advanced;
+		this.pqSize = this.minSize = Math.max(capacity + 2, 4);
+		this.pq = new PQAble[pqSize];
+		this.keys = new long[pqSize];
+		this.key = key;
 	}
 
 	/**
@@ -35,26 +151,68 @@ public class PQueueAdvanced implements PQueue {
 	 *            the size to initiate our heap to
 	 */
 	public PQueueAdvanced(int psize) {
-		this.pqSize = psize;
+		this.pqSize = this.minSize = psize;
 		this.pq = new PQAble[psize];
 		pq[0] = null;
+		this.key = null;
 	}
 
 	/**
 	 * Method to resize the queue when it reaches a max capacity.
-	 * 
-	 * @param sizeFactor
-	 *            the factor by which to increase or decrease the size of our
-	 *            heap
 	 */
 	public void resize() {
-		int newPqSize = pqAbleCount * 2;
-		PQAble[] tempQ = new PQAble[newPqSize];
-		for (int i = 1; i < pqAbleCount; i++) {
-			tempQ[i] = pq[i];
-		}
-		pq = tempQ;
+		setSize(pqAbleCount * 2);
+	}
+
+	/**
+	 * Method to shrink the queue after enough PQAbles have come off of it that
+	 * it is less than a quarter full. It is left half full, so it takes as
+	 * many inserts to grow again as it takes removes to shrink again.
+	 */
+	private void shrinkIfSparse() {
+		if (pqSize > minSize && pqAbleCount * SHRINK_RATIO < pqSize)
+			setSize(Math.max(pqAbleCount * 2, minSize));
+	}
+
+	/**
+	 * Method to give back every slot of the heap that isn't in use, including
+	 * any taken up by lazily deleted PQAbles. The PQueue grows again as usual
+	 * on the next insert, and may then shrink back down to the size it was
+	 * constructed with.
+	 */
+	public void trimToSize() {
+		if (deadCount > 0)
+			sweep();
+		setSize(pqAbleCount + 1);
+		scratch = new int[0];
+	}
+
+	/**
+	 * Method to move the heap into an array of a new size.
+	 * 
+	 * @param newPqSize
+	 *            the new size, which must hold everything in the heap
+	 */
+	private void setSize(int newPqSize) {
+		if (stats != null)
+			stats.resizes++;
+		PQueueResizeEvent.resized(this, pqSize - 2, newPqSize - 2);
+		pq = Arrays.copyOf(pq, newPqSize);
+		if (keys != null)
+			keys = Arrays.copyOf(keys, newPqSize);
 		pqSize = newPqSize;
+		if (scratch.length > pqSize)
+			scratch = new int[0];
+	}
+
+	/**
+	 * Getter method for how many PQAbles the heap can hold before it has to
+	 * grow.
+	 * 
+	 * @return the capacity of the heap
+	 */
+	public int getCapacity() {
+		return pqSize - 2;
 	}
 
 	/**
@@ -92,30 +250,115 @@ public class PQueueAdvanced implements PQueue {
 	}
 
 	@Override
-	public PQAble remove() {
-		if (size() == 0)
+	public T remove() {
+		T top = top();
+		if (top == null)
 			return null;
 		else {
-			PQAble top = pq[1];
-			pq[1] = pq[--pqAbleCount];
+			move(1, --pqAbleCount);
 			pq[pqAbleCount] = null;
 			top.setPQueue(null);
-			if (size() > 1)
+			if (pqAbleCount > 1)
 				sinkDown(1);
+			shrinkIfSparse();
+			if (stats != null)
+				stats.removes++;
 			return top;
 		}
 	}
 
 	@Override
-	public PQAble top() {
-		if (size() == 0)
+	@SuppressWarnings("unchecked")
+	public T top() {
+		if (size() == 0) {
+			// nothing left but the dead
+			if (deadCount > 0)
+				sweep();
 			return null;
-		else
-			return pq[1];
+		}
+		while (isDead(pq[1]))
+			removeDead();
+		return (T) pq[1];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Everything to be removed forms a subtree at the top of the heap, so it
+	 * is found in O(k) time without disturbing the heap. If k is small they are
+	 * then removed one at a time; otherwise they are all pulled out at once and
+	 * the rest of the heap is rebuilt in O(|PQueue|) time.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public int removeThrough(T bound, List<? super T> buffer) {
+		if (bound == null || buffer == null)
+			throw new NullPointerException();
+		if (size() == 0)
+			return 0;
+		if (scratch.length < pqAbleCount)
+			scratch = new int[pqSize];
+		// breadth first search down from the root; scratch[0..found-1] are
+		// the indexes of everything no lower priority than bound
+		long boundKey = key == null ? 0 : key.applyAsLong(bound);
+		int found = 0, dead = 0, compared = 1;
+		if (through(1, bound, boundKey))
+			scratch[found++] = 1;
+		for (int head = 0; head < found; head++) {
+			int dex = scratch[head];
+			if (isDead(pq[dex]))
+				dead++;
+			int left = leftChildIndex(dex), right = rightChildIndex(dex);
+			if (left < pqAbleCount) {
+				compared++;
+				if (through(left, bound, boundKey))
+					scratch[found++] = left;
+			}
+			if (right < pqAbleCount) {
+				compared++;
+				if (through(right, bound, boundKey))
+					scratch[found++] = right;
+			}
+		}
+		int live = found - dead;
+		if (stats != null)
+			stats.comparisons += compared;
+		int depth = 32 - Integer.numberOfLeadingZeros(pqAbleCount);
+		if (found * depth < pqAbleCount) {
+			for (int i = 0; i < live; i++)
+				buffer.add(remove());
+			return live;
+		}
+		int start = buffer.size();
+		for (int i = 0; i < found; i++) {
+			PQAble p = pq[scratch[i]];
+			pq[scratch[i]] = null;
+			if (isDead(p)) {
+				p.setIndex(0);
+				deadCount--;
+			} else
+				buffer.add((T) p);
+			p.setPQueue(null);
+		}
+		int kept = 1;
+		for (int i = 1; i < pqAbleCount; i++)
+			if (pq[i] != null)
+				place(kept++, pq[i], keyAt(i));
+		for (int i = kept; i < pqAbleCount; i++)
+			pq[i] = null;
+		pqAbleCount = kept;
+		for (int i = (pqAbleCount - 1) / 2; i >= 1; i--)
+			sinkDown(i);
+		shrinkIfSparse();
+		buffer.subList(start, buffer.size()).sort(null);
+		if (stats != null)
+			stats.removes += live;
+		return live;
 	}
 
 	@Override
-	public void insert(PQAble newPq) {
+	public void insert(T newPq) {
 		// a queue that is full is our 'queue' to resize
 		if (pqAbleCount >= pqSize - 1)
 			resize();
@@ -126,7 +369,11 @@ public class PQueueAdvanced implements PQueue {
 		newPq.setPQueue(this);
 		newPq.setIndex(pqAbleCount);
 		pq[pqAbleCount] = newPq;
+		if (keys != null)
+			keys[pqAbleCount] = key.applyAsLong(newPq);
 		bubbleUp(pqAbleCount++);
+		if (stats != null)
+			stats.inserts++;
 	}
 
 	/**
@@ -141,15 +388,20 @@ public class PQueueAdvanced implements PQueue {
 	 */
 	public void bubbleUp(int index) {
 		PQAble newPq = pq[index];
-		int pDex = parentIndex(index);
-		while (pDex != 0 && newPq.compareTo(pq[pDex]) < 0) {
-			pq[index] = pq[pDex];
-			pq[index].setIndex(index);
+		long newKey = keyAt(index);
+		int pDex = parentIndex(index), levels = 0;
+		while (pDex != 0 && compare(newPq, newKey, pDex) < 0) {
+			place(index, pq[pDex], keyAt(pDex));
 			index = pDex;
 			pDex = parentIndex(index);
+			levels++;
+		}
+		place(index, newPq, newKey);
+		if (stats != null) {
+			// the comparison that stopped us, if any, counts too
+			stats.comparisons += pDex != 0 ? levels + 1 : levels;
+			stats.sift(levels);
 		}
-		newPq.setIndex(index);
-		pq[index] = newPq;
 	}
 
 	/**
@@ -165,58 +417,309 @@ public class PQueueAdvanced implements PQueue {
 	 */
 	public void sinkDown(int index) {
 		PQAble top = pq[index];
+		long topKey = keyAt(index);
+		int levels = 0, compared = 0;
 
 		while (index * 2 < pqAbleCount) {
-			PQAble hpNode;
 			int left = leftChildIndex(index);
 			int right = rightChildIndex(index);
+			int hpDex;
 
-			if (right < pqAbleCount && pq[right].compareTo(pq[left]) < 0) {
-				hpNode = pq[right];
-				hpNode.setIndex(right);
-			} else {
-				hpNode = pq[left];
-				hpNode.setIndex(left);
-			}
+			if (right < pqAbleCount) {
+				compared++;
+				hpDex = compare(pq[right], keyAt(right), left) < 0 ? right
+						: left;
+			} else
+				hpDex = left;
 
-			if (top.compareTo(hpNode) < 0 || top.compareTo(hpNode) == 0)
+			compared++;
+			if (compare(top, topKey, hpDex) <= 0)
 				break;
 
-			pq[index] = hpNode;
-			index = hpNode.getIndex();
-			hpNode.setIndex(parentIndex(index));
+			place(index, pq[hpDex], keyAt(hpDex));
+			index = hpDex;
+			levels++;
+		}
+		place(index, top, topKey);
+		if (stats != null) {
+			stats.comparisons += compared;
+			stats.sift(levels);
+		}
+	}
+
+	/**
+	 * Method to put a PQAble at an index of the heap and let it know where it
+	 * is. A dead PQAble stays marked as dead.
+	 * 
+	 * @param index
+	 *            where to put the PQAble
+	 * @param p
+	 *            the PQAble
+	 * @param k
+	 *            its key, if we have keys
+	 */
+	private void place(int index, PQAble p, long k) {
+		pq[index] = p;
+		if (keys != null)
+			keys[index] = k;
+		p.setIndex(p.getIndex() < 0 ? -index : index);
+	}
+
+	/**
+	 * Method to move a PQAble, and its key if we have keys, from one slot of
+	 * the heap to another without telling it where it is yet.
+	 * 
+	 * @param to
+	 *            the slot to move it to
+	 * @param from
+	 *            the slot it is in
+	 */
+	private void move(int to, int from) {
+		pq[to] = pq[from];
+		if (keys != null)
+			keys[to] = keys[from];
+	}
+
+	/**
+	 * Method to get the key of the PQAble at an index of the heap.
+	 * 
+	 * @param index
+	 *            the index
+	 * @return its key, or 0 if we have no keys
+	 */
+	private long keyAt(int index) {
+		return keys == null ? 0 : keys[index];
+	}
+
+	/**
+	 * Method to compare a PQAble with the one at an index of the heap, by key
+	 * if we have keys and by compareTo otherwise.
+	 * 
+	 * @param p
+	 *            the PQAble
+	 * @param k
+	 *            its key, if we have keys
+	 * @param index
+	 *            the index of the other
+	 * @return less than, equal to or greater than 0 as p comes out before,
+	 *         with or after the other
+	 */
+	private int compare(PQAble p, long k, int index) {
+		return keys != null ? Long.compare(k, keys[index]) : p
+				.compareTo(pq[index]);
+	}
+
+	/**
+	 * Method to tell whether the PQAble at an index of the heap comes out no
+	 * later than bound, for {@link #removeThrough(PQAble, List)}.
+	 * 
+	 * @param index
+	 *            the index
+	 * @param bound
+	 *            the bound
+	 * @param boundKey
+	 *            the key of bound, if we have keys
+	 * @return true if it comes out no later
+	 */
+	private boolean through(int index, T bound, long boundKey) {
+		return keys != null ? keys[index] <= boundKey : pq[index]
+				.compareTo(bound) <= 0;
+	}
+
+	/**
+	 * Method to determine if a PQAble in our heap has been lazily deleted.
+	 * 
+	 * @param p
+	 *            a PQAble in our heap
+	 * @return true if p is dead
+	 */
+	private boolean isDead(PQAble p) {
+		return p.getIndex() < 0;
+	}
+
+	/**
+	 * Takes the dead PQAble off the top of the heap and finally leaves it
+	 * located on no PQueue.
+	 */
+	private void removeDead() {
+		PQAble dead = pq[1];
+		move(1, --pqAbleCount);
+		pq[pqAbleCount] = null;
+		if (pqAbleCount > 1)
+			sinkDown(1);
+		dead.setIndex(0);
+		dead.setPQueue(null);
+		deadCount--;
+		shrinkIfSparse();
+	}
+
+	/**
+	 * Sweeps every dead PQAble out of the heap at once and rebuilds the heap
+	 * from the ones that are left, in O(|PQueue|) time.
+	 */
+	private void sweep() {
+		int live = 1;
+		for (int i = 1; i < pqAbleCount; i++) {
+			PQAble p = pq[i];
+			if (isDead(p)) {
+				p.setIndex(0);
+				p.setPQueue(null);
+			} else
+				move(live++, i);
 		}
-		top.setIndex(index);
-		pq[index] = top;
+		for (int i = live; i < pqAbleCount; i++)
+			pq[i] = null;
+		pqAbleCount = live;
+		deadCount = 0;
+		for (int i = 1; i < pqAbleCount; i++)
+			pq[i].setIndex(i);
+		for (int i = (pqAbleCount - 1) / 2; i >= 1; i--)
+			sinkDown(i);
+		shrinkIfSparse();
+	}
+
+	/**
+	 * Setter method for lazy deletion mode. While it is on,
+	 * {@link #delete(PQAble)} just marks the PQAble as dead in O(1) time. A
+	 * dead PQAble no longer counts towards {@link #size()} and will never be
+	 * handed out by {@link #top()} or {@link #remove()}, but it stays located
+	 * on this PQueue (so it can't be inserted anywhere else) until it either
+	 * reaches the top of the heap or gets swept out along with the rest of the
+	 * dead. Turning lazy deletion off sweeps out the dead right away.
+	 * 
+	 * @param lazy
+	 *            true to only mark deleted PQAbles as dead
+	 * @throws UnsupportedOperationException
+	 *             if this is not an advanced PQueue
+	 */
+	public void setLazyDelete(boolean lazy) {
+		if (!isAdvanced())
+			throw new UnsupportedOperationException();
+		if (!lazy && deadCount > 0)
+			sweep();
+		lazyDelete = lazy;
+	}
+
+	/**
+	 * Getter method for how many dead PQAbles are still in the heap.
+	 * 
+	 * @return the number of lazily deleted PQAbles not yet swept out
+	 */
+	public int getDeadCount() {
+		return deadCount;
 	}
 
 	@Override
-	public void delete(PQAble p) {
+	public void delete(T p) {
 		if (!isAdvanced())
 			throw new UnsupportedOperationException();
 		if (p.equals(null))
 			throw new NullPointerException();
-		if (p.getPQueue() != this)
+		if (p.getPQueue() != this || isDead(p))
 			throw new IllegalStateException();
 
 		int pDex = p.getIndex();
+		if (stats != null)
+			stats.deletes++;
+		if (lazyDelete) {
+			p.setIndex(-pDex);
+			if (++deadCount * SWEEP_RATIO > pqAbleCount)
+				sweep();
+			return;
+		}
 		p.setPQueue(null);
-		if (pDex == size()) {
+		if (pDex == pqAbleCount - 1) {
 			pq[--pqAbleCount] = null;
-			return;
 		} else {
-			pq[pDex] = pq[--pqAbleCount];
+			long pKey = keyAt(pDex);
+			move(pDex, --pqAbleCount);
 			pq[pqAbleCount] = null;
-			if (p.compareTo(pq[pDex]) > 0)
+			if (stats != null)
+				stats.comparisons++;
+			if (compare(p, pKey, pDex) > 0)
 				bubbleUp(pDex);
 			else
 				sinkDown(pDex);
 		}
+		shrinkIfSparse();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Walks through the heap array in order, skipping any PQAbles that have
+	 * been lazily deleted.
+	 */
+	@Override
+	public Spliterator<T> spliterator() {
+		Spliterator<T> all = Spliterators.spliterator(pq, 1, pqAbleCount,
+				Spliterator.NONNULL);
+		if (deadCount == 0)
+			return all;
+		return new LiveSpliterator<T>(all);
+	}
+
+	/**
+	 * A Spliterator over part of the heap that skips dead PQAbles.
+	 */
+	private static final class LiveSpliterator<T extends PQAble> implements
+			Spliterator<T>, Consumer<T> {
+		// the part of the heap, dead and alive
+		private final Spliterator<T> heap;
+		// the PQAble that heap most recently advanced to
+		private T current;
+
+		LiveSpliterator(Spliterator<T> heap) {
+			this.heap = heap;
+		}
+
+		@Override
+		public void accept(T p) {
+			current = p;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			while (heap.tryAdvance(this)) {
+				if (current.getIndex() >= 0) {
+					action.accept(current);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			Spliterator<T> prefix = heap.trySplit();
+			return prefix == null ? null : new LiveSpliterator<T>(prefix);
+		}
+
+		@Override
+		public long estimateSize() {
+			return heap.estimateSize();
+		}
+
+		@Override
+		public int characteristics() {
+			return NONNULL;
+		}
+	}
+
+	@Override
+	public void setStats(PQueueStats stats) {
+		this.stats = stats;
+	}
+
+	@Override
+	public PQueueStats getStats() {
+		return stats;
 	}
 
 	@Override
 	public int size() {
-		return pqAbleCount - 1;
+		return pqAbleCount - 1 - deadCount;
 	}
 
 	@Override
@@ -244,14 +747,15 @@ public class PQueueAdvanced implements PQueue {
 	 */
 	public String visualHeap(PQAble head, String left, String root, String right) {
 
-		if (head.getIndex() >= (pqAbleCount-1) / 2)
+		int headDex = Math.abs(head.getIndex());
+		if (headDex >= (pqAbleCount-1) / 2)
 			return "\n" + (root + "(" + Integer.toString(((ConcretePQAble) head).getNextUpdate()) + ")");
 
-		int leftChild = leftChildIndex(head.getIndex());
-		int rightChild = rightChildIndex(head.getIndex());
+		int leftChild = leftChildIndex(headDex);
+		int rightChild = rightChildIndex(headDex);
 
 		String rootSpaces = String.format("%"
-				+ String.valueOf(head.getIndex()).length() + "s", "");
+				+ String.valueOf(headDex).length() + "s", "");
 		left += rootSpaces;
 		right += rootSpaces;
 
@@ -282,10 +786,10 @@ public class PQueueAdvanced implements PQueue {
 	public boolean isHeap(int dex) {
 		int lDex = leftChildIndex(dex);
 		int rDex = rightChildIndex(dex);
-		if (dex >= size() / 2)
+		if (dex >= (pqAbleCount - 1) / 2)
 			return true;
-		else if (pq[dex].compareTo(pq[lDex]) <= 0
-				&& pq[dex].compareTo(pq[rDex]) <= 0)
+		else if (compare(pq[dex], keyAt(dex), lDex) <= 0
+				&& compare(pq[dex], keyAt(dex), rDex) <= 0)
 			return isHeap(lDex) && isHeap(rDex);
 		else
 			return false;
@@ -23,7 +23,7 @@ public class PQueueBasicTest {
 	 * @param fill
 	 *            size to fill the PQueue to
 	 */
-	public void PQueueSetup(PQueue p, int fill) {
+	public void PQueueSetup(PQueue<? super ConcretePQAble> p, int fill) {
 		for (int i = 0; i < fill; i++) {
 			ConcretePQAble in = new ConcretePQAble();
 			in.setUpdatePeriod(100);
@@ -51,7 +51,7 @@ public class PQueueBasicTest {
 	 *            size to fill the PQueue to
 	 */
 	public void insertTimer(int size) {
-		PQueue p = new PQueueAdvanced();
+		PQueue<PQAble> p = new PQueueAdvanced<PQAble>();
 		double time, newTime = 0;
 
 		for (int i = 1; i < size+1; i++) {
@@ -76,7 +76,7 @@ public class PQueueBasicTest {
 	 *            size to fill the PQueue to
 	 */
 	public void removeTimer(int size) {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, size);
 
 		double time, newTime = 0;
@@ -102,13 +102,14 @@ public class PQueueBasicTest {
 	 */
 	public void deleteTimer(int size) {
 		Random rand = new Random();
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, size);
-		PQAble[] peeks = p.getHeap();
 
 		double time, newTime = 0;
 
 		for (int i = 0; i < size - 1; i++) {
+			// the heap moves to a smaller array as it empties out
+			PQAble[] peeks = p.getHeap();
 			int r = rand.nextInt(p.size() - 1) + 1;
 			double t1 = System.nanoTime();
 			p.delete(peeks[r]);
@@ -123,28 +124,28 @@ public class PQueueBasicTest {
 
 	@Test
 	public void testInsert1() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		assertTrue(p.isHeap(1));
 	}
 
 	@Test
 	public void testInsert2() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		assertTrue(p.isHeap(1));
 	}
 
 	@Test
 	public void testInsert3() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		assertTrue(p.isHeap(1));
 	}
 
 	@Test
 	public void testRemove1() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		PQAble[] peeks = p.getHeap();
 		PQAble un = peeks[1];
@@ -155,7 +156,7 @@ public class PQueueBasicTest {
 
 	@Test
 	public void testRemove2() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		PQAble[] peeks = p.getHeap();
 		PQAble un = peeks[1];
@@ -166,7 +167,7 @@ public class PQueueBasicTest {
 
 	@Test
 	public void testRemove3() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		PQAble[] peeks = p.getHeap();
 		PQAble un = peeks[1];
@@ -177,13 +178,13 @@ public class PQueueBasicTest {
 
 	@Test
 	public void testRemove4() {
-		PQueue p = new PQueueAdvanced();
+		PQueue<PQAble> p = new PQueueAdvanced<PQAble>();
 		assertTrue(p.remove() == null);
 	}
 
 	@Test
 	public void testTop1() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		PQAble[] peeks = p.getHeap();
 		PQAble un = peeks[1];
@@ -194,7 +195,7 @@ public class PQueueBasicTest {
 
 	@Test
 	public void testTop2() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		PQAble[] peeks = p.getHeap();
 		PQAble un = peeks[1];
@@ -205,13 +206,13 @@ public class PQueueBasicTest {
 
 	@Test
 	public void testTop3() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		assertTrue(p.top() == null);
 	}
 
 	@Test
 	public void testSize() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		assertTrue(p.size() == 15);
 	}
@@ -219,10 +220,10 @@ public class PQueueBasicTest {
 	@Test
 	public void TestDelete1() {
 		Random rand = new Random();
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
-		PQAble[] peeks = p.getHeap();
 		for (int i = 0; i < 14; i++) {
+			PQAble[] peeks = p.getHeap();
 			int randDex = p.size() - rand.nextInt(p.size());
 			p.delete(peeks[randDex]);
 			assertTrue(p.isHeap(1));
@@ -232,10 +233,10 @@ public class PQueueBasicTest {
 	@Test
 	public void TestDelete2() {
 		Random rand = new Random();
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
-		PQAble[] peeks = p.getHeap();
 		for (int i = 0; i < 4; i++) {
+			PQAble[] peeks = p.getHeap();
 			int randDex = p.size() - rand.nextInt(p.size());
 			p.delete(peeks[randDex]);
 			assertTrue(p.isHeap(1));
@@ -245,10 +246,10 @@ public class PQueueBasicTest {
 	@Test
 	public void TestDelete3() {
 		Random rand = new Random();
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
-		PQAble[] peeks = p.getHeap();
 		for (int i = 0; i < 4; i++) {
+			PQAble[] peeks = p.getHeap();
 			int randDex = p.size() - rand.nextInt(p.size());
 			p.delete(peeks[randDex]);
 			assertTrue(p.isHeap(1));
@@ -257,7 +258,7 @@ public class PQueueBasicTest {
 
 	@Test
 	public void showToString() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 63);
 		System.out.println("Output for toString(): \n" + p.toString()
 				+ "\n________________________________________________\n\n");
@@ -265,7 +266,7 @@ public class PQueueBasicTest {
 
 	@Test
 	public void testToString1() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 15);
 		double t1 = System.nanoTime();
 		p.toString();
@@ -276,7 +277,7 @@ public class PQueueBasicTest {
 
 	@Test
 	public void testToString2() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 63);
 		double t1 = System.nanoTime();
 		p.toString();
@@ -287,7 +288,7 @@ public class PQueueBasicTest {
 
 	@Test
 	public void testToString3() {
-		PQueueAdvanced p = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
 		PQueueSetup(p, 255);
 		double t1 = System.nanoTime();
 		p.toString();
@@ -343,15 +344,15 @@ public class PQueueBasicTest {
 
 	@Test(expected = NullPointerException.class)
 	public void insertNullPointerTest() {
-		PQueueAdvanced pq = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> pq = new PQueueAdvanced<PQAble>();
 		PQAble p = null;
 		pq.insert(p);
 	}
 
 	@Test(expected = IllegalStateException.class)
 	public void insertIllegalStateTest() {
-		PQueueAdvanced pq1 = new PQueueAdvanced();
-		PQueueAdvanced pq2 = new PQueueAdvanced();
+		PQueueAdvanced<PQAble> pq1 = new PQueueAdvanced<PQAble>();
+		PQueueAdvanced<PQAble> pq2 = new PQueueAdvanced<PQAble>();
 		PQAble p = new ConcretePQAble();
 		pq1.insert(p);
 		pq2.insert(p);
@@ -359,24 +360,148 @@ public class PQueueBasicTest {
 
 	@Test(expected = UnsupportedOperationException.class)
 	public void deleteUsOTest() {
-		PQueueAdvanced pq = new PQueueAdvanced(4);
+		PQueueAdvanced<PQAble> pq = new PQueueAdvanced<PQAble>(4);
 		PQueueSetup(pq, 4);
 		pq.delete(pq.getHeap()[2]);
 	}
 
 	@Test(expected = NullPointerException.class)
 	public void deleteNullPointerTest() {
-		PQueue pq = new PQueueAdvanced();
+		PQueue<PQAble> pq = new PQueueAdvanced<PQAble>();
 		PQAble p = null;
 		pq.delete(p);
 	}
 
 	@Test(expected = IllegalStateException.class)
 	public void deleteIllegalStateTest() {
-		PQueue pq1 = new PQueueAdvanced();
-		PQueue pq2 = new PQueueAdvanced();
+		PQueue<PQAble> pq1 = new PQueueAdvanced<PQAble>();
+		PQueue<PQAble> pq2 = new PQueueAdvanced<PQAble>();
 		PQAble p = new ConcretePQAble();
 		pq1.insert(p);
 		pq2.delete(p);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void lazyDeleteTest() {
+		Random rand = new Random();
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
+		p.setLazyDelete(true);
+		PQueueSetup(p, 1000);
+		PQAble[] all = new PQAble[1000];
+		System.arraycopy(p.getHeap(), 1, all, 0, 1000);
+		boolean[] deleted = new boolean[1000];
+		for (int i = 0; i < 500; i++) {
+			int r = rand.nextInt(1000);
+			if (!deleted[r]) {
+				p.delete(all[r]);
+				deleted[r] = true;
+			}
+		}
+		int live = 0;
+		for (int i = 0; i < 1000; i++)
+			if (!deleted[i])
+				live++;
+		assertTrue(p.size() == live);
+		assertTrue(p.isHeap(1));
+		int last = -1;
+		PQAble out;
+		while ((out = p.remove()) != null) {
+			int next = ((ConcretePQAble) out).getNextUpdate();
+			assertTrue(next >= last);
+			last = next;
+			live--;
+		}
+		assertTrue(live == 0);
+		for (int i = 0; i < 1000; i++)
+			assertTrue(all[i].getPQueue() == null);
+	}
+
+	@Test
+	public void lazyDeleteOffTest() {
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
+		p.setLazyDelete(true);
+		PQueueSetup(p, 100);
+		PQAble gone = p.getHeap()[50];
+		p.delete(gone);
+		p.setLazyDelete(false);
+		assertTrue(p.getDeadCount() == 0);
+		assertTrue(gone.getPQueue() == null);
+		assertTrue(p.size() == 99);
+		assertTrue(p.isHeap(1));
+	}
+
+	@Test
+	public void capacityHintTest() {
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>(1000, true);
+		PQAble[] heap = p.getHeap();
+		assertTrue(p.getCapacity() == 1000);
+		PQueueSetup(p, 1000);
+		assertTrue(p.getHeap() == heap);
+		assertTrue(p.isHeap(1));
+		p.delete(heap[500]);
+		assertTrue(p.size() == 999);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void capacityHintNegativeTest() {
+		new PQueueAdvanced<PQAble>(-1, true);
+	}
+
+	@Test
+	public void shrinkTest() {
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
+		for (int round = 0; round < 3; round++) {
+			PQueueSetup(p, 100000);
+			assertTrue(p.getCapacity() >= 100000);
+			int last = -1;
+			while (p.size() > 100) {
+				int next = ((ConcretePQAble) p.remove()).getNextUpdate();
+				assertTrue(next >= last);
+				last = next;
+				// never less than a quarter full once it has grown
+				assertTrue(p.getCapacity() < 4 * p.size() + 4);
+			}
+			assertTrue(p.isHeap(1));
+		}
+		while (p.remove() != null)
+			;
+		assertTrue(p.getCapacity() == 2);
+	}
+
+	@Test
+	public void noShrinkBelowHintTest() {
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>(1000, true);
+		PQueueSetup(p, 5000);
+		while (p.remove() != null)
+			;
+		assertTrue(p.getCapacity() == 1000);
+	}
+
+	@Test
+	public void trimToSizeTest() {
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
+		p.setLazyDelete(true);
+		PQueueSetup(p, 1000);
+		for (int i = 0; i < 100; i++)
+			p.delete(p.getHeap()[2 * i + 1]);
+		assertTrue(p.getDeadCount() > 0);
+		p.trimToSize();
+		assertTrue(p.getDeadCount() == 0);
+		assertTrue(p.size() == 900);
+		assertTrue(p.getCapacity() == 900);
+		assertTrue(p.isHeap(1));
+		PQueueSetup(p, 10);
+		assertTrue(p.size() == 910);
+		assertTrue(p.isHeap(1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void lazyDeleteTwiceTest() {
+		PQueueAdvanced<PQAble> p = new PQueueAdvanced<PQAble>();
+		p.setLazyDelete(true);
+		PQueueSetup(p, 100);
+		PQAble gone = p.getHeap()[50];
+		p.delete(gone);
+		p.delete(gone);
+	}
+}
@@ -0,0 +1,328 @@
+package com.putable.pqueue;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ToLongFunction;
+
+/**
+ * A d-ary heap implementation of {@link PQueue}. Each node has 4 or 8 children
+ * instead of 2, which makes the heap shallower, and elements are ordered by a
+ * primitive key (by default a {@link ConcretePQAble}'s next update) that is
+ * taken from each element once when it is inserted and cached in a
+ * <code>long[]</code> that runs parallel to the heap. Sifting then only
+ * compares primitives sitting next to each other in memory instead of calling
+ * compareTo (and casting) on every level.
+ *
+ * <p>
+ * Since the keys are cached, a PQAble's key must not change while it is
+ * located on the PQueue -- which is already the case for everything that World
+ * puts on its queues. Like {@link PQueueAdvanced}, each PQAble's index is
+ * its current position in the heap, which is what makes {@link #delete(PQAble)}
+ * O(log |PQueue|).
+ *
+ * @author Brennan Collins
+ *
+ * @param <T>
+ *            the type of PQAble held by the PQueue
+ */
+public class PQueueDAry<T extends PQAble> implements PQueue<T> {
+	// the number of children per node and its log base 2
+	private final int arity, shift;
+	// our heap as an array, starting at index 0
+	private PQAble[] heap;
+	// the priority of heap[i] is keys[i]
+	private long[] keys;
+	// how many PQAbles are inside of our PQueue
+	private int count = 0;
+	// the priority of each PQAble
+	private final ToLongFunction<? super T> key;
+	// where to count our work, or null to not count it
+	private PQueueStats stats;
+
+	/**
+	 * Default constructor for our PQueue. Makes a 4-ary heap.
+	 */
+	public PQueueDAry() {
+		this(4);
+	}
+
+	/**
+	 * Secondary constructor that gives the user the ability to pick how many
+	 * children each node of the heap has.
+	 *
+	 * @param arity
+	 *            the number of children per node, either 4 or 8
+	 * @throws IllegalArgumentException
+	 *             if arity is not 4 or 8
+	 */
+	public PQueueDAry(int arity) {
+		this(arity, ConcretePQAble::nextUpdateOf);
+	}
+
+	/**
+	 * Constructor for a PQueue that orders its PQAbles by something other than
+	 * their next update. Lower keys come out first.
+	 *
+	 * @param arity
+	 *            the number of children per node, either 4 or 8
+	 * @param key
+	 *            the priority of each PQAble, which must agree with its
+	 *            compareTo
+	 * @throws IllegalArgumentException
+	 *             if arity is not 4 or 8
+	 */
+	public PQueueDAry(int arity, ToLongFunction<? super T> key) {
+		if (key == null)
+			throw new NullPointerException();
+		if (arity != 4 && arity != 8)
+			throw new IllegalArgumentException("arity must be 4 or 8: "
+					+ arity);
+		this.key = key;
+		this.arity = arity;
+		this.shift = Integer.numberOfTrailingZeros(arity);
+		this.heap = new PQAble[16];
+		this.keys = new long[16];
+	}
+
+	/**
+	 * Method to resize the queue when it reaches a max capacity.
+	 */
+	private void resize() {
+		if (stats != null)
+			stats.resizes++;
+		int newSize = heap.length * 2;
+		PQueueResizeEvent.resized(this, heap.length, newSize);
+		PQAble[] tempHeap = new PQAble[newSize];
+		long[] tempKeys = new long[newSize];
+		System.arraycopy(heap, 0, tempHeap, 0, count);
+		System.arraycopy(keys, 0, tempKeys, 0, count);
+		heap = tempHeap;
+		keys = tempKeys;
+	}
+
+	@Override
+	public T remove() {
+		if (count == 0)
+			return null;
+		T top = top();
+		top.setPQueue(null);
+		int last = --count;
+		if (last > 0)
+			sinkDown(0, heap[last], keys[last]);
+		heap[last] = null;
+		if (stats != null)
+			stats.removes++;
+		return top;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T top() {
+		if (count == 0)
+			return null;
+		return (T) heap[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Compares cached keys against bound's key instead of calling compareTo.
+	 */
+	@Override
+	public int removeThrough(T bound, List<? super T> buffer) {
+		if (bound == null || buffer == null)
+			throw new NullPointerException();
+		long limit = key.applyAsLong(bound);
+		int removed = 0;
+		while (count > 0 && keys[0] <= limit) {
+			buffer.add(remove());
+			removed++;
+		}
+		if (stats != null)
+			stats.comparisons += count > 0 ? removed + 1 : removed;
+		return removed;
+	}
+
+	@Override
+	public void insert(T p) {
+		if (p == null)
+			throw new NullPointerException();
+		if (p.getPQueue() != null)
+			throw new IllegalStateException();
+		if (count == heap.length)
+			resize();
+		p.setPQueue(this);
+		bubbleUp(count++, p, key.applyAsLong(p));
+		if (stats != null)
+			stats.inserts++;
+	}
+
+	@Override
+	public void delete(T p) {
+		if (p == null)
+			throw new NullPointerException();
+		if (p.getPQueue() != this)
+			throw new IllegalStateException();
+		int dex = p.getIndex();
+		p.setPQueue(null);
+		int last = --count;
+		if (stats != null)
+			stats.deletes++;
+		if (dex != last) {
+			PQAble moved = heap[last];
+			long movedKey = keys[last];
+			heap[last] = null;
+			if (stats != null)
+				stats.comparisons++;
+			if (movedKey < keys[dex])
+				bubbleUp(dex, moved, movedKey);
+			else
+				sinkDown(dex, moved, movedKey);
+		} else
+			heap[last] = null;
+	}
+
+	/**
+	 * Moves parents down into the hole at index until the parent has a key no
+	 * greater than the given key, then settles the given PQAble into the hole.
+	 *
+	 * @param index
+	 *            the hole to bubble up from
+	 * @param p
+	 *            the PQAble to settle
+	 * @param key
+	 *            the key of p
+	 */
+	private void bubbleUp(int index, PQAble p, long key) {
+		int levels = 0;
+		while (index > 0) {
+			int parent = (index - 1) >>> shift;
+			if (key >= keys[parent])
+				break;
+			heap[index] = heap[parent];
+			keys[index] = keys[parent];
+			heap[index].setIndex(index);
+			index = parent;
+			levels++;
+		}
+		heap[index] = p;
+		keys[index] = key;
+		p.setIndex(index);
+		if (stats != null) {
+			// the comparison that stopped us, if any, counts too
+			stats.comparisons += index > 0 ? levels + 1 : levels;
+			stats.sift(levels);
+		}
+	}
+
+	/**
+	 * Moves the smallest child up into the hole at index until no child has a
+	 * key smaller than the given key, then settles the given PQAble into the
+	 * hole.
+	 *
+	 * @param index
+	 *            the hole to sink down from
+	 * @param p
+	 *            the PQAble to settle
+	 * @param key
+	 *            the key of p
+	 */
+	private void sinkDown(int index, PQAble p, long key) {
+		int n = count, levels = 0, compared = 0;
+		while (true) {
+			int first = (index << shift) + 1;
+			if (first >= n)
+				break;
+			int end = Math.min(first + arity, n);
+			// one comparison per child but the first, plus one against key
+			compared += end - first;
+			int best = first;
+			long bestKey = keys[first];
+			for (int c = first + 1; c < end; c++) {
+				if (keys[c] < bestKey) {
+					best = c;
+					bestKey = keys[c];
+				}
+			}
+			if (bestKey >= key)
+				break;
+			heap[index] = heap[best];
+			keys[index] = bestKey;
+			heap[index].setIndex(index);
+			index = best;
+			levels++;
+		}
+		heap[index] = p;
+		keys[index] = key;
+		p.setIndex(index);
+		if (stats != null) {
+			stats.comparisons += compared;
+			stats.sift(levels);
+		}
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return Spliterators.spliterator(heap, 0, count, Spliterator.NONNULL);
+	}
+
+	@Override
+	public void setStats(PQueueStats stats) {
+		this.stats = stats;
+	}
+
+	@Override
+	public PQueueStats getStats() {
+		return stats;
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public boolean isAdvanced() {
+		return true;
+	}
+
+	/**
+	 * Getter method for the number of children per node.
+	 *
+	 * @return 4 or 8
+	 */
+	public int getArity() {
+		return arity;
+	}
+
+	/**
+	 * Boolean method to check if our heap is truly a heap.
+	 *
+	 * @return true if no node has a smaller key than its parent and every
+	 *         PQAble knows its own index
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean isHeap() {
+		for (int i = 0; i < count; i++) {
+			if (heap[i].getIndex() != i
+					|| keys[i] != key.applyAsLong((T) heap[i]))
+				return false;
+			if (i > 0 && keys[i] < keys[(i - 1) >>> shift])
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(keys[i]);
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,550 @@
+package com.putable.pqueue;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the PQueue implementations other than PQueueAdvanced. Each
+ * one is run through the same kind of operations that Frob World does --
+ * removing whatever is due, rescheduling it a period later, and deleting
+ * random elements as grass gets eaten -- side by side with a PQueueAdvanced,
+ * and must hand back elements with the same priorities in the same order.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class PQueueImplementationsTest {
+
+	/**
+	 * Method to make a PQAble the way World does.
+	 *
+	 * @param rand
+	 *            random number generator
+	 * @param period
+	 *            its update period
+	 * @param day
+	 *            the current day
+	 * @return a new PQAble
+	 */
+	public ConcretePQAble make(Random rand, int period, int day) {
+		ConcretePQAble c = new ConcretePQAble();
+		c.rand = rand;
+		c.setUpdatePeriod(period);
+		c.setInitialNextUpdate(day);
+		return c;
+	}
+
+	/**
+	 * Runs a simulated Frob World schedule on a PQueue and a PQueueAdvanced at
+	 * the same time and checks that they agree at every step. Every PQAble in
+	 * the PQueue under test has a twin with the same priority and update
+	 * period in the PQueueAdvanced. Since the two queues may break ties
+	 * differently, twins get swapped around whenever the queues hand back
+	 * different PQAbles with the same priority.
+	 * 
+	 * @param test
+	 *            the PQueue under test
+	 * @param seed
+	 *            seed for the schedule
+	 * @param population
+	 *            how many PQAbles to start with
+	 * @param maxPeriod
+	 *            the largest update period to use
+	 * @param days
+	 *            how many days to simulate
+	 */
+	public void crossCheck(PQueue<ConcretePQAble> test, long seed,
+			int population, int maxPeriod, int days) {
+		Random ops = new Random(seed);
+		Random ra = new Random(seed + 1), rb = new Random(seed + 1);
+		PQueue<ConcretePQAble> ref = new PQueueAdvanced<ConcretePQAble>();
+		List<ConcretePQAble> all = new ArrayList<ConcretePQAble>();
+		Map<PQAble, ConcretePQAble> toRef = new IdentityHashMap<PQAble, ConcretePQAble>();
+		Map<PQAble, ConcretePQAble> toTest = new IdentityHashMap<PQAble, ConcretePQAble>();
+		for (int i = 0; i < population; i++) {
+			int period = ops.nextInt(maxPeriod) + 1;
+			ConcretePQAble a = make(ra, period, 0);
+			ConcretePQAble b = make(rb, period, 0);
+			test.insert(a);
+			ref.insert(b);
+			all.add(a);
+			toRef.put(a, b);
+			toTest.put(b, a);
+		}
+		for (int day = 0; day < days && ref.size() > 0; day++) {
+			while (ref.top() != null
+					&& ref.top().getNextUpdate() == day) {
+				assertTrue(test.size() == ref.size());
+				assertTrue(test.top().getNextUpdate() == day);
+				ConcretePQAble r = ref.remove();
+				ConcretePQAble t = test.remove();
+				assertTrue(t.getPQueue() == null);
+				assertTrue(r.getNextUpdate() == t.getNextUpdate());
+				ConcretePQAble r0 = toRef.get(t);
+				if (r0 != r) {
+					ConcretePQAble t0 = toTest.get(r);
+					toRef.put(t0, r0);
+					toTest.put(r0, t0);
+					t0.setUpdatePeriod(r0.getUpdatePeriod());
+					toRef.put(t, r);
+					toTest.put(r, t);
+					t.setUpdatePeriod(r.getUpdatePeriod());
+				}
+				if (ops.nextInt(10) > 0) {
+					r.reschedule();
+					t.reschedule();
+					ref.insert(r);
+					test.insert(t);
+				}
+				// eat some grass
+				if (ops.nextInt(4) == 0) {
+					ConcretePQAble a = all.get(ops.nextInt(all.size()));
+					if (a.getPQueue() == test) {
+						ConcretePQAble b = toRef.get(a);
+						assertTrue(b.getPQueue() == ref);
+						assertTrue(a.getNextUpdate() == b.getNextUpdate());
+						test.delete(a);
+						ref.delete(b);
+						assertTrue(a.getPQueue() == null);
+					}
+				}
+			}
+			assertTrue(test.size() == ref.size());
+		}
+	}
+
+	/**
+	 * Checks removeThrough against removing one PQAble at a time from a
+	 * PQueueAdvanced, a day at a time, with PQAbles due on the current day
+	 * still being inserted after each day is drained.
+	 * 
+	 * @param test
+	 *            the PQueue under test
+	 * @param seed
+	 *            seed for the PQAbles
+	 * @param population
+	 *            how many PQAbles to start with
+	 */
+	public void drainCheck(PQueue<ConcretePQAble> test, long seed,
+			int population) {
+		Random ra = new Random(seed), rb = new Random(seed);
+		PQueue<ConcretePQAble> ref = new PQueueAdvanced<ConcretePQAble>();
+		for (int i = 0; i < population; i++) {
+			test.insert(make(ra, 50, 0));
+			ref.insert(make(rb, 50, 0));
+		}
+		ConcretePQAble bound = new ConcretePQAble();
+		List<PQAble> buffer = new ArrayList<PQAble>();
+		for (int day = 0; day < 60; day += 3) {
+			bound.setNextUpdate(day);
+			buffer.clear();
+			int n = test.removeThrough(bound, buffer);
+			assertTrue(n == buffer.size());
+			int last = -1;
+			for (PQAble p : buffer) {
+				ConcretePQAble c = (ConcretePQAble) p;
+				ConcretePQAble r = ref.remove();
+				assertTrue(c.getPQueue() == null);
+				assertTrue(c.getNextUpdate() >= last);
+				assertTrue(c.getNextUpdate() <= day);
+				assertTrue(c.getNextUpdate() == r.getNextUpdate());
+				last = c.getNextUpdate();
+			}
+			assertTrue(ref.top() == null
+					|| ref.top().getNextUpdate() > day);
+			for (int i = 0; i < 10; i++) {
+				test.insert(make(ra, 1, day));
+				ref.insert(make(rb, 1, day));
+			}
+			assertTrue(test.size() == ref.size());
+		}
+	}
+
+	@Test
+	public void testDrain() {
+		drainCheck(new PQueueAdvanced<ConcretePQAble>(), 10, 2000);
+		drainCheck(new PQueueAdvanced<ConcretePQAble>(), 11, 20);
+		drainCheck(new PQueueDAry<ConcretePQAble>(), 12, 2000);
+		drainCheck(new PQueueRadix<ConcretePQAble>(), 13, 2000);
+		drainCheck(new PQueueTimingWheel<ConcretePQAble>(), 14, 2000);
+		drainCheck(new PQueueAdvanced<ConcretePQAble>(
+				ConcretePQAble::getNextUpdate), 26, 2000);
+	}
+
+	/**
+	 * Checks that removeThrough on a PQueueAdvanced in lazy deletion mode
+	 * skips the dead and leaves a heap behind.
+	 * 
+	 * @param p
+	 *            the PQueueAdvanced under test
+	 * @param seed
+	 *            seed for the PQAbles
+	 */
+	public void lazyDrainCheck(PQueueAdvanced<ConcretePQAble> p, long seed) {
+		Random rand = new Random(seed);
+		p.setLazyDelete(true);
+		List<ConcretePQAble> all = new ArrayList<ConcretePQAble>();
+		for (int i = 0; i < 1000; i++) {
+			ConcretePQAble c = make(rand, 100, 0);
+			p.insert(c);
+			all.add(c);
+		}
+		for (int i = 0; i < 200; i += 2)
+			p.delete(all.get(i));
+		ConcretePQAble bound = new ConcretePQAble();
+		bound.setNextUpdate(50);
+		List<PQAble> buffer = new ArrayList<PQAble>();
+		p.removeThrough(bound, buffer);
+		for (PQAble out : buffer)
+			assertTrue(all.indexOf(out) >= 200 || all.indexOf(out) % 2 == 1);
+		assertTrue(p.size() + buffer.size() == 900);
+		assertTrue(p.isHeap(1));
+		assertTrue(p.top().getNextUpdate() > 50);
+	}
+
+	@Test
+	public void testDrainLazy() {
+		lazyDrainCheck(new PQueueAdvanced<ConcretePQAble>(), 15);
+		lazyDrainCheck(new PQueueAdvanced<ConcretePQAble>(100, true,
+				ConcretePQAble::getNextUpdate), 29);
+	}
+
+	/**
+	 * Checks that iterating over a PQueue visits every PQAble on it exactly
+	 * once and leaves the PQueue alone, both sequentially and in parallel.
+	 * 
+	 * @param test
+	 *            the PQueue under test
+	 * @param seed
+	 *            seed for the PQAbles
+	 */
+	public void iterateCheck(PQueue<ConcretePQAble> test, long seed) {
+		Random rand = new Random(seed);
+		List<ConcretePQAble> all = new ArrayList<ConcretePQAble>();
+		long sum = 0;
+		for (int i = 0; i < 5000; i++) {
+			ConcretePQAble c = make(rand, 3000, 0);
+			test.insert(c);
+			all.add(c);
+		}
+		for (int i = 0; i < 1000; i += 3)
+			test.delete(all.get(i));
+		for (int i = 0; i < all.size(); i++)
+			if (i >= 1000 || i % 3 != 0)
+				sum += all.get(i).getNextUpdate();
+		Map<PQAble, Boolean> seen = new IdentityHashMap<PQAble, Boolean>();
+		int n = 0;
+		for (PQAble p : test) {
+			assertTrue(p.getPQueue() == test);
+			assertTrue(seen.put(p, Boolean.TRUE) == null);
+			n++;
+		}
+		assertTrue(n == test.size());
+		final AtomicInteger count = new AtomicInteger();
+		test.forEach(p -> count.incrementAndGet());
+		assertTrue(count.get() == test.size());
+		long parallelSum = test.stream().parallel()
+				.mapToLong(p -> p.getNextUpdate()).sum();
+		assertTrue(parallelSum == sum);
+		assertTrue(test.stream().parallel().count() == test.size());
+		// nothing was taken off
+		int last = -1;
+		while (test.top() != null) {
+			ConcretePQAble c = test.remove();
+			assertTrue(c.getNextUpdate() >= last);
+			last = c.getNextUpdate();
+			n--;
+		}
+		assertTrue(n == 0);
+	}
+
+	/**
+	 * A PQueue written only against the original course interface, so that
+	 * it relies on every default method, such as
+	 * {@link PQueue#spliterator()}.
+	 */
+	private static final class ListPQueue<T extends PQAble> implements
+			PQueue<T> {
+		private final List<T> list = new ArrayList<T>();
+
+		@Override
+		public T remove() {
+			T top = top();
+			if (top != null) {
+				list.remove(top);
+				top.setPQueue(null);
+			}
+			return top;
+		}
+
+		@Override
+		public T top() {
+			T top = null;
+			for (T p : list)
+				if (top == null || p.compareTo(top) < 0)
+					top = p;
+			return top;
+		}
+
+		@Override
+		public void insert(T p) {
+			if (p.getPQueue() != null)
+				throw new IllegalStateException();
+			p.setPQueue(this);
+			list.add(p);
+		}
+
+		@Override
+		public void delete(T p) {
+			if (p.getPQueue() != this)
+				throw new IllegalStateException();
+			list.remove(p);
+			p.setPQueue(null);
+		}
+
+		@Override
+		public int size() {
+			return list.size();
+		}
+
+		@Override
+		public boolean isAdvanced() {
+			return true;
+		}
+	}
+
+	@Test
+	public void testIterate() {
+		iterateCheck(new PQueueAdvanced<ConcretePQAble>(), 16);
+		iterateCheck(new PQueueDAry<ConcretePQAble>(), 17);
+		iterateCheck(new PQueueRadix<ConcretePQAble>(), 18);
+		iterateCheck(new PQueueTimingWheel<ConcretePQAble>(), 19);
+		PQueueAdvanced<ConcretePQAble> lazy;
+		lazy = new PQueueAdvanced<ConcretePQAble>();
+		lazy.setLazyDelete(true);
+		iterateCheck(lazy, 20);
+		iterateCheck(new ListPQueue<ConcretePQAble>(), 21);
+		iterateCheck(new PQueueAdvanced<ConcretePQAble>(
+				ConcretePQAble::getNextUpdate), 27);
+	}
+
+	@Test
+	public void testKeyedBinaryHeap() {
+		crossCheck(new PQueueAdvanced<ConcretePQAble>(
+				ConcretePQAble::getNextUpdate), 28, 300, 36, 3000);
+	}
+
+	@Test
+	public void testDAry4() {
+		crossCheck(new PQueueDAry<ConcretePQAble>(4), 1, 300, 36, 3000);
+	}
+
+	@Test
+	public void testDAry8() {
+		crossCheck(new PQueueDAry<ConcretePQAble>(8), 2, 300, 100, 3000);
+	}
+
+	@Test
+	public void testDAryIsHeap() {
+		Random rand = new Random(3);
+		PQueueDAry<ConcretePQAble> p = new PQueueDAry<ConcretePQAble>(8);
+		List<ConcretePQAble> all = new ArrayList<ConcretePQAble>();
+		for (int i = 0; i < 1000; i++) {
+			ConcretePQAble c = make(rand, 1000, 0);
+			p.insert(c);
+			all.add(c);
+		}
+		assertTrue(p.isHeap());
+		for (int i = 0; i < 500; i++)
+			p.delete(all.get(i));
+		assertTrue(p.isHeap());
+		assertTrue(p.size() == 500);
+	}
+
+	@Test
+	public void testRadix() {
+		crossCheck(new PQueueRadix<ConcretePQAble>(), 4, 300, 36, 3000);
+	}
+
+	@Test
+	public void testRadixLongPeriods() {
+		crossCheck(new PQueueRadix<ConcretePQAble>(), 5, 1000, 5000, 20000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void radixMonotoneTest() {
+		Random rand = new Random(6);
+		PQueue<ConcretePQAble> p = new PQueueRadix<ConcretePQAble>();
+		p.insert(make(rand, 1, 10));
+		p.remove();
+		p.insert(make(rand, 1, 9));
+	}
+
+	@Test
+	public void testTimingWheel() {
+		crossCheck(new PQueueTimingWheel<ConcretePQAble>(), 7, 300, 36, 3000);
+	}
+
+	@Test
+	public void testTimingWheelLongPeriods() {
+		crossCheck(new PQueueTimingWheel<ConcretePQAble>(), 8, 1000, 100000,
+				400000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void timingWheelMonotoneTest() {
+		Random rand = new Random(9);
+		PQueue<ConcretePQAble> p = new PQueueTimingWheel<ConcretePQAble>();
+		p.insert(make(rand, 1, 100));
+		p.remove();
+		p.insert(make(rand, 1, 99));
+	}
+
+	@Test
+	public void testKeyFunction() {
+		Random rand = new Random(21);
+		List<PQueue<ConcretePQAble>> queues;
+		queues = new ArrayList<PQueue<ConcretePQAble>>();
+		// latest update first
+		queues.add(new PQueueDAry<ConcretePQAble>(4,
+				c -> -c.getNextUpdate()));
+		// by update period, which only ever goes up here
+		queues.add(new PQueueRadix<ConcretePQAble>(
+				ConcretePQAble::getUpdatePeriod));
+		queues.add(new PQueueTimingWheel<ConcretePQAble>(
+				ConcretePQAble::getUpdatePeriod));
+		// latest update first again, against compareTo
+		queues.add(new PQueueAdvanced<ConcretePQAble>(
+				c -> -c.getNextUpdate()));
+		for (int i = 0; i < 500; i++) {
+			ConcretePQAble c = make(rand, rand.nextInt(1000) + 1, 0);
+			for (PQueue<ConcretePQAble> q : queues) {
+				if (c.getPQueue() != null) {
+					ConcretePQAble d = make(rand, c.getUpdatePeriod(), 0);
+					d.setNextUpdate(c.getNextUpdate());
+					q.insert(d);
+				} else
+					q.insert(c);
+			}
+		}
+		int last = Integer.MAX_VALUE;
+		for (ConcretePQAble c = queues.get(0).remove(); c != null; c = queues
+				.get(0).remove()) {
+			assertTrue(c.getNextUpdate() <= last);
+			last = c.getNextUpdate();
+		}
+		last = Integer.MAX_VALUE;
+		for (ConcretePQAble c = queues.get(3).remove(); c != null; c = queues
+				.get(3).remove()) {
+			assertTrue(c.getNextUpdate() <= last);
+			last = c.getNextUpdate();
+		}
+		for (PQueue<ConcretePQAble> q : queues.subList(1, 3)) {
+			last = 0;
+			while (q.size() > 0) {
+				ConcretePQAble c = q.remove();
+				assertTrue(c.getUpdatePeriod() >= last);
+				last = c.getUpdatePeriod();
+			}
+		}
+	}
+
+	/**
+	 * Checks that a PQueue counts the PQAbles going in and out of it, does
+	 * some comparing and sifting along the way, and stops counting once its
+	 * PQueueStats are taken away.
+	 * 
+	 * @param test
+	 *            the PQueue under test
+	 * @param seed
+	 *            seed for the PQAbles
+	 */
+	public void statsCheck(PQueue<ConcretePQAble> test, long seed) {
+		Random rand = new Random(seed);
+		PQueueStats stats = new PQueueStats();
+		test.setStats(stats);
+		assertTrue(test.getStats() == stats);
+		List<ConcretePQAble> all = new ArrayList<ConcretePQAble>();
+		for (int i = 0; i < 3000; i++) {
+			ConcretePQAble c = make(rand, 500, 0);
+			test.insert(c);
+			all.add(c);
+		}
+		for (int i = 0; i < 300; i++)
+			test.delete(all.get(i));
+		for (int i = 0; i < 1000; i++)
+			test.remove();
+		ConcretePQAble bound = new ConcretePQAble();
+		bound.setNextUpdate(test.top().getNextUpdate() + 20);
+		int drained = test.removeThrough(bound, new ArrayList<PQAble>());
+		assertTrue(stats.getInserts() == 3000);
+		assertTrue(stats.getDeletes() == 300);
+		assertTrue(stats.getRemoves() == 1000 + drained);
+		assertTrue(stats.getComparisons() > 0);
+		assertTrue(stats.getSifts() > 0);
+		assertTrue(stats.getAverageSiftDepth() > 0);
+		assertTrue(stats.getResizes() > 0);
+		stats.reset();
+		assertTrue(stats.getInserts() == 0 && stats.getComparisons() == 0);
+		assertTrue(stats.getAverageSiftDepth() == 0);
+		test.setStats(null);
+		assertTrue(test.getStats() == null);
+		test.remove();
+		assertTrue(stats.getRemoves() == 0);
+	}
+
+	@Test
+	public void testStats() {
+		statsCheck(new PQueueAdvanced<ConcretePQAble>(), 21);
+		statsCheck(new PQueueDAry<ConcretePQAble>(), 22);
+		statsCheck(new PQueueRadix<ConcretePQAble>(), 23);
+		statsCheck(new PQueueTimingWheel<ConcretePQAble>(), 24);
+		PQueueAdvanced<ConcretePQAble> lazy;
+		lazy = new PQueueAdvanced<ConcretePQAble>();
+		lazy.setLazyDelete(true);
+		statsCheck(lazy, 25);
+		statsCheck(new PQueueAdvanced<ConcretePQAble>(
+				ConcretePQAble::getNextUpdate), 30);
+	}
+
+	@Test
+	public void testDefaultStats() {
+		// a PQueue that can't count ignores its counters
+		PQueue<ConcretePQAble> p = new ListPQueue<ConcretePQAble>();
+		p.setStats(new PQueueStats());
+		assertTrue(p.getStats() == null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void dAryArityTest() {
+		new PQueueDAry<ConcretePQAble>(3);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void dAryInsertIllegalStateTest() {
+		PQueue<ConcretePQAble> pq1 = new PQueueDAry<ConcretePQAble>();
+		PQueue<ConcretePQAble> pq2 = new PQueueDAry<ConcretePQAble>();
+		ConcretePQAble p = new ConcretePQAble();
+		p.setUpdatePeriod(10);
+		pq1.insert(p);
+		pq2.insert(p);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void dAryDeleteIllegalStateTest() {
+		PQueue<ConcretePQAble> pq1 = new PQueueDAry<ConcretePQAble>();
+		PQueue<ConcretePQAble> pq2 = new PQueueDAry<ConcretePQAble>();
+		ConcretePQAble p = new ConcretePQAble();
+		p.setUpdatePeriod(10);
+		pq1.insert(p);
+		pq2.delete(p);
+	}
+}
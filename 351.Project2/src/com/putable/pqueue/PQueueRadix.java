@@ -0,0 +1,344 @@
+package com.putable.pqueue;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.ToLongFunction;
+
+/**
+ * A radix heap implementation of {@link PQueue}, ordered by a primitive key
+ * taken from each element when it is inserted (by default a
+ * {@link ConcretePQAble}'s next update). A radix heap only works when
+ * priorities are <i>monotone</i>: nothing may be inserted with a key lower
+ * than the last one that came off the top of the PQueue. That is exactly how Frob World schedules its Beings -- they
+ * are removed on the current day and go back on at the current day plus their
+ * update period -- and in exchange all operations are amortized O(log C),
+ * where C is the largest update period, no matter how big the PQueue is.
+ *
+ * <p>
+ * Elements are kept in buckets by the highest bit in which their next update
+ * differs from the last priority handed out: bucket 0 holds elements due at
+ * exactly that priority, and bucket b holds elements that first differ from it
+ * in bit b-1. When bucket 0 runs dry, the lowest non-empty bucket is emptied
+ * into the buckets below it, and each element moves down at most once per bit.
+ *
+ * <p>
+ * Each bucket is a plain array, and each PQAble's index encodes both its
+ * bucket and its position in that bucket, so {@link #delete(PQAble)} is O(1).
+ * Note that {@link #top()} counts as handing out a priority, so nothing may be
+ * inserted below a priority that has been looked at with top() either.
+ *
+ * @author Brennan Collins
+ *
+ * @param <T>
+ *            the type of PQAble held by the PQueue
+ */
+public class PQueueRadix<T extends PQAble> implements PQueue<T> {
+	// bits of a PQAble's index that hold its bucket
+	private static final int BUCKET_BITS = 7, BUCKET_MASK = (1 << BUCKET_BITS) - 1;
+	// one bucket for equal to last, plus one per bit of a long
+	private static final int BUCKETS = 65;
+	// the PQAbles in each bucket, and their keys
+	private final PQAble[][] buckets = new PQAble[BUCKETS][];
+	private final long[][] bucketKeys = new long[BUCKETS][];
+	// how many PQAbles are in each bucket
+	private final int[] sizes = new int[BUCKETS];
+	// the last priority handed out by top() or remove()
+	private long last = Long.MIN_VALUE;
+	// how many PQAbles are inside of our PQueue
+	private int count = 0;
+	// the priority of each PQAble
+	private final ToLongFunction<? super T> key;
+	// where to count our work, or null to not count it
+	private PQueueStats stats;
+
+	/**
+	 * Default constructor for our PQueue, which orders ConcretePQAbles by
+	 * their next update. Every bucket starts out small and grows as needed.
+	 */
+	public PQueueRadix() {
+		this(ConcretePQAble::nextUpdateOf);
+	}
+
+	/**
+	 * Constructor for a PQueue that orders its PQAbles by something other than
+	 * their next update. Lower keys come out first.
+	 * 
+	 * @param key
+	 *            the priority of each PQAble, which must agree with its
+	 *            compareTo and must not change while it is on the PQueue
+	 */
+	public PQueueRadix(ToLongFunction<? super T> key) {
+		if (key == null)
+			throw new NullPointerException();
+		this.key = key;
+		for (int b = 0; b < BUCKETS; b++) {
+			buckets[b] = new PQAble[4];
+			bucketKeys[b] = new long[4];
+		}
+	}
+
+	/**
+	 * Method to find which bucket a key belongs in.
+	 *
+	 * @param key
+	 *            a key no smaller than last
+	 * @return 0 if key equals last, or one more than the highest bit in which
+	 *         key and last differ
+	 */
+	private int bucketOf(long key) {
+		return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+	}
+
+	/**
+	 * Method to add a PQAble to the end of a bucket.
+	 *
+	 * @param b
+	 *            the bucket
+	 * @param p
+	 *            the PQAble
+	 * @param key
+	 *            the key of p
+	 */
+	private void append(int b, PQAble p, long key) {
+		int pos = sizes[b]++;
+		if (pos == buckets[b].length) {
+			PQueueResizeEvent.resized(this, pos, pos * 2);
+			PQAble[] tempBucket = new PQAble[pos * 2];
+			long[] tempKeys = new long[pos * 2];
+			System.arraycopy(buckets[b], 0, tempBucket, 0, pos);
+			System.arraycopy(bucketKeys[b], 0, tempKeys, 0, pos);
+			buckets[b] = tempBucket;
+			bucketKeys[b] = tempKeys;
+			if (stats != null)
+				stats.resizes++;
+		}
+		buckets[b][pos] = p;
+		bucketKeys[b][pos] = key;
+		p.setIndex((pos << BUCKET_BITS) | b);
+	}
+
+	/**
+	 * Method to take a PQAble out of a bucket by moving the bucket's last
+	 * PQAble into its place.
+	 *
+	 * @param b
+	 *            the bucket
+	 * @param pos
+	 *            the position of the PQAble to take out
+	 */
+	private void unlink(int b, int pos) {
+		int lastPos = --sizes[b];
+		if (pos != lastPos) {
+			PQAble moved = buckets[b][lastPos];
+			buckets[b][pos] = moved;
+			bucketKeys[b][pos] = bucketKeys[b][lastPos];
+			moved.setIndex((pos << BUCKET_BITS) | b);
+		}
+		buckets[b][lastPos] = null;
+	}
+
+	/**
+	 * Method to find the lowest non-empty bucket above bucket 0.
+	 * 
+	 * @return the bucket
+	 */
+	private int lowestBucket() {
+		int b = 1;
+		while (sizes[b] == 0)
+			b++;
+		return b;
+	}
+
+	/**
+	 * Method to find the smallest key in a bucket.
+	 * 
+	 * @param b
+	 *            a non-empty bucket
+	 * @return its smallest key
+	 */
+	private long minKey(int b) {
+		long[] keys = bucketKeys[b];
+		long min = keys[0];
+		for (int i = 1; i < sizes[b]; i++)
+			if (keys[i] < min)
+				min = keys[i];
+		if (stats != null)
+			stats.comparisons += sizes[b] - 1;
+		return min;
+	}
+
+	/**
+	 * When bucket 0 is empty, makes min the new last and spreads the
+	 * PQAbles of bucket b out over the buckets below it. Afterwards bucket 0
+	 * is not empty.
+	 * 
+	 * @param b
+	 *            the lowest non-empty bucket
+	 * @param min
+	 *            the smallest key in bucket b
+	 */
+	private void pull(int b, long min) {
+		PQAble[] bucket = buckets[b];
+		long[] keys = bucketKeys[b];
+		int n = sizes[b];
+		last = min;
+		sizes[b] = 0;
+		for (int i = 0; i < n; i++) {
+			PQAble p = bucket[i];
+			bucket[i] = null;
+			append(bucketOf(keys[i]), p, keys[i]);
+		}
+		if (stats != null) {
+			stats.sifts += n;
+			stats.siftLevels += n;
+		}
+	}
+
+	@Override
+	public T remove() {
+		T top = top();
+		if (top == null)
+			return null;
+		unlink(0, sizes[0] - 1);
+		count--;
+		top.setPQueue(null);
+		if (stats != null)
+			stats.removes++;
+		return top;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T top() {
+		if (count == 0)
+			return null;
+		if (sizes[0] == 0) {
+			int b = lowestBucket();
+			pull(b, minKey(b));
+		}
+		return (T) buckets[0][sizes[0] - 1];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Whole buckets are handed out at once. Unlike calling {@link #top()},
+	 * this never moves the last priority handed out past bound's, so PQAbles
+	 * due at bound may still be inserted afterwards.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public int removeThrough(T bound, List<? super T> buffer) {
+		if (bound == null || buffer == null)
+			throw new NullPointerException();
+		long limit = key.applyAsLong(bound);
+		int removed = 0;
+		while (count > 0) {
+			if (stats != null)
+				stats.comparisons++;
+			if (sizes[0] == 0) {
+				int b = lowestBucket();
+				long min = minKey(b);
+				if (min > limit)
+					break;
+				pull(b, min);
+			} else if (last > limit)
+				break;
+			PQAble[] bucket = buckets[0];
+			int n = sizes[0];
+			for (int i = 0; i < n; i++) {
+				PQAble p = bucket[i];
+				bucket[i] = null;
+				p.setPQueue(null);
+				buffer.add((T) p);
+			}
+			sizes[0] = 0;
+			count -= n;
+			removed += n;
+		}
+		if (stats != null)
+			stats.removes += removed;
+		return removed;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException
+	 *             If p is due earlier than a priority that has already been
+	 *             handed out by {@link #top()} or {@link #remove()}
+	 */
+	@Override
+	public void insert(T p) {
+		if (p == null)
+			throw new NullPointerException();
+		if (p.getPQueue() != null)
+			throw new IllegalStateException();
+		long key = this.key.applyAsLong(p);
+		if (key < last)
+			throw new IllegalArgumentException("priority " + key
+					+ " is earlier than " + last);
+		p.setPQueue(this);
+		append(bucketOf(key), p, key);
+		count++;
+		if (stats != null)
+			stats.inserts++;
+	}
+
+	@Override
+	public void delete(T p) {
+		if (p == null)
+			throw new NullPointerException();
+		if (p.getPQueue() != this)
+			throw new IllegalStateException();
+		int index = p.getIndex();
+		unlink(index & BUCKET_MASK, index >>> BUCKET_BITS);
+		count--;
+		p.setPQueue(null);
+		if (stats != null)
+			stats.deletes++;
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return new SlotSpliterator<T>(buckets, sizes, 0, BUCKETS, count);
+	}
+
+	@Override
+	public void setStats(PQueueStats stats) {
+		this.stats = stats;
+	}
+
+	@Override
+	public PQueueStats getStats() {
+		return stats;
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public boolean isAdvanced() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("last = " + last);
+		for (int b = 0; b < BUCKETS; b++) {
+			if (sizes[b] == 0)
+				continue;
+			sb.append("\n").append(b).append(": [");
+			for (int i = 0; i < sizes[b]; i++) {
+				if (i > 0)
+					sb.append(", ");
+				sb.append(bucketKeys[b][i]);
+			}
+			sb.append(']');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,55 @@
+package com.putable.pqueue;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a PQueue moving its PQAbles into a bigger or
+ * smaller array. For {@link PQueueRadix} and {@link PQueueTimingWheel} that
+ * is one bucket or slot growing, not the whole PQueue.
+ * 
+ * @author Brennan Collins
+ * 
+ */
+@Name("com.putable.pqueue.Resize")
+@Label("PQueue Resize")
+@Category("Frob World")
+@Description("A PQueue moving into a bigger or smaller array")
+class PQueueResizeEvent extends Event {
+	@Label("PQueue")
+	String queue;
+
+	@Label("Old Capacity")
+	int oldCapacity;
+
+	@Label("New Capacity")
+	int newCapacity;
+
+	@Label("Size")
+	@Description("How many PQAbles were on the PQueue")
+	int size;
+
+	/**
+	 * Method to record a resize, if anybody is recording.
+	 * 
+	 * @param queue
+	 *            the PQueue that resized
+	 * @param oldCapacity
+	 *            how many PQAbles the array held before
+	 * @param newCapacity
+	 *            how many PQAbles the array holds now
+	 */
+	static void resized(PQueue<?> queue, int oldCapacity, int newCapacity) {
+		PQueueResizeEvent event = new PQueueResizeEvent();
+		if (!event.shouldCommit())
+			return;
+		event.queue = queue.getClass().getSimpleName();
+		event.oldCapacity = oldCapacity;
+		event.newCapacity = newCapacity;
+		event.size = queue.size();
+		event.commit();
+	}
+}
@@ -0,0 +1,170 @@
+package com.putable.pqueue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters for the work a PQueue does: how many PQAbles go in and out, how
+ * many priorities get compared, how far PQAbles get sifted, and how often the
+ * PQueue resizes. A PQueue only counts while it has been handed a
+ * PQueueStats with {@link PQueue#setStats(PQueueStats)}; otherwise each
+ * operation only pays for one null check.
+ *
+ * <p>
+ * The counters are plain fields updated by the thread using the PQueue. They
+ * may be read from any other thread (over JMX, say), but the values seen
+ * there can be slightly behind. A PQueue shared between threads, like
+ * {@link ConcurrentPQueue}, counts in a set of {@link LongAdder}s instead
+ * (see {@link #shared()}), which are added in whenever the counters are read.
+ *
+ * <p>
+ * What counts as a sift depends on the PQueue. For the heaps it is one
+ * bubble up or sink down, and its depth is how many levels the PQAble moved.
+ * For {@link PQueueRadix} and {@link PQueueTimingWheel}, it is a PQAble being
+ * moved from one bucket or slot to a lower one, which always has a depth of
+ * 1.
+ *
+ * @author Brennan Collins
+ *
+ */
+public class PQueueStats implements PQueueStatsMBean {
+	// the JMX domain that PQueueStats are registered under
+	private static final String DOMAIN = "com.putable.pqueue";
+	// the counters, updated directly by the PQueues in this package
+	long inserts, removes, deletes, comparisons, sifts, siftLevels, resizes;
+	// the counters of PQueues shared between threads, or null until one asks
+	private volatile Shared shared;
+
+	/**
+	 * Counters that any number of threads can add to at once without losing
+	 * counts, for PQueues shared between threads. Threads adding to the same
+	 * LongAdder mostly touch different cells of it, so they don't fight over
+	 * one cache line the way an AtomicLong would make them.
+	 */
+	static final class Shared {
+		final LongAdder inserts = new LongAdder(), removes = new LongAdder(),
+				deletes = new LongAdder(), comparisons = new LongAdder();
+	}
+
+	/**
+	 * Method to get the counters a PQueue shared between threads should add
+	 * to, making them the first time they are asked for.
+	 * 
+	 * @return the shared counters
+	 */
+	Shared shared() {
+		Shared s = shared;
+		if (s == null) {
+			synchronized (this) {
+				s = shared;
+				if (s == null)
+					shared = s = new Shared();
+			}
+		}
+		return s;
+	}
+
+	@Override
+	public long getInserts() {
+		Shared s = shared;
+		return s == null ? inserts : inserts + s.inserts.sum();
+	}
+
+	@Override
+	public long getRemoves() {
+		Shared s = shared;
+		return s == null ? removes : removes + s.removes.sum();
+	}
+
+	@Override
+	public long getDeletes() {
+		Shared s = shared;
+		return s == null ? deletes : deletes + s.deletes.sum();
+	}
+
+	@Override
+	public long getComparisons() {
+		Shared s = shared;
+		return s == null ? comparisons : comparisons + s.comparisons.sum();
+	}
+
+	@Override
+	public long getSifts() {
+		return sifts;
+	}
+
+	@Override
+	public double getAverageSiftDepth() {
+		long s = sifts;
+		return s == 0 ? 0 : (double) siftLevels / s;
+	}
+
+	@Override
+	public long getResizes() {
+		return resizes;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Counts added by other threads while this runs may or may not survive it.
+	 */
+	@Override
+	public void reset() {
+		inserts = removes = deletes = comparisons = sifts = siftLevels = resizes = 0;
+		Shared s = shared;
+		if (s != null) {
+			s.inserts.reset();
+			s.removes.reset();
+			s.deletes.reset();
+			s.comparisons.reset();
+		}
+	}
+
+	/**
+	 * Method to count one sift.
+	 *
+	 * @param levels
+	 *            how many levels the PQAble moved
+	 */
+	void sift(int levels) {
+		sifts++;
+		siftLevels += levels;
+	}
+
+	/**
+	 * Method to publish these counters in the platform MBean server as
+	 * <code>com.putable.pqueue:type=PQueueStats,name=</code><i>name</i>. Anything
+	 * already registered under that name is replaced.
+	 *
+	 * @param name
+	 *            which PQueue these counters belong to
+	 * @return the name they were registered under
+	 * @throws JMException
+	 *             if the name is malformed or the MBean server refuses them
+	 */
+	public ObjectName register(String name) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName(DOMAIN
+				+ ":type=PQueueStats,name=" + ObjectName.quote(name));
+		if (server.isRegistered(objectName))
+			server.unregisterMBean(objectName);
+		server.registerMBean(this, objectName);
+		return objectName;
+	}
+
+	@Override
+	public String toString() {
+		return "inserts = " + getInserts() + ", removes = " + getRemoves()
+				+ ", deletes = " + getDeletes() + ", comparisons = "
+				+ getComparisons()
+				+ ", average sift depth = "
+				+ String.format("%.2f", getAverageSiftDepth())
+				+ ", resizes = " + resizes;
+	}
+}
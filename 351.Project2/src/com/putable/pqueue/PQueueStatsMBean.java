@@ -0,0 +1,54 @@
+package com.putable.pqueue;
+
+/**
+ * The management interface of {@link PQueueStats}, so the counters of a
+ * PQueue can be watched over JMX (with jconsole, for instance).
+ *
+ * @author Brennan Collins
+ *
+ */
+public interface PQueueStatsMBean {
+	/**
+	 * @return how many PQAbles have been inserted
+	 */
+	long getInserts();
+
+	/**
+	 * @return how many PQAbles have been taken off the top, one at a time or
+	 *         by removeThrough
+	 */
+	long getRemoves();
+
+	/**
+	 * @return how many PQAbles have been deleted
+	 */
+	long getDeletes();
+
+	/**
+	 * @return how many times two priorities have been compared
+	 */
+	long getComparisons();
+
+	/**
+	 * @return how many times a PQAble has been sifted up or down, or moved to
+	 *         a lower bucket or slot
+	 */
+	long getSifts();
+
+	/**
+	 * @return the average number of levels a PQAble moves each time it is
+	 *         sifted
+	 */
+	double getAverageSiftDepth();
+
+	/**
+	 * @return how many times the PQueue has moved into a bigger or smaller
+	 *         array
+	 */
+	long getResizes();
+
+	/**
+	 * Sets every counter back to 0.
+	 */
+	void reset();
+}
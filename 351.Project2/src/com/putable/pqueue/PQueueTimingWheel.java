@@ -0,0 +1,366 @@
+package com.putable.pqueue;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.ToLongFunction;
+
+/**
+ * A hierarchical timing wheel implementation of {@link PQueue}, ordered by a
+ * primitive key taken from each element when it is inserted (by default a
+ * {@link ConcretePQAble}'s next update). Each level of the wheel has 64 slots
+ * and covers 64 times as many days as the level below it: level 0 has one slot
+ * per day, level 1 one slot per 64 days, and so on up through enough levels to
+ * cover every possible next update. Inserting drops a PQAble straight into its slot
+ * no matter how far off its next update is, and when the clock reaches a
+ * higher level slot, that slot is cascaded down into the finer levels below
+ * it. Each PQAble cascades at most once per level, so insert and remove are
+ * O(1) (amortized, for remove) for any update period.
+ *
+ * <p>
+ * Like {@link PQueueRadix}, the timing wheel needs monotone priorities:
+ * nothing may be inserted with a next update earlier than the current time of
+ * the wheel, which is the priority most recently handed out by {@link #top()}
+ * or {@link #remove()}.
+ *
+ * <p>
+ * Each slot is a plain array, and each PQAble's index encodes its slot and its
+ * position in that slot, so {@link #delete(PQAble)} is O(1). A single slot can
+ * hold up to {@link #MAX_SLOT_SIZE} PQAbles.
+ *
+ * @author Brennan Collins
+ *
+ * @param <T>
+ *            the type of PQAble held by the PQueue
+ */
+public class PQueueTimingWheel<T extends PQAble> implements PQueue<T> {
+	// slots per level and the bits of a next update that each level covers
+	private static final int WHEEL_BITS = 6, WHEEL_SIZE = 1 << WHEEL_BITS;
+	// enough levels to cover all 64 bits of a long
+	private static final int LEVELS = (64 + WHEEL_BITS - 1) / WHEEL_BITS;
+	// bits of a PQAble's index that hold its slot
+	private static final int SLOT_BITS = 10, SLOT_MASK = (1 << SLOT_BITS) - 1;
+	/**
+	 * The largest number of PQAbles that a single slot can hold.
+	 */
+	public static final int MAX_SLOT_SIZE = 1 << (32 - SLOT_BITS);
+	// the PQAbles in each slot (level * WHEEL_SIZE + slot), and their keys
+	private final PQAble[][] slots = new PQAble[LEVELS * WHEEL_SIZE][];
+	private final long[][] slotKeys = new long[LEVELS * WHEEL_SIZE][];
+	// how many PQAbles are in each slot
+	private final int[] sizes = new int[LEVELS * WHEEL_SIZE];
+	// one bit per non-empty slot on each level
+	private final long[] occupied = new long[LEVELS];
+	// the current time of the wheel
+	private long now = 0;
+	// how many PQAbles are inside of our PQueue
+	private int count = 0;
+	// the priority of each PQAble
+	private final ToLongFunction<? super T> key;
+	// where to count our work, or null to not count it
+	private PQueueStats stats;
+
+	/**
+	 * Default constructor for our PQueue, which orders ConcretePQAbles by
+	 * their next update.
+	 */
+	public PQueueTimingWheel() {
+		this(ConcretePQAble::nextUpdateOf);
+	}
+
+	/**
+	 * Constructor for a PQueue that orders its PQAbles by something other than
+	 * their next update. Lower keys come out first.
+	 * 
+	 * @param key
+	 *            the priority of each PQAble, which must agree with its
+	 *            compareTo and must not change while it is on the PQueue
+	 */
+	public PQueueTimingWheel(ToLongFunction<? super T> key) {
+		if (key == null)
+			throw new NullPointerException();
+		this.key = key;
+	}
+
+	/**
+	 * Method to find which slot a key belongs in. That is the level of the
+	 * highest digit in which the key differs from now, and the key's digit on
+	 * that level.
+	 *
+	 * @param key
+	 *            a key no smaller than now
+	 * @return level * WHEEL_SIZE + slot
+	 */
+	private int slotOf(long key) {
+		long diff = key ^ now;
+		int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff))
+				/ WHEEL_BITS;
+		int slot = (int) (key >>> (level * WHEEL_BITS)) & (WHEEL_SIZE - 1);
+		return level * WHEEL_SIZE + slot;
+	}
+
+	/**
+	 * Method to add a PQAble to the end of a slot.
+	 *
+	 * @param s
+	 *            the slot
+	 * @param p
+	 *            the PQAble
+	 * @param key
+	 *            the key of p
+	 */
+	private void append(int s, PQAble p, long key) {
+		int pos = sizes[s]++;
+		if (slots[s] == null) {
+			slots[s] = new PQAble[4];
+			slotKeys[s] = new long[4];
+		} else if (pos == slots[s].length) {
+			if (pos == MAX_SLOT_SIZE)
+				throw new IllegalStateException("timing wheel slot is full");
+			int newSize = Math.min(pos * 2, MAX_SLOT_SIZE);
+			PQueueResizeEvent.resized(this, pos, newSize);
+			PQAble[] tempSlot = new PQAble[newSize];
+			long[] tempKeys = new long[newSize];
+			System.arraycopy(slots[s], 0, tempSlot, 0, pos);
+			System.arraycopy(slotKeys[s], 0, tempKeys, 0, pos);
+			slots[s] = tempSlot;
+			slotKeys[s] = tempKeys;
+			if (stats != null)
+				stats.resizes++;
+		}
+		slots[s][pos] = p;
+		slotKeys[s][pos] = key;
+		p.setIndex((pos << SLOT_BITS) | s);
+		occupied[s / WHEEL_SIZE] |= 1L << (s % WHEEL_SIZE);
+	}
+
+	/**
+	 * Method to take a PQAble out of a slot by moving the slot's last PQAble
+	 * into its place.
+	 *
+	 * @param s
+	 *            the slot
+	 * @param pos
+	 *            the position of the PQAble to take out
+	 */
+	private void unlink(int s, int pos) {
+		int lastPos = --sizes[s];
+		if (pos != lastPos) {
+			PQAble moved = slots[s][lastPos];
+			slots[s][pos] = moved;
+			slotKeys[s][pos] = slotKeys[s][lastPos];
+			moved.setIndex((pos << SLOT_BITS) | s);
+		}
+		slots[s][lastPos] = null;
+		if (lastPos == 0)
+			occupied[s / WHEEL_SIZE] &= ~(1L << (s % WHEEL_SIZE));
+	}
+
+	/**
+	 * Method to find the lowest non-empty level above level 0.
+	 * 
+	 * @return the level
+	 */
+	private int lowestLevel() {
+		int level = 1;
+		while (occupied[level] == 0)
+			level++;
+		return level;
+	}
+
+	/**
+	 * Method to find where the earliest non-empty slot on a level starts.
+	 * 
+	 * @param level
+	 *            a non-empty level above level 0
+	 * @return the earliest time that a PQAble in that slot can be due
+	 */
+	private long slotStart(int level) {
+		int slot = Long.numberOfTrailingZeros(occupied[level]);
+		int shift = level * WHEEL_BITS;
+		// keep the digits of now above this level, and start this level's
+		// digit at the slot with nothing below it
+		int above = shift + WHEEL_BITS;
+		long high = above >= 64 ? 0 : now >>> above << above;
+		return high | ((long) slot << shift);
+	}
+
+	/**
+	 * When nothing is left on level 0, advances the clock to the start of the
+	 * earliest non-empty slot on a level and cascades that slot's PQAbles down
+	 * into the levels below it.
+	 * 
+	 * @param level
+	 *            the lowest non-empty level
+	 */
+	private void cascade(int level) {
+		int slot = Long.numberOfTrailingZeros(occupied[level]);
+		now = slotStart(level);
+		int s = level * WHEEL_SIZE + slot;
+		PQAble[] cascading = slots[s];
+		long[] keys = slotKeys[s];
+		int n = sizes[s];
+		sizes[s] = 0;
+		occupied[level] &= ~(1L << slot);
+		for (int i = 0; i < n; i++) {
+			PQAble p = cascading[i];
+			cascading[i] = null;
+			append(slotOf(keys[i]), p, keys[i]);
+		}
+		if (stats != null) {
+			stats.sifts += n;
+			stats.siftLevels += n;
+		}
+	}
+
+	@Override
+	public T remove() {
+		T top = top();
+		if (top == null)
+			return null;
+		int s = (int) (now & (WHEEL_SIZE - 1));
+		unlink(s, sizes[s] - 1);
+		count--;
+		top.setPQueue(null);
+		if (stats != null)
+			stats.removes++;
+		return top;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T top() {
+		if (count == 0)
+			return null;
+		while (occupied[0] == 0)
+			cascade(lowestLevel());
+		int s = Long.numberOfTrailingZeros(occupied[0]);
+		now = (now & ~(long) (WHEEL_SIZE - 1)) | s;
+		return (T) slots[s][sizes[s] - 1];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Whole slots are handed out at once. Unlike calling {@link #top()}, this
+	 * never moves the current time of the wheel past bound's priority, so
+	 * PQAbles due at bound may still be inserted afterwards.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public int removeThrough(T bound, List<? super T> buffer) {
+		if (bound == null || buffer == null)
+			throw new NullPointerException();
+		long limit = key.applyAsLong(bound);
+		int removed = 0;
+		while (count > 0) {
+			if (stats != null)
+				stats.comparisons++;
+			if (occupied[0] == 0) {
+				int level = lowestLevel();
+				if (slotStart(level) > limit)
+					break;
+				cascade(level);
+				continue;
+			}
+			int s = Long.numberOfTrailingZeros(occupied[0]);
+			long due = (now & ~(long) (WHEEL_SIZE - 1)) | s;
+			if (due > limit)
+				break;
+			now = due;
+			PQAble[] slot = slots[s];
+			int n = sizes[s];
+			for (int i = 0; i < n; i++) {
+				PQAble p = slot[i];
+				slot[i] = null;
+				p.setPQueue(null);
+				buffer.add((T) p);
+			}
+			sizes[s] = 0;
+			occupied[0] &= ~(1L << s);
+			count -= n;
+			removed += n;
+		}
+		if (stats != null)
+			stats.removes += removed;
+		return removed;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException
+	 *             If p is due earlier than the current time of the wheel
+	 */
+	@Override
+	public void insert(T p) {
+		if (p == null)
+			throw new NullPointerException();
+		if (p.getPQueue() != null)
+			throw new IllegalStateException();
+		long key = this.key.applyAsLong(p);
+		if (key < now)
+			throw new IllegalArgumentException("priority " + key
+					+ " is earlier than " + now);
+		p.setPQueue(this);
+		append(slotOf(key), p, key);
+		count++;
+		if (stats != null)
+			stats.inserts++;
+	}
+
+	@Override
+	public void delete(T p) {
+		if (p == null)
+			throw new NullPointerException();
+		if (p.getPQueue() != this)
+			throw new IllegalStateException();
+		int index = p.getIndex();
+		unlink(index & SLOT_MASK, index >>> SLOT_BITS);
+		count--;
+		p.setPQueue(null);
+		if (stats != null)
+			stats.deletes++;
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return new SlotSpliterator<T>(slots, sizes, 0, slots.length, count);
+	}
+
+	@Override
+	public void setStats(PQueueStats stats) {
+		this.stats = stats;
+	}
+
+	@Override
+	public PQueueStats getStats() {
+		return stats;
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public boolean isAdvanced() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("now = " + now);
+		for (int level = 0; level < LEVELS; level++) {
+			if (occupied[level] == 0)
+				continue;
+			sb.append("\nlevel ").append(level).append(":");
+			for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+				int s = level * WHEEL_SIZE + slot;
+				if (sizes[s] > 0)
+					sb.append(' ').append(slot).append('x').append(sizes[s]);
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,114 @@
+package com.putable.pqueue;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A Spliterator over PQueues that keep their PQAbles in an array of slots
+ * (like the buckets of {@link PQueueRadix} or the slots of
+ * {@link PQueueTimingWheel}), where slots[s][0..sizes[s]-1] are in use. It
+ * splits by handing off half of its remaining slots, or half of a single large
+ * slot, so that parallel streams get evenly sized pieces.
+ * 
+ * @author Brennan Collins
+ * 
+ * @param <T>
+ *            the type of PQAble in the slots
+ */
+final class SlotSpliterator<T extends PQAble> implements Spliterator<T> {
+	// don't bother splitting a single slot smaller than this
+	private static final int MIN_SPLIT = 1024;
+	// the slots and how full each one is
+	private final PQAble[][] slots;
+	private final int[] sizes;
+	// the next PQAble to visit is slots[slot][pos]; stop at slot end
+	private int slot, pos;
+	private final int end;
+	// roughly how many PQAbles are left to visit
+	private long estimate;
+
+	/**
+	 * Constructor for a SlotSpliterator.
+	 * 
+	 * @param slots
+	 *            the slots, some of which may be null
+	 * @param sizes
+	 *            how many PQAbles are in each slot
+	 * @param slot
+	 *            the first slot to visit
+	 * @param end
+	 *            one past the last slot to visit
+	 * @param estimate
+	 *            roughly how many PQAbles are in those slots
+	 */
+	SlotSpliterator(PQAble[][] slots, int[] sizes, int slot, int end,
+			long estimate) {
+		this.slots = slots;
+		this.sizes = sizes;
+		this.slot = slot;
+		this.end = end;
+		this.estimate = estimate;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (action == null)
+			throw new NullPointerException();
+		while (slot < end) {
+			if (pos < sizes[slot]) {
+				action.accept((T) slots[slot][pos++]);
+				return true;
+			}
+			slot++;
+			pos = 0;
+		}
+		return false;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEachRemaining(Consumer<? super T> action) {
+		if (action == null)
+			throw new NullPointerException();
+		for (; slot < end; slot++, pos = 0) {
+			PQAble[] s = slots[slot];
+			for (int n = sizes[slot]; pos < n; pos++)
+				action.accept((T) s[pos]);
+		}
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		if (end - slot > 1) {
+			int mid = (slot + end) >>> 1;
+			SlotSpliterator<T> prefix = new SlotSpliterator<T>(slots, sizes,
+					slot, mid, estimate / 2);
+			prefix.pos = pos;
+			slot = mid;
+			pos = 0;
+			estimate -= prefix.estimate;
+			return prefix;
+		}
+		if (slot < end && sizes[slot] - pos >= MIN_SPLIT) {
+			int mid = (pos + sizes[slot]) >>> 1;
+			Spliterator<T> prefix = Spliterators.spliterator(
+					slots[slot], pos, mid, NONNULL);
+			estimate = Math.max(0, estimate - (mid - pos));
+			pos = mid;
+			return prefix;
+		}
+		return null;
+	}
+
+	@Override
+	public long estimateSize() {
+		return estimate;
+	}
+
+	@Override
+	public int characteristics() {
+		return NONNULL;
+	}
+}